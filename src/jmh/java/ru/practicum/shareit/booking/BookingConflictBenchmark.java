@@ -0,0 +1,129 @@
+package ru.practicum.shareit.booking;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of booking overlap check on items with long booking history.
+ * Bookings of item last one hour and start every two hours, all of them but the last ten are in the past.
+ * Without index on item ID and end date the check reads all bookings of item.
+ * Run with {@code mvn -Pbenchmark -DskipTests verify -Djmh.args=BookingConflictBenchmark}.
+ * @author Evgeniy Lee
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class BookingConflictBenchmark {
+    // Count of seeded items
+    private static final int ITEM_COUNT = 10;
+
+    // Count of future bookings per item
+    private static final int FUTURE_BOOKINGS_PER_ITEM = 10;
+
+    // Statuses new booking must not overlap
+    private static final Set<BookingStatus> STATUSES = EnumSet.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+
+    @Param({"10000", "100000"})
+    private int bookingsPerItem;
+
+    @Param({"true", "false"})
+    private boolean endDateIndex;
+
+    private ConfigurableApplicationContext context;
+    private BookingRepository bookingRepository;
+    // Start of the first future booking of every item
+    private LocalDateTime firstFutureStart;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItApp.class)
+                .web(WebApplicationType.NONE)
+                .profiles("ci")
+                .run("--spring.datasource.url=jdbc:h2:mem:booking-conflict",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.springframework.orm.jpa=WARN",
+                        "--logging.level.org.springframework.transaction=WARN",
+                        "--logging.level.org.springframework.transaction.interceptor=WARN",
+                        "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN");
+        bookingRepository = context.getBean(BookingRepository.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        firstFutureStart = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusHours(2);
+        seed(jdbcTemplate);
+        if (!endDateIndex) {
+            jdbcTemplate.execute("DROP INDEX ix_bookings_item_id_end_date");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean checkFreeInterval() {
+        // Gap between two future bookings
+        LocalDateTime start = futureBookingStart().plusHours(1);
+        return bookingRepository.existsOverlapping(randomItemId(), STATUSES, start, start.plusHours(1));
+    }
+
+    @Benchmark
+    public boolean checkConflictingInterval() {
+        LocalDateTime start = futureBookingStart().plusMinutes(30);
+        return bookingRepository.existsOverlapping(randomItemId(), STATUSES, start, start.plusHours(1));
+    }
+
+    // Owner has ID 1 and booker has ID 2. Bookings of item are numbered from 0,
+    // booking N starts 2 * (N - count of past bookings) hours after the first future booking
+    private void seed(final JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("INSERT INTO users (id, name, email) " +
+                "SELECT x, 'User ' || x, 'user' || x || '@yandex.ru' FROM SYSTEM_RANGE(1, 2)");
+        jdbcTemplate.update("INSERT INTO items (id, name, description, is_available, owner_id) " +
+                "SELECT x, 'Item ' || x, 'Item ' || x || ' for rent', TRUE, 1 FROM SYSTEM_RANGE(1, ?)", ITEM_COUNT);
+        int pastBookings = bookingsPerItem - FUTURE_BOOKINGS_PER_ITEM;
+        jdbcTemplate.update("INSERT INTO bookings (id, start_date, end_date, item_id, booker_id, status) " +
+                        "SELECT x, " +
+                        "DATEADD('HOUR', 2 * (MOD(x - 1, ?) - ?), CAST(? AS TIMESTAMP)), " +
+                        "DATEADD('HOUR', 2 * (MOD(x - 1, ?) - ?) + 1, CAST(? AS TIMESTAMP)), " +
+                        "(x - 1) / ? + 1, 2, " +
+                        "CASE WHEN MOD(x, 3) = 0 THEN 'WAITING' ELSE 'APPROVED' END " +
+                        "FROM SYSTEM_RANGE(1, ?)",
+                bookingsPerItem, pastBookings, firstFutureStart,
+                bookingsPerItem, pastBookings, firstFutureStart,
+                bookingsPerItem, (long) bookingsPerItem * ITEM_COUNT);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    private LocalDateTime futureBookingStart() {
+        return firstFutureStart.plusHours(2L * ThreadLocalRandom.current().nextInt(FUTURE_BOOKINGS_PER_ITEM - 1));
+    }
+
+    private static long randomItemId() {
+        return ThreadLocalRandom.current().nextLong(ITEM_COUNT) + 1;
+    }
+}
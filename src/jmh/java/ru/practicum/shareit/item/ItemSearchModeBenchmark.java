@@ -0,0 +1,126 @@
+package ru.practicum.shareit.item;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.item.model.Item;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency percentiles of LIKE and pg_trgm item search on seeded PostgreSQL database.
+ * Database is passed in parameters, for example
+ * {@code mvn -Pbenchmark -DskipTests verify
+ * -Djmh.args="ItemSearchModeBenchmark -p postgresUrl=jdbc:postgresql://localhost:5432/shareit_bench"}.
+ * Database schema is dropped and recreated, never point it to database with real data.
+ * @author Evgeniy Lee
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ItemSearchModeBenchmark {
+    // Words item names and descriptions are made of, also used as search queries
+    private static final String[] WORDS = {"drill", "ladder", "bike", "hammer", "saw", "tent", "kayak", "projector",
+            "camera", "tripod", "scooter", "mixer", "vacuum", "sander", "grill", "heater"};
+
+    // Page of search results
+    private static final Pageable PAGEABLE = PageRequest.of(0, 10, ItemRepository.SORT_IDS_ASC);
+
+    @Param("")
+    private String postgresUrl;
+
+    @Param("shareit")
+    private String postgresUsername;
+
+    @Param("shareit")
+    private String postgresPassword;
+
+    @Param("5000000")
+    private int itemCount;
+
+    private ConfigurableApplicationContext context;
+    private ItemRepository itemRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (postgresUrl.isEmpty()) {
+            throw new IllegalArgumentException("PostgreSQL database is not set, pass it by -p postgresUrl=...");
+        }
+        context = new SpringApplicationBuilder(ShareItApp.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.driverClassName=org.postgresql.Driver",
+                        "--spring.datasource.url=" + postgresUrl,
+                        "--spring.datasource.username=" + postgresUsername,
+                        "--spring.datasource.password=" + postgresPassword,
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.springframework.orm.jpa=WARN",
+                        "--logging.level.org.springframework.transaction=WARN",
+                        "--logging.level.org.springframework.transaction.interceptor=WARN",
+                        "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN");
+        itemRepository = context.getBean(ItemRepository.class);
+        seed(context.getBean(JdbcTemplate.class));
+        // Both modes must find the same page, otherwise their latencies are not comparable
+        List<Item> like = itemRepository.findNameOrDescriptionContainingText("kayak 4242", PAGEABLE);
+        List<Item> trigram = itemRepository.findNameOrDescriptionContainingTextByTrigram("kayak 4242", PAGEABLE);
+        if (!like.equals(trigram)) {
+            throw new IllegalStateException("LIKE and trigram search found different items");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Item> like() {
+        return itemRepository.findNameOrDescriptionContainingText(randomText(), PAGEABLE);
+    }
+
+    @Benchmark
+    public List<Item> trigram() {
+        return itemRepository.findNameOrDescriptionContainingTextByTrigram(randomText(), PAGEABLE);
+    }
+
+    // Every tenth item is unavailable, descriptions mix words so name and description matches differ
+    private void seed(final JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("INSERT INTO users (name, email) VALUES ('Benchmark owner', 'benchmark@shareit.ru')");
+        Long ownerId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = 'benchmark@shareit.ru'",
+                Long.class);
+        String words = "ARRAY['" + String.join("','", WORDS) + "']";
+        jdbcTemplate.update("INSERT INTO items (name, description, is_available, owner_id) " +
+                "SELECT w[1 + i % " + WORDS.length + "] || ' ' || i, " +
+                "   'Item ' || i || ' ' || w[1 + (i * 7919) % " + WORDS.length + "] || ' for rent', " +
+                "   i % 10 <> 0, ? " +
+                "FROM generate_series(1, ?) AS s(i), (SELECT " + words + " AS w) AS words", ownerId, itemCount);
+        jdbcTemplate.execute("ANALYZE items");
+    }
+
+    // Frequent word or rare word and number pair
+    private String randomText() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String word = WORDS[random.nextInt(WORDS.length)];
+        return random.nextBoolean() ? word : word + " " + (1 + random.nextInt(itemCount));
+    }
+}
@@ -0,0 +1,165 @@
+package ru.practicum.shareit.item;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.booking.BookingTimeline;
+import ru.practicum.shareit.item.dto.ItemDto;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput, latency percentiles and allocation rate of item service read paths
+ * against H2 database seeded with items and ten times as many bookings.
+ * Run with {@code mvn -Pbenchmark -DskipTests verify}, JMH options are passed in {@code jmh.args} property.
+ * @author Evgeniy Lee
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class ItemServiceBenchmark {
+    // Count of items owned by one user
+    private static final int ITEMS_PER_OWNER = 10;
+
+    // Count of bookings per item
+    private static final int BOOKINGS_PER_ITEM = 10;
+
+    // Page size of owner items and search results
+    private static final int PAGE_SIZE = 20;
+
+    // Words item descriptions are made of, also used as search queries
+    private static final String[] WORDS = {"drill", "saw", "hammer", "ladder", "tent", "kayak", "camera", "bike"};
+
+    @Param({"1000", "100000", "1000000"})
+    private int itemCount;
+
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+    private int ownerCount;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        context = new SpringApplicationBuilder(ShareItApp.class)
+                .web(WebApplicationType.NONE)
+                .profiles("ci")
+                // Arguments override application properties, so service code is not slowed down by logging
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark",
+                        "--shareit.jpa.second-level-cache.enabled=true",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.springframework.orm.jpa=WARN",
+                        "--logging.level.org.springframework.transaction=WARN",
+                        "--logging.level.org.springframework.transaction.interceptor=WARN",
+                        "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN");
+        itemService = context.getBean(ItemService.class);
+        ItemSearchIndex searchIndex = context.getBean(ItemSearchIndex.class);
+        BookingTimeline bookingTimeline = context.getBean(BookingTimeline.class);
+        // Startup builds run against empty DB, they are rebuilt after seeding
+        while (!searchIndex.isWarm() || !bookingTimeline.isWarm()) {
+            Thread.sleep(10);
+        }
+
+        ownerCount = Math.max(1, itemCount / ITEMS_PER_OWNER);
+        seed(context.getBean(JdbcTemplate.class));
+        searchIndex.rebuild();
+        bookingTimeline.rebuild();
+        // Seeded rows bypass services, so owner item summaries are rebuilt from them
+        context.getBean(ItemSummaryUpdater.class).rebuild();
+        context.getBean(ItemDtoCache.class).invalidateAll();
+        context.getBean(EntityManagerFactory.class).getCache().evictAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ItemDto> getByOwner() {
+        return itemService.getByOwner(randomOwnerId(), 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public ItemDto get() {
+        return itemService.get(randomItemId(), randomBookerId());
+    }
+
+    @Benchmark
+    public ItemDto getByItemOwner() {
+        long itemId = randomItemId();
+        return itemService.get(itemId, ownerIdOf(itemId));
+    }
+
+    @Benchmark
+    public List<ItemDto> search() {
+        String text = WORDS[ThreadLocalRandom.current().nextInt(WORDS.length)];
+        return itemService.search(randomBookerId(), text, 0, PAGE_SIZE);
+    }
+
+    // Owners take user IDs from 1, bookers follow them, so nobody books own items
+    private void seed(final JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("INSERT INTO users (id, name, email) " +
+                "SELECT x, 'User ' || x, 'user' || x || '@yandex.ru' FROM SYSTEM_RANGE(1, ?)", 2L * ownerCount);
+        jdbcTemplate.update("INSERT INTO items (id, name, description, is_available, owner_id) " +
+                "SELECT x, 'Item ' || x, " + word("x") + " || ' ' || " + word("x / 8") + " || ' for rent', " +
+                "MOD(x, 5) <> 0, MOD(x - 1, ?) + 1 " +
+                "FROM SYSTEM_RANGE(1, ?)", ownerCount, (long) itemCount);
+        // Bookings of item start one week apart, five of them in the past
+        jdbcTemplate.update("INSERT INTO bookings (id, start_date, end_date, item_id, booker_id, status) " +
+                "SELECT x, " +
+                "DATEADD('DAY', 7 * ((x - 1) / ?) - 35, LOCALTIMESTAMP), " +
+                "DATEADD('DAY', 7 * ((x - 1) / ?) - 32, LOCALTIMESTAMP), " +
+                "MOD(x - 1, ?) + 1, ? + MOD(x - 1, ?) + 1, " +
+                "CASE WHEN MOD(x, 3) = 0 THEN 'WAITING' ELSE 'APPROVED' END " +
+                "FROM SYSTEM_RANGE(1, ?)",
+                itemCount, itemCount, itemCount, ownerCount, ownerCount, (long) itemCount * BOOKINGS_PER_ITEM);
+        // Rows inserted by benchmarks take IDs from sequences, they must follow explicit IDs of seeded rows
+        jdbcTemplate.execute("ALTER SEQUENCE users_seq RESTART WITH " + (2L * ownerCount + 1));
+        jdbcTemplate.execute("ALTER SEQUENCE items_seq RESTART WITH " + (itemCount + 1L));
+        jdbcTemplate.execute("ALTER SEQUENCE bookings_seq RESTART WITH " + ((long) itemCount * BOOKINGS_PER_ITEM + 1));
+    }
+
+    // SQL expression selecting one of words by number
+    private static String word(final String number) {
+        StringBuilder expression = new StringBuilder("CASE MOD(" + number + ", " + WORDS.length + ")");
+        for (int i = 0; i < WORDS.length; i++) {
+            expression.append(" WHEN ").append(i).append(" THEN '").append(WORDS[i]).append("'");
+        }
+        return expression.append(" END").toString();
+    }
+
+    private long randomItemId() {
+        return ThreadLocalRandom.current().nextLong(itemCount) + 1;
+    }
+
+    private long randomOwnerId() {
+        return ThreadLocalRandom.current().nextLong(ownerCount) + 1;
+    }
+
+    private long randomBookerId() {
+        return ownerCount + randomOwnerId();
+    }
+
+    private long ownerIdOf(final long itemId) {
+        return (itemId - 1) % ownerCount + 1;
+    }
+}
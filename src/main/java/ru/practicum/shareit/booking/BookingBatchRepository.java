@@ -0,0 +1,22 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bulk booking operations sent to DB by JDBC batches
+ * @author Evgeniy Lee
+ */
+public interface BookingBatchRepository {
+    /**
+     * Set statuses of bookings by updates conditioned on read versions, sent by JDBC batches in current transaction.
+     * Updated bookings get new status and version, bookings changed concurrently are left as they are.
+     * Bookings are detached from persistence context.
+     * @param bookings bookings read in current transaction
+     * @param statuses new statuses in order of bookings
+     * @return IDs of bookings changed concurrently
+     */
+    Set<Long> updateStatuses(List<Booking> bookings, List<BookingStatus> statuses);
+}
@@ -0,0 +1,60 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bulk booking operations sent to DB by JDBC batches of versioned updates
+ * @author Evgeniy Lee
+ */
+@RequiredArgsConstructor
+public class BookingBatchRepositoryImpl implements BookingBatchRepository {
+    // Count of updates per JDBC batch, the same as hibernate.jdbc.batch_size
+    private static final int BATCH_SIZE = 50;
+
+    // Row is updated only if nobody changed it since it was read
+    private static final String UPDATE_STATUS =
+            "UPDATE bookings SET status = ?, version = version + 1 WHERE id = ? AND version = ?";
+
+    private final EntityManager entityManager;
+
+    @Override
+    public Set<Long> updateStatuses(final List<Booking> bookings, final List<BookingStatus> statuses) {
+        // Pending changes are written before bookings are detached, so they are not written again at flush
+        entityManager.flush();
+        bookings.forEach(entityManager::detach);
+        Set<Long> changedIds = new HashSet<>();
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(UPDATE_STATUS)) {
+                for (int from = 0; from < bookings.size(); from += BATCH_SIZE) {
+                    int to = Math.min(from + BATCH_SIZE, bookings.size());
+                    for (int i = from; i < to; i++) {
+                        Booking booking = bookings.get(i);
+                        statement.setString(1, statuses.get(i).name());
+                        statement.setLong(2, booking.getId());
+                        statement.setLong(3, booking.getVersion());
+                        statement.addBatch();
+                    }
+                    int[] counts = statement.executeBatch();
+                    for (int i = from; i < to; i++) {
+                        Booking booking = bookings.get(i);
+                        if (counts[i - from] == 1) {
+                            booking.setStatus(statuses.get(i));
+                            booking.setVersion(booking.getVersion() + 1);
+                        } else {
+                            changedIds.add(booking.getId());
+                        }
+                    }
+                }
+            }
+        });
+        return changedIds;
+    }
+}
@@ -2,6 +2,8 @@ package ru.practicum.shareit.booking;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -12,10 +14,15 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingApprovalResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BriefBookingDto;
 import ru.practicum.shareit.booking.model.BookingSearchStatus;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.messages.ExceptionMessages;
 import ru.practicum.shareit.messages.LoggingMessages;
+import ru.practicum.shareit.util.SeekCursor;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
@@ -36,40 +43,96 @@ public class BookingController {
     private final BookingService service;
 
     @PostMapping
-    public BookingDto create(@Valid @RequestBody BriefBookingDto bookingDto,
-                             @RequestHeader(name = "X-Sharer-User-Id") Long bookerId) {
+    public ResponseEntity<BookingDto> create(@Valid @RequestBody BriefBookingDto bookingDto,
+                                             @RequestHeader(name = "X-Sharer-User-Id") Long bookerId) {
         log.debug(LoggingMessages.CREATE.toString(), bookingDto);
-        return service.create(bookingDto, bookerId);
+        return withETag(service.create(bookingDto, bookerId));
     }
 
+    /**
+     * Approve or reject booking. Client passing ETag of booking in If-Match header gets 412 if booking was changed
+     * since, so request can be retried without reading booking again
+     */
     @PatchMapping("{bookingId}")
-    public BookingDto approve(@PathVariable Long bookingId, @RequestHeader(name = "X-Sharer-User-Id") Long userId,
-                              @RequestParam Boolean approved) {
+    public ResponseEntity<BookingDto> approve(@PathVariable Long bookingId,
+                                              @RequestHeader(name = "X-Sharer-User-Id") Long userId,
+                                              @RequestHeader(name = HttpHeaders.IF_MATCH, required = false)
+                                              String ifMatch,
+                                              @RequestParam Boolean approved) {
         log.debug(LoggingMessages.APPROVE_BOOKING.toString().toString(), bookingId);
-        return service.approve(bookingId, userId, approved);
+        return withETag(service.approve(bookingId, userId, approved, parseVersion(ifMatch)));
+    }
+
+    /**
+     * Approve or reject bookings of owner at once, every booking gets its own result
+     */
+    @PatchMapping("/batch")
+    public List<BookingApprovalResultDto> approveAll(@RequestBody List<BookingApprovalDto> approvals,
+                                                     @RequestHeader(name = "X-Sharer-User-Id") Long userId) {
+        log.debug(LoggingMessages.APPROVE_BATCH.toString(), approvals.size());
+        return service.approveAll(approvals, userId);
     }
 
     @GetMapping("{bookingId}")
-    public BookingDto get(@PathVariable Long bookingId, @RequestHeader(name = "X-Sharer-User-Id") Long userId) {
+    public ResponseEntity<BookingDto> get(@PathVariable Long bookingId,
+                                          @RequestHeader(name = "X-Sharer-User-Id") Long userId) {
         log.debug(LoggingMessages.GET.toString(), bookingId);
-        return service.get(bookingId, userId);
+        return withETag(service.get(bookingId, userId));
     }
 
     @GetMapping
-    public List<BookingDto> getAllByUser(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
-                                         @RequestParam(defaultValue = "ALL") BookingSearchStatus state,
-                                         @RequestParam(name = "from", defaultValue = "0") @PositiveOrZero Integer from,
-                                         @RequestParam(name = "size", defaultValue = "10") @Positive Integer size) {
+    public ResponseEntity<List<BookingDto>> getAllByUser(
+            @RequestHeader(name = "X-Sharer-User-Id") Long userId,
+            @RequestParam(defaultValue = "ALL") BookingSearchStatus state,
+            @RequestParam(name = "from", defaultValue = "0") @PositiveOrZero Integer from,
+            @RequestParam(name = "size", defaultValue = "10") @Positive Integer size,
+            @RequestParam(name = "after", required = false) String after
+    ) {
         log.debug(LoggingMessages.GET_BOOKINGS_BY_USER_ID.toString(), userId);
-        return service.getByBookerId(userId, state, from, size);
+        List<BookingDto> bookings = after == null
+                ? service.getByBookerId(userId, state, from, size)
+                : service.getByBookerId(userId, state, SeekCursor.decodeDateAndId(after), size);
+        return SeekCursor.toResponseEntity(bookings, size,
+                booking -> SeekCursor.of(booking.getStart(), booking.getId()));
     }
 
     @GetMapping("/owner")
-    List<BookingDto> getAllByOwner(@RequestHeader(name = "X-Sharer-User-Id") long userId,
-                                   @RequestParam(defaultValue = "ALL") BookingSearchStatus state,
-                                   @RequestParam(name = "from", defaultValue = "0") @PositiveOrZero Integer from,
-                                   @RequestParam(name = "size", defaultValue = "10") @Positive Integer size) {
+    ResponseEntity<List<BookingDto>> getAllByOwner(
+            @RequestHeader(name = "X-Sharer-User-Id") long userId,
+            @RequestParam(defaultValue = "ALL") BookingSearchStatus state,
+            @RequestParam(name = "from", defaultValue = "0") @PositiveOrZero Integer from,
+            @RequestParam(name = "size", defaultValue = "10") @Positive Integer size,
+            @RequestParam(name = "after", required = false) String after
+    ) {
         log.debug(LoggingMessages.GET_BOOKINGS_BY_OWNER_ID.toString(), userId);
-        return service.getByOwnerId(userId, state, from, size);
+        List<BookingDto> bookings = after == null
+                ? service.getByOwnerId(userId, state, from, size)
+                : service.getByOwnerId(userId, state, SeekCursor.decodeDateAndId(after), size);
+        return SeekCursor.toResponseEntity(bookings, size,
+                booking -> SeekCursor.of(booking.getStart(), booking.getId()));
+    }
+
+    // Booking version is its entity tag
+    private static ResponseEntity<BookingDto> withETag(final BookingDto booking) {
+        if (booking.getVersion() == null) {
+            return ResponseEntity.ok(booking);
+        }
+        return ResponseEntity.ok().eTag(String.valueOf(booking.getVersion())).body(booking);
+    }
+
+    // Version of entity tag "N", wildcard matches any version
+    private static Long parseVersion(final String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 1 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.valueOf(tag);
+        } catch (NumberFormatException exception) {
+            throw new BadRequestException(String.format(ExceptionMessages.INVALID_VERSION, ifMatch));
+        }
     }
 }
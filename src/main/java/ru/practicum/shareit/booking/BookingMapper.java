@@ -5,8 +5,10 @@ import lombok.NoArgsConstructor;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BriefBookingDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserMapper;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -46,9 +48,10 @@ public class BookingMapper {
         bookingDto.setId(booking.getId());
         bookingDto.setStart(booking.getStart());
         bookingDto.setEnd(booking.getEnd());
-        bookingDto.setBooker(booking.getBooker());
-        bookingDto.setItem(booking.getItem());
+        bookingDto.setBooker(UserMapper.toUserDto(booking.getBooker()));
+        bookingDto.setItem(ItemMapper.toItemDto(booking.getItem()));
         bookingDto.setStatus(booking.getStatus());
+        bookingDto.setVersion(booking.getVersion());
         return bookingDto;
     }
 
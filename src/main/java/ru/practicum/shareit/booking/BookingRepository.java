@@ -2,55 +2,121 @@ package ru.practicum.shareit.booking;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.dto.ItemBookingCount;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Booking repository
  * @author Evgeniy Lee
  */
-public interface BookingRepository extends JpaRepository<Booking, Long> {
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingSearchRepository,
+        BookingBatchRepository {
 
-    List<Booking> findAllByBookerId(Long bookerId, Pageable pageable);
+    // Selects booking DTO with item and booker columns, so list queries do not load managed entities
+    String SELECT_BOOKING_DTO = "SELECT new ru.practicum.shareit.booking.dto.BookingDto(" +
+            "booking.id, booking.start, booking.end, booking.status, booking.version, " +
+            "item.id, item.name, item.description, item.available, item.owner.id, item.request.id, " +
+            "item.commentCount, " +
+            "booker.id, booker.name, booker.email) " +
+            "FROM Booking booking JOIN booking.item item JOIN booking.booker booker ";
 
-    @Query(value = "SELECT booking " +
-            "FROM Booking booking " +
-            "WHERE booking.booker.id = :bookerId AND booking.start < :date AND booking.end > :date")
-    List<Booking> findAllByBookerIdAndStartBeforeAndEndAfter(@Param("bookerId") Long bookerId,
-                                                             @Param("date") LocalDateTime date, Pageable pageable);
-
-    List<Booking> findAllByBookerIdAndEndBefore(Long bookerId, LocalDateTime end, Pageable pageable);
+    // Keyset predicate selecting bookings which follow cursor when sorted by start date and ID descending
+    String AFTER_CURSOR = "AND (booking.start < :start OR (booking.start = :start AND booking.id < :id))";
 
-    List<Booking> findAllByBookerIdAndStartAfter(Long bookerId, LocalDateTime start, Pageable pageable);
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
+    @Override
+    Optional<Booking> findById(Long id);
 
-    List<Booking> findAllByBookerIdAndStatus(Long bookerId, BookingStatus status, Pageable pageable);
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
+    @Override
+    List<Booking> findAllById(Iterable<Long> ids);
 
-    List<Booking> findAllByItemOwnerId(Long ownerId, Pageable pageable);
+    // Derived query joins items and users to compare their IDs, so bookings would be scanned
+    @Query("SELECT booking FROM Booking booking " +
+            "WHERE booking.booker.id = :bookerId AND booking.item.id = :itemId " +
+            "AND booking.end < :end AND booking.status = :status")
+    List<Booking> findAllByBookerIdAndItemIdAndEndBeforeAndStatus(@Param("bookerId") Long bookerId,
+                                                                  @Param("itemId") Long itemId,
+                                                                  @Param("end") LocalDateTime end,
+                                                                  @Param("status") BookingStatus status, Sort sort);
 
-    @Query(value = "SELECT booking " +
+    // Booking with one of statuses overlapping interval from start to end exists. Derived exists query
+    // joins items to compare item ID, so bookings index on item ID and end date would not be used
+    @Query("SELECT CASE WHEN COUNT(booking) > 0 THEN TRUE ELSE FALSE END " +
             "FROM Booking booking " +
-            "WHERE booking.item.owner.id = :ownerId AND booking.start < :date AND booking.end > :date")
-    List<Booking> findAllByItemOwnerIdAndStartBeforeAndEndAfter(@Param("ownerId") Long ownerId,
-                                                                @Param("date") LocalDateTime date, Pageable pageable);
-
-    List<Booking> findAllByItemOwnerIdAndEndBefore(Long ownerId, LocalDateTime end, Pageable pageable);
+            "WHERE booking.item.id = :itemId AND booking.status IN :statuses " +
+            "AND booking.end > :start AND booking.start < :end")
+    boolean existsOverlapping(@Param("itemId") Long itemId, @Param("statuses") Collection<BookingStatus> statuses,
+                              @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 
-    List<Booking> findAllByItemOwnerIdAndStartAfter(Long ownerId, LocalDateTime start, Pageable pageable);
+    // Bookings with one of statuses of items overlapping interval from start to end, so overlaps of many bookings
+    // are checked by one range scan of index on item ID and end date per item
+    @Query("SELECT booking FROM Booking booking " +
+            "WHERE booking.item.id IN :itemIds AND booking.status IN :statuses " +
+            "AND booking.end > :start AND booking.start < :end")
+    List<Booking> findAllOverlapping(@Param("itemIds") Collection<Long> itemIds,
+                                     @Param("statuses") Collection<BookingStatus> statuses,
+                                     @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 
-    List<Booking> findAllByItemOwnerIdAndStatus(Long ownerId, BookingStatus status, Pageable pageable);
+    // Waiting and approved bookings of item do not overlap, so only the last booking starting before period
+    // may end within it. It and at most limit bookings starting within period are read by two range scans
+    // of index on item ID, start and end date
+    @Query(value = "select start_date as \"start\", end_date as \"end\" " +
+            "from (" +
+            "   (select start_date, end_date from bookings " +
+            "   where item_id = :itemId and status in ('WAITING', 'APPROVED') and start_date < :from " +
+            "   order by start_date desc limit 1) " +
+            "   union all " +
+            "   (select start_date, end_date from bookings " +
+            "   where item_id = :itemId and status in ('WAITING', 'APPROVED') " +
+            "   and start_date >= :from and start_date < :to " +
+            "   order by start_date limit :limit)" +
+            ") as intervals " +
+            "order by start_date", nativeQuery = true)
+    List<BookingInterval> findIntervalsByItemId(@Param("itemId") Long itemId, @Param("from") LocalDateTime from,
+                                                @Param("to") LocalDateTime to, @Param("limit") int limit);
 
-    List<Booking> findAllByBookerIdAndItemIdAndEndBeforeAndStatus(Long bookerId, Long itemId, LocalDateTime end,
-                                                                  BookingStatus status, Sort sort);
+    // Approved bookings are ranked separately before and after the date, so at most
+    // the latest past and the earliest future booking are returned per item
+    @Query(value = "select id, start_date, end_date, item_id, booker_id, status, version " +
+            "from (" +
+            "   select bookings.*, row_number() over (" +
+            "       partition by item_id, start_date < :date " +
+            "       order by case when start_date < :date then start_date end desc, start_date, id" +
+            "   ) as booking_rank " +
+            "   from bookings " +
+            "   where item_id in (:itemIds) and status = 'APPROVED' and start_date <> :date" +
+            ") as ranked " +
+            "where booking_rank = 1", nativeQuery = true)
+    List<Booking> findLastAndNextByItemIdIn(@Param("itemIds") List<Long> itemIds,
+                                            @Param("date") LocalDateTime date);
 
     @Query(value = "SELECT booking " +
             "FROM Booking booking " +
-            "WHERE booking.item.id IN :itemIds AND booking.status = 'APPROVED' ")
-    List<Booking> findAllByItemIdIn(@Param("itemIds") List<Long> itemIds);
+            "JOIN FETCH booking.item " +
+            "WHERE booking.status = :status AND booking.id > :id")
+    List<Booking> findAllByStatusAndIdGreaterThan(@Param("status") BookingStatus status, @Param("id") Long id,
+                                                  Pageable pageable);
+
+    @Query(value = "SELECT booking.item.id AS itemId, COUNT(booking.id) AS bookings " +
+            "FROM Booking booking " +
+            "WHERE booking.item.id IN :itemIds " +
+            "GROUP BY booking.item.id")
+    List<ItemBookingCount> countByItemIdIn(@Param("itemIds") List<Long> itemIds);
+
+    Sort SORT_IDS_ASC = Sort.by(Sort.Direction.ASC, "id");
 
     Sort SORT_START_DATE_DESC = Sort.by(Sort.Direction.DESC, "start");
+
+    Sort SORT_START_DATE_ID_DESC = Sort.by(Sort.Direction.DESC, "start", "id");
 }
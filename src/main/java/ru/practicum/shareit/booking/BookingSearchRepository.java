@@ -0,0 +1,28 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingSearchStatus;
+import ru.practicum.shareit.util.SeekCursor;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Booking lists of booker and owner, every role, state and kind of paging is served by one query
+ * @author Evgeniy Lee
+ */
+public interface BookingSearchRepository {
+    /**
+     * Find bookings of user in state sorted by start date and ID from the latest
+     * @param role user is booker of bookings or owner of their items
+     * @param userId user ID
+     * @param state searched state
+     * @param now time current, past and future bookings are found at
+     * @param after cursor with start date and ID of the last booking of previous page or null
+     * @param pageable page offset and size, offset is not used when cursor is set
+     * @return list of bookings
+     */
+    List<BookingDto> findByState(BookingRole role, Long userId, BookingSearchStatus state, LocalDateTime now,
+                                 SeekCursor after, Pageable pageable);
+}
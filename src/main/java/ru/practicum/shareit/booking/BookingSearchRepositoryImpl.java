@@ -0,0 +1,109 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingSearchStatus;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.exception.UnknownStateException;
+import ru.practicum.shareit.messages.ExceptionMessages;
+import ru.practicum.shareit.util.SeekCursor;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Booking lists compiled from role, state and kind of paging into JPQL query.
+ * Predicates lead with booker ID or owner ID, so bookings of booker are read by indexes on booker ID
+ * and start date or status, bookings of owner by index on owner items joined with index on item ID and status.
+ * Query text of every shape is built once, so Hibernate finds its plan in query plan cache
+ * and DB receives the same statement for every user.
+ * @author Evgeniy Lee
+ */
+@RequiredArgsConstructor
+public class BookingSearchRepositoryImpl implements BookingSearchRepository {
+    // Predicates selecting bookings of user by role
+    private static final Map<BookingRole, String> ROLE_PREDICATES = new EnumMap<>(Map.of(
+            BookingRole.BOOKER, "WHERE booking.booker.id = :userId ",
+            BookingRole.OWNER, "WHERE item.owner.id = :userId "
+    ));
+
+    // Predicates selecting bookings by time, they are compared with current time
+    private static final Map<BookingSearchStatus, String> TIME_PREDICATES = new EnumMap<>(Map.of(
+            BookingSearchStatus.CURRENT, "AND booking.start < :now AND booking.end > :now ",
+            BookingSearchStatus.PAST, "AND booking.end < :now ",
+            BookingSearchStatus.FUTURE, "AND booking.start > :now "
+    ));
+
+    // Booking statuses selected by states
+    private static final Map<BookingSearchStatus, BookingStatus> STATE_STATUSES = new EnumMap<>(Map.of(
+            BookingSearchStatus.WAITING, BookingStatus.WAITING,
+            BookingSearchStatus.APPROVED, BookingStatus.APPROVED,
+            BookingSearchStatus.REJECTED, BookingStatus.REJECTED
+    ));
+
+    // Bookings are sorted like cursor predicate expects
+    private static final String ORDER_BY_START_DATE_ID_DESC = "ORDER BY booking.start DESC, booking.id DESC";
+
+    // Query text by shape, there are few shapes, so they are never evicted
+    private static final ConcurrentMap<QueryShape, String> QUERIES = new ConcurrentHashMap<>();
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<BookingDto> findByState(final BookingRole role, final Long userId, final BookingSearchStatus state,
+                                        final LocalDateTime now, final SeekCursor after, final Pageable pageable) {
+        if (state != BookingSearchStatus.ALL && !TIME_PREDICATES.containsKey(state)
+                && !STATE_STATUSES.containsKey(state)) {
+            throw new UnknownStateException(
+                    String.format(ExceptionMessages.UNKNOWN_STATE, BookingSearchStatus.UNSUPPORTED_STATUS));
+        }
+        QueryShape shape = new QueryShape(role, state, after != null);
+        TypedQuery<BookingDto> query = entityManager.createQuery(QUERIES.computeIfAbsent(shape,
+                BookingSearchRepositoryImpl::compile), BookingDto.class);
+        query.setParameter("userId", userId);
+        if (TIME_PREDICATES.containsKey(state)) {
+            query.setParameter("now", now);
+        }
+        if (STATE_STATUSES.containsKey(state)) {
+            query.setParameter("status", STATE_STATUSES.get(state));
+        }
+        if (after != null) {
+            query.setParameter("start", after.getDate());
+            query.setParameter("id", after.getId());
+        } else {
+            query.setFirstResult((int) pageable.getOffset());
+        }
+        return query.setMaxResults(pageable.getPageSize()).getResultList();
+    }
+
+    private static String compile(final QueryShape shape) {
+        StringBuilder query = new StringBuilder(BookingRepository.SELECT_BOOKING_DTO)
+                .append(ROLE_PREDICATES.get(shape.getRole()));
+        if (TIME_PREDICATES.containsKey(shape.getState())) {
+            query.append(TIME_PREDICATES.get(shape.getState()));
+        }
+        if (STATE_STATUSES.containsKey(shape.getState())) {
+            query.append("AND booking.status = :status ");
+        }
+        if (shape.isAfterCursor()) {
+            query.append(BookingRepository.AFTER_CURSOR).append(' ');
+        }
+        return query.append(ORDER_BY_START_DATE_ID_DESC).toString();
+    }
+
+    // Parameters which query text depends on
+    @Value
+    private static class QueryShape {
+        BookingRole role;
+        BookingSearchStatus state;
+        boolean afterCursor;
+    }
+}
@@ -1,8 +1,11 @@
 package ru.practicum.shareit.booking;
 
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingApprovalResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BriefBookingDto;
 import ru.practicum.shareit.booking.model.BookingSearchStatus;
+import ru.practicum.shareit.util.SeekCursor;
 import java.util.List;
 
 /**
@@ -27,6 +30,24 @@ public interface BookingService {
      */
     BookingDto approve(Long bookingId, Long userId, Boolean approved);
 
+    /**
+     * Approve booking if it was not changed since client read it
+     * @param bookingId booking ID
+     * @param userId booker ID
+     * @param approved is approved
+     * @param version version of booking read by client or null to approve any version
+     * @return updated booking
+     */
+    BookingDto approve(Long bookingId, Long userId, Boolean approved, Long version);
+
+    /**
+     * Approve or reject bookings of owner, booking which can not be updated does not prevent updates of others
+     * @param approvals decisions on bookings
+     * @param userId owner ID
+     * @return results in order of decisions
+     */
+    List<BookingApprovalResultDto> approveAll(List<BookingApprovalDto> approvals, Long userId);
+
     /**
      * Get booking by ID
      * @param bookingId booking ID
@@ -43,6 +64,16 @@ public interface BookingService {
      */
     List<BookingDto> getByBookerId(Long bookerId, BookingSearchStatus status, Integer from, Integer size);
 
+    /**
+     * Get page of bookings by booker which follow cursor
+     * @param bookerId booker ID
+     * @param status search status
+     * @param after cursor with start date and ID of the last booking of previous page
+     * @param size page size
+     * @return list of bookings
+     */
+    List<BookingDto> getByBookerId(Long bookerId, BookingSearchStatus status, SeekCursor after, Integer size);
+
     /**
      * Get all bookings by owner
      * @param ownerId owner ID
@@ -50,4 +81,14 @@ public interface BookingService {
      * @return list of bookings
      */
     List<BookingDto> getByOwnerId(Long ownerId, BookingSearchStatus status, Integer from, Integer size);
+
+    /**
+     * Get page of bookings by owner which follow cursor
+     * @param ownerId owner ID
+     * @param status search status
+     * @param after cursor with start date and ID of the last booking of previous page
+     * @param size page size
+     * @return list of bookings
+     */
+    List<BookingDto> getByOwnerId(Long ownerId, BookingSearchStatus status, SeekCursor after, Integer size);
 }
@@ -1,25 +1,42 @@
 package ru.practicum.shareit.booking;
 
 import lombok.AllArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingApprovalResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BriefBookingDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingRole;
 import ru.practicum.shareit.booking.model.BookingSearchStatus;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.exception.*;
+import ru.practicum.shareit.item.ItemDtoCache;
+import ru.practicum.shareit.item.ItemSuggestIndex;
 import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.ItemSummaryUpdater;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.messages.ExceptionMessages;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.util.PageSettings;
+import ru.practicum.shareit.util.SeekCursor;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 /**
  * Booking service
@@ -28,6 +45,11 @@ import java.util.List;
 @Service
 @AllArgsConstructor
 public class BookingServiceImpl implements BookingService {
+    // New booking must not overlap waiting and approved bookings of item
+    private static final Set<BookingStatus> CREATE_CONFLICT_STATUSES =
+            EnumSet.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+    // Approved booking must not overlap other approved bookings of item
+    private static final Set<BookingStatus> APPROVE_CONFLICT_STATUSES = EnumSet.of(BookingStatus.APPROVED);
 
     // Booking repository
     private final BookingRepository bookingRepository;
@@ -35,6 +57,16 @@ public class BookingServiceImpl implements BookingService {
     private final ItemRepository itemRepository;
     // User repository
     private final UserRepository userRepository;
+    // In-memory timelines of approved bookings
+    private final BookingTimeline bookingTimeline;
+    // Cache of assembled item DTO
+    private final ItemDtoCache itemDtoCache;
+    // In-memory trie of item names, suggestions are ordered by count of bookings
+    private final ItemSuggestIndex suggestIndex;
+    // Approved bookings become last or next bookings of item summaries
+    private final ItemSummaryUpdater summaryUpdater;
+    // Serializes overlap check and write of bookings of one item
+    private final ItemBookingLocks itemLocks;
 
     @Transactional
     @Override
@@ -43,6 +75,8 @@ public class BookingServiceImpl implements BookingService {
         Item item = getItemById(bookingDto.getItemId());
 
         Booking booking = BookingMapper.toBooking(bookingDto, booker, item);
+        // Client ID is ignored, so booking of another booker can not be overwritten by create
+        booking.setId(null);
 
         if (validateUserIsItemOwner(bookerId, item)) {
             throw new ForbiddenException(ExceptionMessages.ACCESS_DENIED);
@@ -57,8 +91,22 @@ public class BookingServiceImpl implements BookingService {
         if (endBeforeStart || endSameStart) {
             throw new ValidationException(ExceptionMessages.INVALID_DATA);
         }
+        itemLocks.lockUntilCompletion(item.getId());
+        validateNoOverlap(booking, CREATE_CONFLICT_STATUSES);
 
-        bookingRepository.save(booking);
+        try {
+            // Flushed here, so overlap found by DB constraint is reported as overlap found by check
+            bookingRepository.saveAndFlush(booking);
+        } catch (DataIntegrityViolationException exception) {
+            if (isOverlapViolation(exception)) {
+                throw new ValidationException(ExceptionMessages.BOOKING_OVERLAP);
+            }
+            throw exception;
+        }
+        bookingTimeline.add(booking);
+        summaryUpdater.addBooking(booking);
+        itemDtoCache.invalidate(item.getId());
+        suggestIndex.addBooking(item.getId());
 
         return BookingMapper.toBookingDto(booking);
     }
@@ -66,28 +114,181 @@ public class BookingServiceImpl implements BookingService {
     @Transactional
     @Override
     public BookingDto approve(final Long bookingId, final Long userId, final Boolean approved) {
+        return approve(bookingId, userId, approved, null);
+    }
+
+    @Transactional
+    @Override
+    public BookingDto approve(final Long bookingId, final Long userId, final Boolean approved, final Long version) {
         Booking booking = getBookingById(bookingId);
 
         if (!validateUserIsItemOwner(userId, booking.getItem())) {
             throw new ForbiddenException(ExceptionMessages.ACCESS_DENIED);
         }
 
+        if (version != null && version != booking.getVersion()) {
+            throw new PreconditionFailedException(
+                    String.format(ExceptionMessages.VERSION_MISMATCH, version, booking.getVersion()));
+        }
+
         if (!booking.getStatus().equals(BookingStatus.WAITING)) {
             throw new ValidationException(ExceptionMessages.INVALID_DATA);
         }
 
         if (approved) {
+            itemLocks.lockUntilCompletion(booking.getItem().getId());
+            // Checked before status is changed, so the query does not flush and find approved booking itself
+            validateNoOverlap(booking, APPROVE_CONFLICT_STATUSES);
             booking.setStatus(BookingStatus.APPROVED);
         } else {
             booking.setStatus(BookingStatus.REJECTED);
         }
+        // Update conditioned on read version is executed here, so approval of booking changed concurrently fails
+        // with optimistic locking exception and response holds incremented version
+        bookingRepository.flush();
+        bookingTimeline.add(booking);
+        summaryUpdater.addBooking(booking);
+        itemDtoCache.invalidate(booking.getItem().getId());
         return BookingMapper.toBookingDto(booking);
     }
 
+    @Transactional
+    @Override
+    public List<BookingApprovalResultDto> approveAll(final List<BookingApprovalDto> approvals, final Long userId) {
+        getUserById(userId);
+        Set<Long> bookingIds = approvals.stream()
+                .filter(Objects::nonNull)
+                .map(BookingApprovalDto::getBookingId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Booking> bookings = bookingRepository.findAllById(bookingIds).stream()
+                .collect(Collectors.toMap(Booking::getId, booking -> booking));
+
+        List<BookingApprovalResultDto> results = new ArrayList<>(approvals.size());
+        Map<Long, Boolean> ownedItems = new HashMap<>();
+        Map<Long, Boolean> decisions = new HashMap<>();
+        List<BookingApprovalResultDto> updatedResults = new ArrayList<>();
+        List<Booking> approved = new ArrayList<>();
+        for (BookingApprovalDto approval : approvals) {
+            BookingApprovalResultDto result = new BookingApprovalResultDto(
+                    approval == null ? null : approval.getBookingId());
+            results.add(result);
+            String error = validate(approval, bookings, userId, ownedItems, decisions.keySet());
+            if (error != null) {
+                result.setError(error);
+                continue;
+            }
+            decisions.put(approval.getBookingId(), approval.getApproved());
+            updatedResults.add(result);
+            if (approval.getApproved()) {
+                approved.add(bookings.get(approval.getBookingId()));
+            }
+        }
+
+        Set<Long> overlappingIds = findOverlappingApprovals(approved);
+        List<Booking> updated = new ArrayList<>();
+        List<BookingStatus> statuses = new ArrayList<>();
+        for (BookingApprovalResultDto result : updatedResults) {
+            if (overlappingIds.contains(result.getBookingId())) {
+                result.setError(ExceptionMessages.BOOKING_OVERLAP);
+                continue;
+            }
+            updated.add(bookings.get(result.getBookingId()));
+            statuses.add(decisions.get(result.getBookingId()) ? BookingStatus.APPROVED : BookingStatus.REJECTED);
+        }
+        // Updates are conditioned on read versions, booking changed concurrently fails alone
+        Set<Long> changedIds = bookingRepository.updateStatuses(updated, statuses);
+        updatedResults.stream()
+                .filter(result -> changedIds.contains(result.getBookingId()))
+                .forEach(result -> result.setError(ExceptionMessages.DATA_CHANGED));
+        Set<Long> itemIds = new HashSet<>();
+        for (BookingApprovalResultDto result : updatedResults) {
+            if (result.getError() != null) {
+                continue;
+            }
+            Booking booking = bookings.get(result.getBookingId());
+            result.setBooking(BookingMapper.toBookingDto(booking));
+            bookingTimeline.add(booking);
+            summaryUpdater.addBooking(booking);
+            itemIds.add(booking.getItem().getId());
+        }
+        itemIds.forEach(itemDtoCache::invalidate);
+        return results;
+    }
+
+    // Error of batch decision or null if booking can be updated, ownership is checked once per item
+    private String validate(final BookingApprovalDto approval, final Map<Long, Booking> bookings,
+                            final Long userId, final Map<Long, Boolean> ownedItems, final Set<Long> decidedIds) {
+        if (approval == null || approval.getBookingId() == null || approval.getApproved() == null) {
+            return ExceptionMessages.INVALID_DATA;
+        }
+        Booking booking = bookings.get(approval.getBookingId());
+        if (booking == null) {
+            return ExceptionMessages.DATA_NOT_FOUND;
+        }
+        Item item = booking.getItem();
+        if (!ownedItems.computeIfAbsent(item.getId(), itemId -> validateUserIsItemOwner(userId, item))) {
+            return ExceptionMessages.ACCESS_DENIED;
+        }
+        // The second decision on the same booking finds it decided as if it was sent separately
+        if (decidedIds.contains(booking.getId()) || !booking.getStatus().equals(BookingStatus.WAITING)) {
+            return ExceptionMessages.INVALID_DATA;
+        }
+        return null;
+    }
+
+    // IDs of approvals overlapping approved bookings of their items or approvals earlier in batch.
+    // Items are locked in order of IDs, so concurrent batches do not deadlock,
+    // and approved bookings of all items are read by one query
+    private Set<Long> findOverlappingApprovals(final List<Booking> approvals) {
+        Set<Long> overlappingIds = new HashSet<>();
+        if (approvals.isEmpty()) {
+            return overlappingIds;
+        }
+        Map<Long, List<Booking>> approvalsByItem = approvals.stream()
+                .collect(Collectors.groupingBy(booking -> booking.getItem().getId(), TreeMap::new,
+                        Collectors.toList()));
+        approvalsByItem.keySet().forEach(itemLocks::lockUntilCompletion);
+        LocalDateTime start = approvals.stream().map(Booking::getStart).min(LocalDateTime::compareTo).get();
+        LocalDateTime end = approvals.stream().map(Booking::getEnd).max(LocalDateTime::compareTo).get();
+        // Checked before statuses are changed, so the query does not flush and find approvals themselves
+        Map<Long, List<Booking>> approvedByItem = bookingRepository
+                .findAllOverlapping(approvalsByItem.keySet(), APPROVE_CONFLICT_STATUSES, start, end).stream()
+                .collect(Collectors.groupingBy(booking -> booking.getItem().getId()));
+        approvalsByItem.forEach((itemId, itemApprovals) -> {
+            List<Booking> itemApproved = new ArrayList<>(approvedByItem.getOrDefault(itemId, List.of()));
+            for (Booking approval : itemApprovals) {
+                boolean overlaps = itemApproved.stream().anyMatch(booking ->
+                        booking.getEnd().isAfter(approval.getStart())
+                                && booking.getStart().isBefore(approval.getEnd()));
+                if (overlaps) {
+                    overlappingIds.add(approval.getId());
+                } else {
+                    itemApproved.add(approval);
+                }
+            }
+        });
+        return overlappingIds;
+    }
+
+    private void validateNoOverlap(final Booking booking, final Set<BookingStatus> statuses) {
+        boolean overlaps = bookingRepository.existsOverlapping(
+                booking.getItem().getId(), statuses, booking.getStart(), booking.getEnd());
+        if (overlaps) {
+            throw new ValidationException(ExceptionMessages.BOOKING_OVERLAP);
+        }
+    }
+
+    private static boolean isOverlapViolation(final DataIntegrityViolationException exception) {
+        String message = exception.getMostSpecificCause().getMessage();
+        return message != null && message.contains(Booking.OVERLAP_CONSTRAINT);
+    }
+
     private boolean validateUserIsItemOwner(Long userId, Item item) {
         return userId.equals(item.getOwner().getId());
     }
 
+    @Transactional(readOnly = true)
     @Override
     public BookingDto get(final Long bookingId, final Long userId) {
         Booking booking = getBookingById(bookingId);
@@ -96,83 +297,47 @@ public class BookingServiceImpl implements BookingService {
         return BookingMapper.toBookingDto(booking);
     }
 
+    @Transactional(readOnly = true)
     @Override
     public List<BookingDto> getByBookerId(
             final Long bookerId, final BookingSearchStatus status, final Integer from, final Integer size
     ) {
-        User user = getUserById(bookerId);
-        Pageable pageable = new PageSettings(from, size, BookingRepository.SORT_START_DATE_DESC);
-        List<Booking> bookingList = new ArrayList<>();
-        switch (status) {
-            case ALL:
-                bookingList = bookingRepository.findAllByBookerId(bookerId, pageable);
-                break;
-            case CURRENT:
-                bookingList = bookingRepository
-                        .findAllByBookerIdAndStartBeforeAndEndAfter(bookerId, LocalDateTime.now(), pageable);
-                break;
-            case PAST:
-                bookingList = bookingRepository
-                        .findAllByBookerIdAndEndBefore(bookerId, LocalDateTime.now(), pageable);
-                break;
-            case FUTURE:
-                bookingList = bookingRepository
-                        .findAllByBookerIdAndStartAfter(bookerId, LocalDateTime.now(), pageable);
-                break;
-            case WAITING:
-                bookingList = bookingRepository
-                        .findAllByBookerIdAndStatus(bookerId, BookingStatus.WAITING, pageable);
-                break;
-            case REJECTED:
-                bookingList = bookingRepository
-                        .findAllByBookerIdAndStatus(bookerId, BookingStatus.REJECTED, pageable);
-                break;
-            default:
-                throw new UnknownStateException(
-                        String.format(ExceptionMessages.UNKNOWN_STATE, BookingSearchStatus.UNSUPPORTED_STATUS)
-                );
-        }
-        return BookingMapper.toBookingDtoList(bookingList);
+        Pageable pageable = new PageSettings(from, size, BookingRepository.SORT_START_DATE_ID_DESC);
+        return findByState(BookingRole.BOOKER, bookerId, status, null, pageable);
     }
 
+    @Transactional(readOnly = true)
     @Override
     public List<BookingDto> getByOwnerId(
             final Long ownerId, final BookingSearchStatus status, final Integer from, final Integer size
     ) {
-        User user = getUserById(ownerId);
-        Pageable pageable = new PageSettings(from, size, BookingRepository.SORT_START_DATE_DESC);
-        List<Booking> bookingList = new ArrayList<>();
-
-        switch (status) {
-            case ALL:
-                bookingList = bookingRepository.findAllByItemOwnerId(ownerId, pageable);
-                break;
-            case CURRENT:
-                bookingList = bookingRepository
-                        .findAllByItemOwnerIdAndStartBeforeAndEndAfter(ownerId, LocalDateTime.now(), pageable);
-                break;
-            case PAST:
-                bookingList = bookingRepository
-                        .findAllByItemOwnerIdAndEndBefore(ownerId, LocalDateTime.now(), pageable);
-                break;
-            case FUTURE:
-                bookingList = bookingRepository
-                        .findAllByItemOwnerIdAndStartAfter(ownerId, LocalDateTime.now(), pageable);
-                break;
-            case WAITING:
-                bookingList = bookingRepository
-                        .findAllByItemOwnerIdAndStatus(ownerId, BookingStatus.WAITING, pageable);
-                break;
-            case REJECTED:
-                bookingList = bookingRepository
-                        .findAllByItemOwnerIdAndStatus(ownerId, BookingStatus.REJECTED, pageable);
-                break;
-            default:
-                throw new UnknownStateException(
-                        String.format(ExceptionMessages.UNKNOWN_STATE, BookingSearchStatus.UNSUPPORTED_STATUS)
-                );
-        }
-        return BookingMapper.toBookingDtoList(bookingList);
+        Pageable pageable = new PageSettings(from, size, BookingRepository.SORT_START_DATE_ID_DESC);
+        return findByState(BookingRole.OWNER, ownerId, status, null, pageable);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<BookingDto> getByBookerId(
+            final Long bookerId, final BookingSearchStatus status, final SeekCursor after, final Integer size
+    ) {
+        Pageable pageable = PageRequest.of(0, size, BookingRepository.SORT_START_DATE_ID_DESC);
+        return findByState(BookingRole.BOOKER, bookerId, status, after, pageable);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<BookingDto> getByOwnerId(
+            final Long ownerId, final BookingSearchStatus status, final SeekCursor after, final Integer size
+    ) {
+        Pageable pageable = PageRequest.of(0, size, BookingRepository.SORT_START_DATE_ID_DESC);
+        return findByState(BookingRole.OWNER, ownerId, status, after, pageable);
+    }
+
+    // Every list of bookings is read by one query compiled from role, state and kind of paging
+    private List<BookingDto> findByState(final BookingRole role, final Long userId, final BookingSearchStatus status,
+                                         final SeekCursor after, final Pageable pageable) {
+        getUserById(userId);
+        return bookingRepository.findByState(role, userId, status, LocalDateTime.now(), after, pageable);
     }
 
     private User getUserById(final Long bookerId) {
@@ -0,0 +1,203 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.booking.dto.BriefBookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.user.UserDeletedEvent;
+import ru.practicum.shareit.util.AfterCommit;
+import ru.practicum.shareit.util.WarmUp;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory timelines of approved bookings sorted by start date, one timeline per item.
+ * Timelines are built in background at startup and kept in sync by booking service write operations.
+ * Until timelines are warm caller should find last and next bookings by DB query.
+ * @author Evgeniy Lee
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingTimeline implements WarmUp {
+    // Count of bookings loaded from DB per one query while building timelines
+    private static final int REBUILD_CHUNK_SIZE = 1000;
+
+    // Orders bookings by start date, equal start dates are ordered by booking ID
+    private static final Comparator<BriefBookingDto> BY_START = Comparator
+            .comparing(BriefBookingDto::getStart)
+            .thenComparing(BriefBookingDto::getId);
+
+    // Booking DB repository
+    private final BookingRepository bookingRepository;
+
+    // Timelines by item ID
+    private final Map<Long, ItemTimeline> timelines = new ConcurrentHashMap<>();
+
+    // IDs of items removed while timelines are building, rebuild must not add their bookings back
+    private final Set<Long> itemsRemovedWhileBuilding = ConcurrentHashMap.newKeySet();
+
+    // IDs of users removed while timelines are building, rebuild must not add their bookings back
+    private final Set<Long> usersRemovedWhileBuilding = ConcurrentHashMap.newKeySet();
+
+    // Are timelines built and ready for lookups
+    private volatile boolean warm;
+
+    /**
+     * Build timelines from all approved bookings stored in DB
+     */
+    @Override
+    public void rebuild() {
+        warm = false;
+        try {
+            long added = 0;
+            List<Booking> bookings = bookingRepository.findAllByStatusAndIdGreaterThan(BookingStatus.APPROVED, 0L,
+                    PageRequest.of(0, REBUILD_CHUNK_SIZE, BookingRepository.SORT_IDS_ASC));
+            while (!bookings.isEmpty()) {
+                for (Booking booking : bookings) {
+                    Long ownerId = booking.getItem().getOwner().getId();
+                    boolean removed = itemsRemovedWhileBuilding.contains(booking.getItem().getId())
+                            || usersRemovedWhileBuilding.contains(ownerId)
+                            || usersRemovedWhileBuilding.contains(booking.getBooker().getId());
+                    if (!removed) {
+                        put(ownerId, BookingMapper.toBriefBookingDto(booking));
+                        added++;
+                    }
+                }
+                Long lastId = bookings.get(bookings.size() - 1).getId();
+                bookings = bookingRepository.findAllByStatusAndIdGreaterThan(BookingStatus.APPROVED, lastId,
+                        PageRequest.of(0, REBUILD_CHUNK_SIZE, BookingRepository.SORT_IDS_ASC));
+            }
+            itemsRemovedWhileBuilding.clear();
+            usersRemovedWhileBuilding.clear();
+            warm = true;
+            log.info("Booking timelines built, {} approved bookings added", added);
+        } catch (RuntimeException exception) {
+            log.error("Booking timelines build failed, last and next bookings fall back to DB", exception);
+        }
+    }
+
+    /**
+     * Check timelines are built and ready for lookups
+     * @return true if timelines are ready
+     */
+    public boolean isWarm() {
+        return warm;
+    }
+
+    /**
+     * Add booking to timeline of its item after current transaction is committed.
+     * Bookings which are not approved are ignored.
+     * @param booking booking
+     */
+    public void add(final Booking booking) {
+        if (booking.getStatus() != BookingStatus.APPROVED) {
+            return;
+        }
+        Long ownerId = booking.getItem().getOwner().getId();
+        BriefBookingDto entry = BookingMapper.toBriefBookingDto(booking);
+        // Adding is idempotent, so booking added here and by concurrent rebuild is kept once
+        AfterCommit.run(() -> put(ownerId, entry));
+    }
+
+    /**
+     * Remove timeline of item after current transaction is committed
+     * @param itemId item ID
+     */
+    public void removeItem(final Long itemId) {
+        AfterCommit.run(() -> {
+            if (!warm) {
+                itemsRemovedWhileBuilding.add(itemId);
+            }
+            timelines.remove(itemId);
+        });
+    }
+
+    /**
+     * Remove timelines of deleted user's items and bookings made by user after user deletion is committed
+     * @param event user deleted event
+     */
+    @TransactionalEventListener
+    public void onUserDeleted(final UserDeletedEvent event) {
+        Long userId = event.getUserId();
+        if (!warm) {
+            usersRemovedWhileBuilding.add(userId);
+        }
+        timelines.forEach((itemId, timeline) -> {
+            if (userId.equals(timeline.ownerId)) {
+                timelines.remove(itemId);
+            } else {
+                timeline.bookings.removeIf(booking -> userId.equals(booking.getBookerId()));
+            }
+        });
+    }
+
+    /**
+     * Find the latest approved booking of item which starts before date
+     * @param itemId item ID
+     * @param date date
+     * @return booking or null if there is no such booking
+     */
+    public BriefBookingDto findLast(final Long itemId, final LocalDateTime date) {
+        ItemTimeline timeline = timelines.get(itemId);
+        return timeline == null ? null : copy(timeline.bookings.lower(probe(date, Long.MIN_VALUE)));
+    }
+
+    /**
+     * Find the earliest approved booking of item which starts after date
+     * @param itemId item ID
+     * @param date date
+     * @return booking or null if there is no such booking
+     */
+    public BriefBookingDto findNext(final Long itemId, final LocalDateTime date) {
+        ItemTimeline timeline = timelines.get(itemId);
+        return timeline == null ? null : copy(timeline.bookings.higher(probe(date, Long.MAX_VALUE)));
+    }
+
+    private void put(final Long ownerId, final BriefBookingDto entry) {
+        timelines.computeIfAbsent(entry.getItemId(), itemId -> new ItemTimeline(ownerId)).bookings.add(entry);
+    }
+
+    // Search key placed between bookings which start before and after date
+    private static BriefBookingDto probe(final LocalDateTime date, final Long id) {
+        BriefBookingDto probe = new BriefBookingDto();
+        probe.setStart(date);
+        probe.setId(id);
+        return probe;
+    }
+
+    // Copy of timeline entry, so callers can not change timeline
+    private static BriefBookingDto copy(final BriefBookingDto entry) {
+        if (entry == null) {
+            return null;
+        }
+        BriefBookingDto copy = new BriefBookingDto();
+        copy.setId(entry.getId());
+        copy.setBookerId(entry.getBookerId());
+        copy.setItemId(entry.getItemId());
+        copy.setStart(entry.getStart());
+        copy.setEnd(entry.getEnd());
+        copy.setStatus(entry.getStatus());
+        return copy;
+    }
+
+    // Approved bookings of one item
+    private static final class ItemTimeline {
+        private final Long ownerId;
+        private final NavigableSet<BriefBookingDto> bookings = new ConcurrentSkipListSet<>(BY_START);
+
+        private ItemTimeline(final Long ownerId) {
+            this.ownerId = ownerId;
+        }
+    }
+}
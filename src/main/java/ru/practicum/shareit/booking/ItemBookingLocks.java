@@ -0,0 +1,60 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Locks serializing booking writes of one item inside application instance, so overlap check and insert
+ * of one booking are not interleaved with another booking of the same item.
+ * Every item has its own lock, so bookings of different items never wait for each other.
+ * Lock is created when item is locked and removed when the last holder releases it.
+ * Bookings written by other instances are rejected by DB constraint {@code ex_bookings_item_id_period}.
+ * @author Evgeniy Lee
+ */
+@Component
+public class ItemBookingLocks {
+    // Locks of items which are held or awaited
+    private final Map<Long, ItemLock> locks = new ConcurrentHashMap<>();
+
+    /**
+     * Lock item until current transaction is completed, so changes made under lock are committed
+     * before the next holder checks bookings of item
+     * @param itemId item ID
+     */
+    public void lockUntilCompletion(final Long itemId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Item can be locked in transaction only");
+        }
+        ItemLock itemLock = locks.compute(itemId, (id, current) -> {
+            ItemLock lock = current == null ? new ItemLock() : current;
+            lock.holders++;
+            return lock;
+        });
+        itemLock.lock.lock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(final int status) {
+                itemLock.lock.unlock();
+                locks.computeIfPresent(itemId, (id, lock) -> --lock.holders == 0 ? null : lock);
+            }
+        });
+    }
+
+    /**
+     * Count items which are locked or awaited
+     * @return count of items
+     */
+    int size() {
+        return locks.size();
+    }
+
+    // Lock of one item and count of threads holding or awaiting it, count is changed under map entry lock
+    private static final class ItemLock {
+        private final ReentrantLock lock = new ReentrantLock();
+        private int holders;
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Decision of owner on one booking of approval batch
+ * @author Evgeniy Lee
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingApprovalDto {
+    // Booking ID
+    private Long bookingId;
+
+    // Is booking approved or rejected
+    private Boolean approved;
+}
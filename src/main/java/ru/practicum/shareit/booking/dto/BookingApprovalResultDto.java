@@ -0,0 +1,23 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of approving one booking of batch, holds either updated booking or error
+ * @author Evgeniy Lee
+ */
+@Data
+@NoArgsConstructor
+public class BookingApprovalResultDto {
+    // Booking ID
+    private Long bookingId;
+    // Approved or rejected booking
+    private BookingDto booking;
+    // Why booking was not updated
+    private String error;
+
+    public BookingApprovalResultDto(final Long bookingId) {
+        this.bookingId = bookingId;
+    }
+}
@@ -1,9 +1,10 @@
 package ru.practicum.shareit.booking.dto;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import ru.practicum.shareit.booking.model.BookingStatus;
-import ru.practicum.shareit.item.model.Item;
-import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.dto.UserDto;
 
 import javax.validation.constraints.Future;
 import javax.validation.constraints.FutureOrPresent;
@@ -15,6 +16,7 @@ import java.time.LocalDateTime;
  * @author Evgeniy Lee
  */
 @Data
+@NoArgsConstructor
 public class BookingDto {
     // Booking ID
     private Long id;
@@ -30,11 +32,35 @@ public class BookingDto {
     private LocalDateTime end;
 
     // Item
-    private Item item;
+    private ItemDto item;
 
     // Booker
-    private User booker;
+    private UserDto booker;
 
     // Booking status default is waiting
     private BookingStatus status = BookingStatus.WAITING;
+
+    // Booking version, approval may be conditioned on it by If-Match header
+    private Long version;
+
+    /**
+     * Create booking DTO from columns of booking, its item and booker,
+     * used by JPQL constructor expressions of list queries
+     */
+    public BookingDto(final Long id, final LocalDateTime start, final LocalDateTime end, final BookingStatus status,
+                      final Long version, final Long itemId, final String itemName, final String itemDescription,
+                      final Boolean itemAvailable, final Long ownerId, final Long requestId,
+                      final Integer itemCommentCount, final Long bookerId, final String bookerName, final String bookerEmail) {
+        this.id = id;
+        this.start = start;
+        this.end = end;
+        this.status = status;
+        this.version = version;
+        this.item = new ItemDto(itemId, itemName, itemDescription, itemAvailable, ownerId, requestId,
+                itemCommentCount);
+        this.booker = new UserDto();
+        this.booker.setId(bookerId);
+        this.booker.setName(bookerName);
+        this.booker.setEmail(bookerEmail);
+    }
 }
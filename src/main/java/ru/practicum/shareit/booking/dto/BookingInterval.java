@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Interval of time booked for item
+ * @author Evgeniy Lee
+ */
+public interface BookingInterval {
+    // Start of booking
+    LocalDateTime getStart();
+
+    // End of booking
+    LocalDateTime getEnd();
+}
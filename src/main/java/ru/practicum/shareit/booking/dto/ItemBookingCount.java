@@ -0,0 +1,13 @@
+package ru.practicum.shareit.booking.dto;
+
+/**
+ * Count of bookings made for item
+ * @author Evgeniy Lee
+ */
+public interface ItemBookingCount {
+    // Item ID
+    Long getItemId();
+
+    // Count of bookings
+    Long getBookings();
+}
@@ -9,11 +9,16 @@ import javax.persistence.Table;
 import javax.persistence.Id;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Column;
 import javax.persistence.ManyToOne;
+import javax.persistence.FetchType;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.JoinColumn;
 import javax.persistence.Enumerated;
 import javax.persistence.EnumType;
+import javax.persistence.Version;
 import java.time.LocalDateTime;
 
 /**
@@ -22,11 +27,22 @@ import java.time.LocalDateTime;
  */
 @Entity
 @Table(name = "bookings")
+@NamedEntityGraph(name = Booking.WITH_ITEM_AND_BOOKER, attributeNodes = {
+        @NamedAttributeNode("item"),
+        @NamedAttributeNode("booker")
+})
 @Data
 public class Booking {
+    // Fetch plan of endpoints which return bookings with item and booker
+    public static final String WITH_ITEM_AND_BOOKER = "Booking.withItemAndBooker";
+
+    // DB constraint rejecting waiting and approved bookings which overlap other ones of item
+    public static final String OVERLAP_CONSTRAINT = "ex_bookings_item_id_period";
+
     // Booking ID
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+    @SequenceGenerator(name = "bookings_seq", sequenceName = "bookings_seq", allocationSize = 50)
     private Long id;
 
     // Start date
@@ -40,16 +56,20 @@ public class Booking {
     private LocalDateTime end;
 
     // Item
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "item_id", referencedColumnName = "id")
     private Item item;
 
     // Booker
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "booker_id", referencedColumnName = "id")
     private User booker;
 
     // Booking status default is waiting
     @Enumerated(EnumType.STRING)
     private BookingStatus status = BookingStatus.WAITING;
+
+    // Version incremented by every update, so concurrent approvals of booking do not overwrite each other
+    @Version
+    private long version;
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.booking.model;
+
+/**
+ * Role of user in bookings listed for him
+ * @author Evgeniy Lee
+ */
+public enum BookingRole {
+    // User made bookings
+    BOOKER,
+    // User owns booked items
+    OWNER
+}
@@ -11,6 +11,7 @@ public enum BookingSearchStatus {
     FUTURE("Будущие"),
     WAITING("Новые/Ожидают бронирования"),
     REJECTED("Отмененные"),
+    APPROVED("Подтвержденные"),
     UNSUPPORTED_STATUS("Статус неопределен");
 
     private String name;
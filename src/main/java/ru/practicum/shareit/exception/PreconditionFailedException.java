@@ -0,0 +1,11 @@
+package ru.practicum.shareit.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+    /**
+     * Constructor
+     * @param message exception message
+     */
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -1,6 +1,8 @@
 package ru.practicum.shareit.item;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,13 +14,43 @@ import java.util.List;
  * @author Evgeniy Lee
  */
 public interface CommentRepository extends JpaRepository<Comment, Long> {
-    List<Comment> findAllByItemIdOrderById(Long itemId, Sort sort);
+    // Derived query joins items to compare item ID, so comments would be scanned
+    @Query(value = "SELECT comment FROM Comment comment WHERE comment.item.id = :itemId")
+    List<Comment> findAllByItemIdOrderById(@Param("itemId") Long itemId, Sort sort);
 
     @Query(value = "SELECT comment FROM Comment comment, Item item " +
             "WHERE comment.item.id = item.id AND item.owner.id = :ownerId " +
             "GROUP BY comment.item.id")
     List<Comment> findAllByOwnerId(Long ownerId);
 
+    // Comment DTO shows author name
+    @EntityGraph(attributePaths = "author")
     @Query(value = "SELECT comment FROM Comment comment WHERE comment.item.id IN :itemIds")
     List<Comment> findAllByItemIdInOrderById(@Param("itemIds") List<Long> itemIds, Sort sort);
+
+    // Item comments from the latest, next page starts after ID of the last comment of previous page
+    @EntityGraph(attributePaths = "author")
+    @Query(value = "SELECT comment FROM Comment comment WHERE comment.item.id = :itemId ORDER BY comment.id DESC")
+    List<Comment> findByItemIdOrderByIdDesc(@Param("itemId") Long itemId, Pageable pageable);
+
+    // IDs of the latest comments of every item ranked by row number, so items are read by one query.
+    // Native query returns IDs as numbers of type chosen by dialect
+    @Query(value = "SELECT id FROM (" +
+            "   SELECT id, row_number() OVER (PARTITION BY item_id ORDER BY id DESC) AS position " +
+            "   FROM comments WHERE item_id IN (:itemIds)" +
+            ") AS latest WHERE position <= :size", nativeQuery = true)
+    List<Number> findLatestIdsByItemIdIn(@Param("itemIds") List<Long> itemIds, @Param("size") int size);
+
+    @EntityGraph(attributePaths = "author")
+    @Query(value = "SELECT comment FROM Comment comment WHERE comment.id IN :ids")
+    List<Comment> findAllByIdIn(@Param("ids") List<Long> ids, Sort sort);
+
+    @EntityGraph(attributePaths = "author")
+    @Query(value = "SELECT comment FROM Comment comment WHERE comment.item.id = :itemId AND comment.id < :id " +
+            "ORDER BY comment.id DESC")
+    List<Comment> findByItemIdAndIdLessThanOrderByIdDesc(@Param("itemId") Long itemId, @Param("id") Long id,
+                                                         Pageable pageable);
+
+    @Query(value = "SELECT DISTINCT comment.item.id FROM Comment comment WHERE comment.author.id = :authorId")
+    List<Long> findItemIdsByAuthorId(@Param("authorId") Long authorId);
 }
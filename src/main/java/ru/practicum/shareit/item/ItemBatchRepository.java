@@ -0,0 +1,17 @@
+package ru.practicum.shareit.item;
+
+import ru.practicum.shareit.item.model.Item;
+import java.util.List;
+
+/**
+ * Bulk item operations sent to DB by JDBC batches
+ * @author Evgeniy Lee
+ */
+public interface ItemBatchRepository {
+    /**
+     * Insert items by JDBC batches in current transaction and set IDs taken from sequence to them.
+     * Items are not attached to persistence context.
+     * @param items items with owner and optional request set
+     */
+    void insertAll(List<Item> items);
+}
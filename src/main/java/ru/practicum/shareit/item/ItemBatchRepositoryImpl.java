@@ -0,0 +1,33 @@
+package ru.practicum.shareit.item;
+
+import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.item.model.Item;
+import javax.persistence.EntityManager;
+import java.util.List;
+
+/**
+ * Bulk item operations sent to DB by Hibernate JDBC batches
+ * @author Evgeniy Lee
+ */
+@RequiredArgsConstructor
+public class ItemBatchRepositoryImpl implements ItemBatchRepository {
+    // Count of items persisted before persistence context is flushed and cleared,
+    // Hibernate sends them by batches of hibernate.jdbc.batch_size rows
+    private static final int FLUSH_SIZE = 500;
+
+    private final EntityManager entityManager;
+
+    @Override
+    public void insertAll(final List<Item> items) {
+        for (int i = 0; i < items.size(); i++) {
+            // IDs are taken from pooled sequence, so insert is delayed until flush
+            entityManager.persist(items.get(i));
+            if ((i + 1) % FLUSH_SIZE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
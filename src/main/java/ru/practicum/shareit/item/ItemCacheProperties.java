@@ -0,0 +1,21 @@
+package ru.practicum.shareit.item;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+
+/**
+ * Item DTO cache settings
+ * @author Evgeniy Lee
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "shareit.item.cache")
+public class ItemCacheProperties {
+    // Maximum count of cached item views, the least recently used views are evicted first
+    private long maximumSize = 10_000;
+
+    // Time after which cached item view is loaded from DB again
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+}
@@ -1,7 +1,11 @@
 package ru.practicum.shareit.item;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -13,11 +17,18 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemBatchResultDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.messages.LoggingMessages;
+import ru.practicum.shareit.util.NdjsonWriter;
+import ru.practicum.shareit.util.SeekCursor;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -33,12 +44,24 @@ public class ItemController {
     // Item service
     private final ItemService service;
 
+    // Writes streamed items
+    private final ObjectMapper objectMapper;
+
     @PostMapping
     public ItemDto create(@Valid @RequestBody ItemDto itemDto, @RequestHeader(name = "X-Sharer-User-Id") Long ownerId) {
         log.debug(LoggingMessages.CREATE.toString(), itemDto);
         return service.create(itemDto, ownerId);
     }
 
+    @PostMapping("/batch")
+    public List<ItemBatchResultDto> createAll(
+            @RequestBody List<ItemDto> itemDtos,
+            @RequestHeader(name = "X-Sharer-User-Id") Long ownerId
+    ) {
+        log.debug(LoggingMessages.CREATE_BATCH.toString(), itemDtos.size());
+        return service.createAll(itemDtos, ownerId);
+    }
+
     @PatchMapping("{id}")
     public ItemDto update(
             @PathVariable Long id,
@@ -62,22 +85,53 @@ public class ItemController {
     }
 
     @GetMapping
-    public List<ItemDto> getByOwner(@RequestHeader(name = "X-Sharer-User-Id") Long ownerId,
-                                    @RequestParam(name = "from", defaultValue = "0") @PositiveOrZero Integer from,
-                                    @RequestParam(name = "size", defaultValue = "10") @Positive Integer size
+    public ResponseEntity<List<ItemDto>> getByOwner(
+            @RequestHeader(name = "X-Sharer-User-Id") Long ownerId,
+            @RequestParam(name = "from", defaultValue = "0") @PositiveOrZero Integer from,
+            @RequestParam(name = "size", defaultValue = "10") @Positive Integer size,
+            @RequestParam(name = "after", required = false) String after
     ) {
         log.debug(LoggingMessages.GET_ITEMS_BY_OWNER_ID.toString());
-        return service.getByOwner(ownerId, from, size);
+        List<ItemDto> items = after == null
+                ? service.getByOwner(ownerId, from, size)
+                : service.getByOwner(ownerId, SeekCursor.decodeId(after), size);
+        return SeekCursor.toResponseEntity(items, size, item -> SeekCursor.of(item.getId()));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamByOwner(@RequestHeader(name = "X-Sharer-User-Id") Long ownerId,
+                              HttpServletResponse response) throws IOException {
+        log.debug(LoggingMessages.STREAM_ITEMS_BY_OWNER_ID.toString());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        try (NdjsonWriter<ItemDto> writer = new NdjsonWriter<>(objectMapper, response.getOutputStream())) {
+            service.streamByOwner(ownerId, writer);
+        }
     }
 
     @GetMapping("/search")
     public List<ItemDto> search(@RequestHeader(name = "X-Sharer-User-Id") Long ownerId,
                                 @RequestParam String text,
                                 @RequestParam(name = "from", defaultValue = "0") @PositiveOrZero Integer from,
-                                @RequestParam(name = "size", defaultValue = "10") @Positive Integer size
+                                @RequestParam(name = "size", defaultValue = "10") @Positive Integer size,
+                                @RequestParam(name = "ranked", defaultValue = "false") Boolean ranked
     ) {
         log.debug(LoggingMessages.SEARCH_ITEMS_BY_TEXT.toString());
-        return service.search(ownerId, text, from, size);
+        return service.search(ownerId, text, from, size, ranked);
+    }
+
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamSearch(@RequestParam String text, HttpServletResponse response) throws IOException {
+        log.debug(LoggingMessages.STREAM_ITEMS_BY_TEXT.toString());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        try (NdjsonWriter<ItemDto> writer = new NdjsonWriter<>(objectMapper, response.getOutputStream())) {
+            service.streamSearch(text, writer);
+        }
+    }
+
+    @GetMapping("/suggest")
+    public List<ItemDto> suggest(@RequestParam String prefix) {
+        log.debug(LoggingMessages.SUGGEST_ITEMS_BY_PREFIX.toString(), prefix);
+        return service.suggest(prefix);
     }
 
     @PostMapping("/{itemId}/comment")
@@ -89,4 +143,26 @@ public class ItemController {
         log.debug(LoggingMessages.POST_COMMENT.toString(), itemId, commentDto.getText());
         return service.createComment(itemId, userId, commentDto);
     }
+
+    @GetMapping("/{itemId}/comments")
+    public ResponseEntity<List<CommentDto>> getComments(
+            @PathVariable Long itemId,
+            @RequestParam(name = "size", defaultValue = "10") @Positive Integer size,
+            @RequestParam(name = "after", required = false) String after
+    ) {
+        log.debug(LoggingMessages.GET_COMMENTS_BY_ITEM_ID.toString(), itemId);
+        List<CommentDto> comments = service.getComments(itemId, after == null ? null : SeekCursor.decodeId(after),
+                size);
+        return SeekCursor.toResponseEntity(comments, size, comment -> SeekCursor.of(comment.getId()));
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public ItemAvailabilityDto getAvailability(
+            @PathVariable Long itemId,
+            @RequestParam(name = "from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(name = "to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        log.debug(LoggingMessages.GET_ITEM_AVAILABILITY.toString(), itemId, from, to);
+        return service.getAvailability(itemId, from, to);
+    }
 }
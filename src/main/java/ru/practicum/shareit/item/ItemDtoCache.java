@@ -0,0 +1,120 @@
+package ru.practicum.shareit.item;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BriefBookingDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.util.AfterCommit;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of assembled item DTO, owner view with bookings and non-owner view are cached separately.
+ * Hit, miss and eviction counters are published as cache metrics named "items".
+ * @author Evgeniy Lee
+ */
+@Component
+public class ItemDtoCache {
+    // Name of cache in published metrics
+    public static final String CACHE_NAME = "items";
+
+    // Cached item views
+    private final Cache<Key, ItemDto> cache;
+
+    public ItemDtoCache(final ItemCacheProperties properties, final MeterRegistry meterRegistry) {
+        cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(new ViewExpiry(properties.getExpireAfterWrite()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Get non-owner view of item from cache or load it
+     * @param itemId item ID
+     * @param loader loads non-owner view by item ID
+     * @return item DTO
+     */
+    public ItemDto get(final Long itemId, final Function<Long, ItemDto> loader) {
+        return cache.get(new Key(itemId, false), key -> loader.apply(key.itemId));
+    }
+
+    /**
+     * Get owner view of item from cache or load it
+     * @param itemId item ID
+     * @param loader loads owner view by item ID
+     * @return item DTO
+     */
+    public ItemDto getOwnerView(final Long itemId, final Function<Long, ItemDto> loader) {
+        return cache.get(new Key(itemId, true), key -> loader.apply(key.itemId));
+    }
+
+    /**
+     * Remove both views of item from cache now and once again after current transaction is committed,
+     * so view loaded from DB before commit is not kept
+     * @param itemId item ID
+     */
+    public void invalidate(final Long itemId) {
+        AfterCommit.runNowAndAfterCommit(() -> {
+            cache.invalidate(new Key(itemId, false));
+            cache.invalidate(new Key(itemId, true));
+        });
+    }
+
+    /**
+     * Remove all item views from cache now and once again after current transaction is committed
+     */
+    public void invalidateAll() {
+        AfterCommit.runNowAndAfterCommit(cache::invalidateAll);
+    }
+
+    // Cache key of item view
+    @Value
+    private static class Key {
+        Long itemId;
+        boolean ownerView;
+    }
+
+    // Owner view shows last and next bookings relative to current time, so it expires when next booking starts
+    private static final class ViewExpiry implements Expiry<Key, ItemDto> {
+        private final Duration expireAfterWrite;
+
+        private ViewExpiry(final Duration expireAfterWrite) {
+            this.expireAfterWrite = expireAfterWrite;
+        }
+
+        @Override
+        public long expireAfterCreate(final Key key, final ItemDto itemDto, final long currentTime) {
+            BriefBookingDto nextBooking = itemDto.getNextBooking();
+            if (!key.ownerView || nextBooking == null) {
+                return expireAfterWrite.toNanos();
+            }
+            Duration untilNextBooking = Duration.between(LocalDateTime.now(), nextBooking.getStart());
+            if (untilNextBooking.isNegative()) {
+                return 0;
+            }
+            return untilNextBooking.compareTo(expireAfterWrite) < 0
+                    ? untilNextBooking.toNanos()
+                    : expireAfterWrite.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(final Key key, final ItemDto itemDto, final long currentTime,
+                                      final long currentDuration) {
+            return expireAfterCreate(key, itemDto, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(final Key key, final ItemDto itemDto, final long currentTime,
+                                    final long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -2,8 +2,12 @@ package ru.practicum.shareit.item;
 
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
+import ru.practicum.shareit.booking.dto.BriefBookingDto;
+import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemSummary;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -27,10 +31,42 @@ public class ItemMapper {
             itemDto.setAvailable(item.getAvailable());
             itemDto.setOwnerId(item.getOwner().getId());
             itemDto.setRequestId(item.getRequest() == null ? null : item.getRequest().getId());
+            itemDto.setCommentCount(item.getCommentCount());
         }
         return itemDto;
     }
 
+    /**
+     * Convert item summary to item DTO with last and next bookings
+     * @param summary item summary
+     * @return item DTO
+     */
+    public static ItemDto toItemDto(final ItemSummary summary) {
+        ItemDto itemDto = new ItemDto(summary.getItemId(), summary.getName(), summary.getDescription(),
+                summary.getAvailable(), summary.getOwnerId(), summary.getRequestId(), summary.getCommentCount());
+        itemDto.setLastBooking(toBriefBookingDto(summary.getItemId(), summary.getLastBookingId(),
+                summary.getLastBookerId(), summary.getLastBookingStart(), summary.getLastBookingEnd()));
+        itemDto.setNextBooking(toBriefBookingDto(summary.getItemId(), summary.getNextBookingId(),
+                summary.getNextBookerId(), summary.getNextBookingStart(), summary.getNextBookingEnd()));
+        return itemDto;
+    }
+
+    // Summarized bookings are approved, null if item has no such booking
+    private static BriefBookingDto toBriefBookingDto(final Long itemId, final Long bookingId, final Long bookerId,
+                                                     final LocalDateTime start, final LocalDateTime end) {
+        if (bookingId == null) {
+            return null;
+        }
+        BriefBookingDto briefBookingDto = new BriefBookingDto();
+        briefBookingDto.setId(bookingId);
+        briefBookingDto.setBookerId(bookerId);
+        briefBookingDto.setItemId(itemId);
+        briefBookingDto.setStart(start);
+        briefBookingDto.setEnd(end);
+        briefBookingDto.setStatus(BookingStatus.APPROVED);
+        return briefBookingDto;
+    }
+
     /**
      * Convert item DTO to item
      * @param itemDto item DTO
@@ -3,28 +3,98 @@ package ru.practicum.shareit.item;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Item repository
  * @author Evgeniy Lee
  */
-public interface ItemRepository extends JpaRepository<Item, Long> {
+public interface ItemRepository extends JpaRepository<Item, Long>, ItemBatchRepository {
 
-    List<Item> findByOwnerId(long ownerId, Pageable pageable);
+    // Selects item DTO with item columns, so list queries do not load managed entities
+    String SELECT_ITEM_DTO = "SELECT new ru.practicum.shareit.item.dto.ItemDto(" +
+            "item.id, item.name, item.description, item.available, item.owner.id, item.request.id, " +
+            "item.commentCount) " +
+            "FROM Item item ";
 
-    @Query(value = "select * " +
+    // Selects available items containing text in name or description ignoring case
+    String SELECT_AVAILABLE_LIKE_TEXT = "select * " +
             "from items " +
             "where is_available and (" +
             "   (lower(name) like lower(concat('%', :text, '%'))) " +
             "       or (lower(description) like lower(concat('%', :text, '%')))" +
-            ")", nativeQuery = true)
+            ")";
+
+    // Same as SELECT_AVAILABLE_LIKE_TEXT, but served by pg_trgm indexes
+    String SELECT_AVAILABLE_ILIKE_TEXT = "select * " +
+            "from items " +
+            "where is_available and (" +
+            "   (name ilike concat('%', :text, '%')) " +
+            "       or (description ilike concat('%', :text, '%'))" +
+            ")";
+
+    // Count of rows fetched by one round trip when query result is streamed
+    String STREAM_FETCH_SIZE = "500";
+
+    @Query(SELECT_ITEM_DTO + "WHERE item.owner.id = :ownerId")
+    List<ItemDto> findByOwnerId(@Param("ownerId") long ownerId, Pageable pageable);
+
+    @Query(SELECT_ITEM_DTO + "WHERE item.owner.id = :ownerId AND item.id > :id")
+    List<ItemDto> findByOwnerIdAndIdGreaterThan(@Param("ownerId") long ownerId, @Param("id") Long id,
+                                                Pageable pageable);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = STREAM_FETCH_SIZE))
+    @Query(SELECT_ITEM_DTO + "WHERE item.owner.id = :ownerId ORDER BY item.id")
+    Stream<ItemDto> streamByOwnerId(@Param("ownerId") long ownerId);
+
+    @Query(value = SELECT_AVAILABLE_LIKE_TEXT, nativeQuery = true)
     List<Item> findNameOrDescriptionContainingText(@Param("text") String text, Pageable pageable);
 
-    List<Item> findByRequestIdIn(List<Long> requestIds);
+    @Query(value = SELECT_AVAILABLE_ILIKE_TEXT, nativeQuery = true)
+    List<Item> findNameOrDescriptionContainingTextByTrigram(@Param("text") String text, Pageable pageable);
+
+    // Streamed items are neither checked for changes nor put into second-level cache
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = STREAM_FETCH_SIZE),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheMode", value = "IGNORE")
+    })
+    @Query(value = SELECT_AVAILABLE_LIKE_TEXT + " order by id", nativeQuery = true)
+    Stream<Item> streamNameOrDescriptionContainingText(@Param("text") String text);
+
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = STREAM_FETCH_SIZE),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheMode", value = "IGNORE")
+    })
+    @Query(value = SELECT_AVAILABLE_ILIKE_TEXT + " order by id", nativeQuery = true)
+    Stream<Item> streamNameOrDescriptionContainingTextByTrigram(@Param("text") String text);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    @Query(SELECT_ITEM_DTO + "WHERE item.request.id IN :requestIds")
+    List<ItemDto> findByRequestIdIn(@Param("requestIds") List<Long> requestIds);
+
+    List<Item> findAllByIdGreaterThan(Long id, Pageable pageable);
+
+    @Query(SELECT_ITEM_DTO + "WHERE item.id IN :ids")
+    List<ItemDto> findByIdIn(@Param("ids") List<Long> ids);
+
+    // Comments of author are deleted by cascade with author, so their items count them off before
+    @Modifying
+    @Query(value = "update items " +
+            "set version = version + 1, comment_count = comment_count - (" +
+            "   select count(*) from comments where comments.item_id = items.id and comments.author_id = :authorId" +
+            ") " +
+            "where id in (select item_id from comments where author_id = :authorId)", nativeQuery = true)
+    void uncountCommentsByAuthorId(@Param("authorId") Long authorId);
 
     Sort SORT_IDS_ASC = Sort.by(Sort.Direction.ASC, "id");
 }
@@ -0,0 +1,227 @@
+package ru.practicum.shareit.item;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.util.AfterCommit;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Bounded cache of item search results keyed by normalized text and page window.
+ * Only IDs of found items are cached, so cached pages never hold stale item fields.
+ * Hit, miss and eviction counters are published as cache metrics named "item-search".
+ * @author Evgeniy Lee
+ */
+@Component
+public class ItemSearchCache {
+    // Name of cache in published metrics
+    public static final String CACHE_NAME = "item-search";
+
+    private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+
+    // Cached IDs of found items
+    private final Cache<Key, List<Long>> cache;
+
+    // Cached keys by their query tokens, keys of queries without tokens are kept by empty token.
+    // Keys are added and removed together with their entries, inside computations of cache map
+    private final Map<String, Set<Key>> keysByToken = new ConcurrentHashMap<>();
+
+    // Length of the longest query token ever cached, longer substrings of item tokens are not looked up
+    private final AtomicInteger maxTokenLength = new AtomicInteger();
+
+    // Count of invalidations, result searched before invalidation must not be cached after it
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ItemSearchCache(final ItemSearchProperties properties, final MeterRegistry meterRegistry) {
+        cache = Caffeine.newBuilder()
+                .maximumSize(properties.getCacheMaximumSize())
+                .expireAfterWrite(properties.getCacheExpireAfterWrite())
+                .recordStats()
+                .evictionListener((Key key, List<Long> itemIds, RemovalCause cause) -> unindex(key))
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Normalize searched text, so texts differing only in case and whitespaces share cached results
+     * @param text searched text
+     * @return lower case text without leading and trailing whitespaces, inner whitespaces collapsed to one space
+     */
+    public static String normalize(final String text) {
+        return WHITESPACES.matcher(text.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Key of search result page
+     * @param query normalized text
+     * @param from index of first element
+     * @param size page size
+     * @param ranked are items ordered by relevance
+     * @return cache key
+     */
+    public static Key key(final String query, final int from, final int size, final boolean ranked) {
+        // Search returns the whole page containing element with index from
+        return new Key(query, (from / size) * size, size, ranked, ItemSearchIndex.tokenize(query));
+    }
+
+    /**
+     * Get IDs of found items
+     * @param key cache key
+     * @return item IDs or null if result is not cached
+     */
+    public List<Long> get(final Key key) {
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * Get stamp to pass to put, it is taken before searching
+     * @return count of invalidations so far
+     */
+    public long stamp() {
+        return invalidations.get();
+    }
+
+    /**
+     * Cache IDs of found items unless cache was invalidated since stamp was taken
+     * @param key cache key
+     * @param itemIds item IDs
+     * @param stamp stamp taken before searching
+     */
+    public void put(final Key key, final List<Long> itemIds, final long stamp) {
+        List<Long> cachedItemIds = List.copyOf(itemIds);
+        cache.asMap().compute(key, (cachedKey, previous) -> {
+            index(cachedKey);
+            return cachedItemIds;
+        });
+        if (invalidations.get() != stamp) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Remove results of queries matching current name or description of item now and once again
+     * after current transaction is committed. Called after item is indexed,
+     * so results are removed after commit once index has the committed item.
+     * @param item item
+     */
+    public void invalidate(final Item item) {
+        invalidate(item, item.getName(), item.getDescription());
+    }
+
+    /**
+     * Remove results of queries matching name or description of item before or after change now and once again
+     * after current transaction is committed, so results item leaves and results it joins are both removed.
+     * Called after changed item is indexed, so results are removed after commit once index has the changed item.
+     * @param item changed item
+     * @param previousName name of item before change
+     * @param previousDescription description of item before change
+     */
+    public void invalidate(final Item item, final String previousName, final String previousDescription) {
+        Set<String> texts = Stream.of(item.getName(), item.getDescription(), previousName, previousDescription)
+                .map(text -> text == null ? "" : text.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+        Runnable action = () -> {
+            invalidations.incrementAndGet();
+            findKeys(texts).stream()
+                    .filter(key -> texts.stream().anyMatch(key::matches))
+                    .forEach(this::remove);
+        };
+        AfterCommit.runNowAndAfterCommit(action);
+    }
+
+    /**
+     * Remove all results now and once again after current transaction is committed
+     */
+    public void invalidateAll() {
+        Runnable action = () -> {
+            invalidations.incrementAndGet();
+            cache.asMap().keySet().forEach(this::remove);
+        };
+        AfterCommit.runNowAndAfterCommit(action);
+    }
+
+    // Keys whose query tokens are substrings of text tokens, superset of keys matching texts
+    private Set<Key> findKeys(final Set<String> texts) {
+        Set<Key> keys = new HashSet<>(keysByToken.getOrDefault("", Set.of()));
+        int maxLength = maxTokenLength.get();
+        for (String text : texts) {
+            for (String token : ItemSearchIndex.tokenize(text)) {
+                for (int start = 0; start < token.length(); start++) {
+                    for (int end = start + 1; end <= Math.min(token.length(), start + maxLength); end++) {
+                        keys.addAll(keysByToken.getOrDefault(token.substring(start, end), Set.of()));
+                    }
+                }
+            }
+        }
+        return keys;
+    }
+
+    // Remove entry and its key from token index in one computation
+    private void remove(final Key key) {
+        cache.asMap().computeIfPresent(key, (cachedKey, itemIds) -> {
+            unindex(cachedKey);
+            return null;
+        });
+    }
+
+    private void index(final Key key) {
+        for (String token : key.indexTokens()) {
+            maxTokenLength.accumulateAndGet(token.length(), Math::max);
+            keysByToken.compute(token, (indexedToken, keys) -> {
+                Set<Key> tokenKeys = keys == null ? ConcurrentHashMap.newKeySet() : keys;
+                tokenKeys.add(key);
+                return tokenKeys;
+            });
+        }
+    }
+
+    private void unindex(final Key key) {
+        for (String token : key.indexTokens()) {
+            keysByToken.computeIfPresent(token, (indexedToken, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    /**
+     * Cache key of search result page
+     */
+    @Value
+    public static class Key {
+        String query;
+        int from;
+        int size;
+        boolean ranked;
+        // Tokens of query, found once when key is made
+        List<String> tokens;
+
+        // Ranked search finds items containing any of query tokens, plain search needs the whole query
+        private boolean matches(final String text) {
+            if (!ranked) {
+                return text.contains(query);
+            }
+            return tokens.stream().anyMatch(text::contains);
+        }
+
+        // Tokens key is indexed by, query without tokens is indexed by empty token
+        private List<String> indexTokens() {
+            return tokens.isEmpty() ? List.of("") : tokens;
+        }
+    }
+}
@@ -0,0 +1,478 @@
+package ru.practicum.shareit.item;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserDeletedEvent;
+import ru.practicum.shareit.util.AfterCommit;
+import ru.practicum.shareit.util.WarmUp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index over item names and descriptions.
+ * Index is built in background at startup and kept in sync by item service write operations.
+ * Until index is warm search returns empty result and caller should use DB query.
+ * @author Evgeniy Lee
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemSearchIndex implements WarmUp {
+    // Count of items loaded from DB per one query while building index
+    private static final int REBUILD_CHUNK_SIZE = 1000;
+
+    // Any sequence of characters which are not letters or digits separates tokens
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Longest n-gram of token kept in postings, longer query tokens are looked up by all their n-grams of this length
+    private static final int GRAM_LENGTH = 3;
+
+    // BM25 term frequency saturation
+    private static final double BM25_K1 = 1.2;
+
+    // BM25 document length normalization
+    private static final double BM25_B = 0.75;
+
+    // Weight of token found in item name relative to token found in item description
+    private static final double NAME_BOOST = 3.0;
+
+    // Orders scored items from the least relevant, equal scores are ordered by descending item ID
+    private static final Comparator<Map.Entry<Long, Double>> LEAST_RELEVANT_FIRST = Comparator
+            .<Map.Entry<Long, Double>>comparingDouble(Map.Entry::getValue)
+            .thenComparing(Map.Entry::getKey, Comparator.reverseOrder());
+
+    // Item DB repository
+    private final ItemRepository itemRepository;
+
+    // Indexed items by item ID
+    private final Map<Long, IndexedItem> documents = new ConcurrentHashMap<>();
+
+    // Item IDs by n-gram, n-grams are all substrings of item tokens up to GRAM_LENGTH characters
+    private final Map<String, Set<Long>> gramPostings = new ConcurrentHashMap<>();
+
+    // Sum of name token counts of all indexed items
+    private final AtomicLong totalNameLength = new AtomicLong();
+
+    // Sum of description token counts of all indexed items
+    private final AtomicLong totalDescriptionLength = new AtomicLong();
+
+    // IDs of items removed while index is building, rebuild must not add them back
+    private final Set<Long> removedWhileBuilding = new HashSet<>();
+
+    // Serializes changes of index, so item snapshot is compared with the indexed one and put as one step
+    private final Lock lock = new ReentrantLock();
+
+    // Is index built and ready for search
+    private volatile boolean warm;
+
+    /**
+     * Build index from all items stored in DB
+     */
+    @Override
+    public void rebuild() {
+        warm = false;
+        try {
+            long indexed = 0;
+            List<Item> items = itemRepository.findAllByIdGreaterThan(0L,
+                    PageRequest.of(0, REBUILD_CHUNK_SIZE, ItemRepository.SORT_IDS_ASC));
+            while (!items.isEmpty()) {
+                for (Item item : items) {
+                    IndexedItem document = new IndexedItem(item);
+                    write(() -> {
+                        if (!removedWhileBuilding.contains(document.id)) {
+                            putIfNewer(document);
+                        }
+                    });
+                    indexed++;
+                }
+                Long lastId = items.get(items.size() - 1).getId();
+                items = itemRepository.findAllByIdGreaterThan(lastId,
+                        PageRequest.of(0, REBUILD_CHUNK_SIZE, ItemRepository.SORT_IDS_ASC));
+            }
+            write(() -> {
+                removedWhileBuilding.clear();
+                warm = true;
+            });
+            log.info("Item search index built, {} items indexed", indexed);
+        } catch (RuntimeException exception) {
+            log.error("Item search index build failed, search falls back to DB", exception);
+        }
+    }
+
+    /**
+     * Check index is built and ready for search
+     * @return true if index is ready
+     */
+    public boolean isWarm() {
+        return warm;
+    }
+
+    /**
+     * Add or replace item in index after current transaction is committed.
+     * Snapshot is taken after commit, so it has version of committed item.
+     * @param item item
+     */
+    public void index(final Item item) {
+        AfterCommit.run(() -> {
+            IndexedItem document = new IndexedItem(item);
+            write(() -> putIfNewer(document));
+        });
+    }
+
+    /**
+     * Remove item from index after current transaction is committed
+     * @param itemId item ID
+     */
+    public void remove(final Long itemId) {
+        AfterCommit.run(() -> write(() -> {
+            markRemoved(itemId);
+            delete(itemId);
+        }));
+    }
+
+    /**
+     * Remove all items of deleted user from index after user deletion is committed
+     * @param event user deleted event
+     */
+    @TransactionalEventListener
+    public void onUserDeleted(final UserDeletedEvent event) {
+        Long ownerId = event.getUserId();
+        write(() -> documents.values().stream()
+                .filter(document -> ownerId.equals(document.ownerId))
+                .map(document -> document.id)
+                .collect(Collectors.toList())
+                .forEach(itemId -> {
+                    markRemoved(itemId);
+                    delete(itemId);
+                }));
+    }
+
+    /**
+     * Get indexed items
+     * @param itemIds item IDs
+     * @return items in order of IDs, items missing in index are skipped, or empty optional if index is not ready
+     */
+    public Optional<List<ItemDto>> get(final List<Long> itemIds) {
+        if (!warm) {
+            return Optional.empty();
+        }
+        return Optional.of(itemIds.stream()
+                .map(documents::get)
+                .filter(Objects::nonNull)
+                .map(IndexedItem::toItemDto)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Search available items which contain text in name or description ignoring case.
+     * Result is sorted by item ID and paged the same way as DB query.
+     * @param text searched text
+     * @param from index of first element
+     * @param size page size
+     * @return found items or empty optional if index can not answer query
+     */
+    public Optional<List<ItemDto>> search(final String text, final int from, final int size) {
+        String query = text.toLowerCase(Locale.ROOT);
+        List<String> queryTokens = tokenize(query);
+        if (!warm || queryTokens.isEmpty()) {
+            return Optional.empty();
+        }
+
+        // Every match contains the longest query token inside one of its own tokens
+        String anchor = Collections.max(queryTokens, (t1, t2) -> Integer.compare(t1.length(), t2.length()));
+        // Query of one token matches the same items as substring search, longer queries are checked by text
+        boolean tokenQuery = query.equals(anchor);
+
+        int skip = (from / size) * size;
+        List<ItemDto> found = new ArrayList<>();
+        Iterator<Long> candidates = candidates(anchor).iterator();
+        while (candidates.hasNext()) {
+            IndexedItem document = documents.get(candidates.next());
+            if (document == null || !document.available) {
+                continue;
+            }
+            if (tokenQuery ? !hasTokenContaining(document, query) : !document.contains(query)) {
+                continue;
+            }
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            found.add(document.toItemDto());
+            if (found.size() == size) {
+                break;
+            }
+        }
+        return Optional.of(found);
+    }
+
+    /**
+     * Search available items which contain any of text tokens in name or description ignoring case.
+     * Items are scored by BM25 with boosted name field, only the best from + size items are kept in bounded heap.
+     * Result is paged the same way as DB query.
+     * @param text searched text
+     * @param from index of first element
+     * @param size page size
+     * @return found items from the most relevant or empty optional if index can not answer query
+     */
+    public Optional<List<ItemDto>> searchRanked(final String text, final int from, final int size) {
+        List<String> queryTokens = tokenize(text.toLowerCase(Locale.ROOT));
+        int documentCount = documents.size();
+        if (!warm || queryTokens.isEmpty()) {
+            return Optional.empty();
+        }
+        if (documentCount == 0) {
+            return Optional.of(new ArrayList<>());
+        }
+        double averageNameLength = Math.max(1.0, (double) totalNameLength.get() / documentCount);
+        double averageDescriptionLength = Math.max(1.0, (double) totalDescriptionLength.get() / documentCount);
+
+        Map<Long, Double> scores = new HashMap<>();
+        for (String queryToken : queryTokens) {
+            // Query token matches every indexed token containing it, as in substring search
+            Set<Long> matchedIds = candidates(queryToken)
+                    .filter(itemId -> hasTokenContaining(documents.get(itemId), queryToken))
+                    .collect(Collectors.toSet());
+            if (matchedIds.isEmpty()) {
+                continue;
+            }
+            double idf = Math.log(1 + (documentCount - matchedIds.size() + 0.5) / (matchedIds.size() + 0.5));
+            for (Long itemId : matchedIds) {
+                IndexedItem document = documents.get(itemId);
+                if (document == null || !document.available) {
+                    continue;
+                }
+                double frequency = NAME_BOOST * frequency(document.nameTokens, queryToken)
+                        / normalization(document.nameTokens.size(), averageNameLength)
+                        + frequency(document.descriptionTokens, queryToken)
+                        / normalization(document.descriptionTokens.size(), averageDescriptionLength);
+                scores.merge(itemId, idf * frequency / (BM25_K1 + frequency), Double::sum);
+            }
+        }
+
+        int skip = (from / size) * size;
+        int limit = skip + size;
+        PriorityQueue<Map.Entry<Long, Double>> best = new PriorityQueue<>(LEAST_RELEVANT_FIRST);
+        for (Map.Entry<Long, Double> score : scores.entrySet()) {
+            best.offer(score);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(best);
+        ranked.sort(LEAST_RELEVANT_FIRST.reversed());
+        return Optional.of(ranked.stream()
+                .skip(skip)
+                .map(score -> documents.get(score.getKey()))
+                .filter(Objects::nonNull)
+                .map(IndexedItem::toItemDto)
+                .collect(Collectors.toList()));
+    }
+
+    // Split lower case text into distinct non empty tokens
+    static List<String> tokenize(final String text) {
+        return split(text).stream()
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    // Split lower case text into non empty tokens keeping repeated ones
+    private static List<String> split(final String text) {
+        if (text == null) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(TOKEN_SEPARATOR.split(text))
+                .filter(token -> !token.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    // All substrings of token up to GRAM_LENGTH characters
+    private static Set<String> grams(final String token) {
+        Set<String> grams = new HashSet<>();
+        for (int length = 1; length <= Math.min(GRAM_LENGTH, token.length()); length++) {
+            for (int start = 0; start + length <= token.length(); start++) {
+                grams.add(token.substring(start, start + length));
+            }
+        }
+        return grams;
+    }
+
+    // IDs of items having all n-grams of query token in ascending order, superset of items having token
+    // containing query token. Postings are not copied, IDs of the rarest n-gram are checked against the others
+    // while caller consumes them, so caller stops intersection once it has found enough items
+    private Stream<Long> candidates(final String queryToken) {
+        if (queryToken.length() <= GRAM_LENGTH) {
+            return gramPostings.getOrDefault(queryToken, Collections.emptySet()).stream();
+        }
+        List<Set<Long>> matches = new ArrayList<>();
+        for (int start = 0; start + GRAM_LENGTH <= queryToken.length(); start++) {
+            Set<Long> itemIds = gramPostings.get(queryToken.substring(start, start + GRAM_LENGTH));
+            if (itemIds == null) {
+                return Stream.empty();
+            }
+            matches.add(itemIds);
+        }
+        matches.sort(Comparator.comparingInt(Set::size));
+        List<Set<Long>> others = matches.subList(1, matches.size());
+        return matches.get(0).stream()
+                .filter(itemId -> others.stream().allMatch(itemIds -> itemIds.contains(itemId)));
+    }
+
+    // Has document token containing query token
+    private static boolean hasTokenContaining(final IndexedItem document, final String queryToken) {
+        return document != null && (frequency(document.nameTokens, queryToken) > 0
+                || frequency(document.descriptionTokens, queryToken) > 0);
+    }
+
+    // Does text contain lower case query ignoring case, text is not copied to lower case
+    private static boolean containsIgnoreCase(final String text, final String query) {
+        if (text == null) {
+            return false;
+        }
+        for (int start = 0; start + query.length() <= text.length(); start++) {
+            if (text.regionMatches(true, start, query, 0, query.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Count of field tokens containing query token
+    private static long frequency(final List<String> fieldTokens, final String queryToken) {
+        long frequency = 0;
+        for (String token : fieldTokens) {
+            if (token.contains(queryToken)) {
+                frequency++;
+            }
+        }
+        return frequency;
+    }
+
+    // BM25 field length normalization
+    private static double normalization(final int fieldLength, final double averageFieldLength) {
+        return 1 - BM25_B + BM25_B * fieldLength / averageFieldLength;
+    }
+
+    // Put snapshot unless index already has the item of later version
+    private void putIfNewer(final IndexedItem document) {
+        IndexedItem indexed = documents.get(document.id);
+        if (indexed == null || indexed.version <= document.version) {
+            put(document);
+        }
+    }
+
+    private void put(final IndexedItem document) {
+        delete(document.id);
+        documents.put(document.id, document);
+        totalNameLength.addAndGet(document.nameTokens.size());
+        totalDescriptionLength.addAndGet(document.descriptionTokens.size());
+        for (String gram : document.grams()) {
+            gramPostings.computeIfAbsent(gram, key -> new ConcurrentSkipListSet<>()).add(document.id);
+        }
+    }
+
+    private void delete(final Long itemId) {
+        IndexedItem document = documents.remove(itemId);
+        if (document == null) {
+            return;
+        }
+        totalNameLength.addAndGet(-document.nameTokens.size());
+        totalDescriptionLength.addAndGet(-document.descriptionTokens.size());
+        // N-grams are not kept by document, they are found again from its tokens
+        for (String gram : document.grams()) {
+            gramPostings.computeIfPresent(gram, (key, itemIds) -> {
+                itemIds.remove(itemId);
+                return itemIds.isEmpty() ? null : itemIds;
+            });
+        }
+    }
+
+    private void markRemoved(final Long itemId) {
+        if (!warm) {
+            removedWhileBuilding.add(itemId);
+        }
+    }
+
+    private void write(final Runnable action) {
+        lock.lock();
+        try {
+            action.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Snapshot of item fields needed for building item DTO and for BM25, tokens are lower case
+    private static final class IndexedItem {
+        private final Long id;
+        private final long version;
+        private final String name;
+        private final String description;
+        private final boolean available;
+        private final Long ownerId;
+        private final Long requestId;
+        private final List<String> nameTokens;
+        private final List<String> descriptionTokens;
+
+        private IndexedItem(final Item item) {
+            id = item.getId();
+            version = item.getVersion();
+            name = item.getName();
+            description = item.getDescription();
+            available = Boolean.TRUE.equals(item.getAvailable());
+            ownerId = item.getOwner() == null ? null : item.getOwner().getId();
+            requestId = item.getRequest() == null ? null : item.getRequest().getId();
+            nameTokens = List.copyOf(split(name == null ? null : name.toLowerCase(Locale.ROOT)));
+            descriptionTokens = List.copyOf(split(description == null ? null : description.toLowerCase(Locale.ROOT)));
+        }
+
+        // N-grams of all distinct tokens
+        private Set<String> grams() {
+            Set<String> tokens = new HashSet<>(nameTokens);
+            tokens.addAll(descriptionTokens);
+            Set<String> grams = new HashSet<>();
+            tokens.forEach(token -> grams.addAll(ItemSearchIndex.grams(token)));
+            return grams;
+        }
+
+        private boolean contains(final String query) {
+            return containsIgnoreCase(name, query) || containsIgnoreCase(description, query);
+        }
+
+        private ItemDto toItemDto() {
+            ItemDto itemDto = new ItemDto();
+            itemDto.setId(id);
+            itemDto.setName(name);
+            itemDto.setDescription(description);
+            itemDto.setAvailable(available);
+            itemDto.setOwnerId(ownerId);
+            itemDto.setRequestId(requestId);
+            return itemDto;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package ru.practicum.shareit.item;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+
+/**
+ * Item search settings
+ * @author Evgeniy Lee
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "shareit.item.search")
+public class ItemSearchProperties {
+    // DB query used for search when in-memory index can not answer
+    private Mode mode = Mode.LIKE;
+
+    // Count of the most booked items suggested for name prefix
+    private int suggestions = 10;
+
+    // Maximum count of cached search result pages, the least recently used pages are evicted first
+    private long cacheMaximumSize = 1_000;
+
+    // Time after which cached search result page is searched again
+    private Duration cacheExpireAfterWrite = Duration.ofMinutes(10);
+
+    /**
+     * DB search modes
+     */
+    public enum Mode {
+        // Case insensitive LIKE over lower(name) and lower(description), works on any DB
+        LIKE,
+        // ILIKE served by pg_trgm GIN indexes, PostgreSQL only
+        TRIGRAM
+    }
+}
@@ -1,8 +1,13 @@
 package ru.practicum.shareit.item;
 
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemBatchResultDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.util.SeekCursor;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Item service interface for CRUD operations
@@ -17,6 +22,14 @@ public interface ItemService {
      */
     ItemDto create(ItemDto itemDto, Long ownerId);
 
+    /**
+     * Create items by owner, elements failed validation are reported and skipped, the others are created
+     * @param itemDtos items
+     * @param ownerId owner ID
+     * @return results in order of elements
+     */
+    List<ItemBatchResultDto> createAll(List<ItemDto> itemDtos, Long ownerId);
+
     /**
      * Update item
      * @param itemId item ID
@@ -46,6 +59,23 @@ public interface ItemService {
      */
     List<ItemDto> getByOwner(Long ownerId, Integer from, Integer size);
 
+    /**
+     * Get page of items of user with ID which follow cursor
+     * @param ownerId user ID
+     * @param after cursor with ID of the last item of previous page
+     * @param size page size
+     * @return item list
+     */
+    List<ItemDto> getByOwner(Long ownerId, SeekCursor after, Integer size);
+
+    /**
+     * Pass all items of user with ID to consumer in order of item ID.
+     * Items are read from DB by forward-only cursor, so memory does not grow with count of items.
+     * @param ownerId user ID
+     * @param consumer receives items one by one
+     */
+    void streamByOwner(Long ownerId, Consumer<ItemDto> consumer);
+
     /**
      * Search items which contain in name or description text for user with ID
      * @param ownerId user ID
@@ -54,6 +84,30 @@ public interface ItemService {
      */
     List<ItemDto> search(Long ownerId, String text, Integer from, Integer size);
 
+    /**
+     * Search items which contain in name or description text for user with ID
+     * @param ownerId user ID
+     * @param text searched text
+     * @param ranked order items by relevance to text instead of item ID
+     * @return item list
+     */
+    List<ItemDto> search(Long ownerId, String text, Integer from, Integer size, Boolean ranked);
+
+    /**
+     * Pass all available items which contain in name or description text to consumer in order of item ID.
+     * Items are read from DB by forward-only cursor, so memory does not grow with count of items.
+     * @param text searched text
+     * @param consumer receives items one by one
+     */
+    void streamSearch(String text, Consumer<ItemDto> consumer);
+
+    /**
+     * Suggest available items which name has word starting with the last word of prefix
+     * @param prefix typed text
+     * @return the most booked items
+     */
+    List<ItemDto> suggest(String prefix);
+
     /**
      * Create comment by author for item
      * @param itemId item ID
@@ -62,4 +116,24 @@ public interface ItemService {
      * @return created comment
      */
     CommentDto createComment(Long itemId, Long userId, CommentDto commentDto);
+
+    /**
+     * Get page of item comments from the latest
+     * @param itemId item ID
+     * @param after cursor of the last comment of previous page or null for the first page
+     * @param size page size
+     * @return list of comments
+     */
+    List<CommentDto> getComments(Long itemId, SeekCursor after, Integer size);
+
+    /**
+     * Get busy and free intervals of item within period, waiting and approved bookings make item busy.
+     * Count of bookings is limited, period of availability ends earlier when item has more bookings within it,
+     * so the rest are got from its end.
+     * @param itemId item ID
+     * @param from start of period
+     * @param to end of period
+     * @return availability of item
+     */
+    ItemAvailabilityDto getAvailability(Long itemId, LocalDateTime from, LocalDateTime to);
 }
@@ -1,30 +1,46 @@
 package ru.practicum.shareit.item;
 
 import lombok.AllArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.BookingMapper;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingTimeline;
+import ru.practicum.shareit.booking.dto.BookingInterval;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.DataNotFoundException;
 import ru.practicum.shareit.exception.ForbiddenException;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.IntervalDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemBatchResultDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemSummary;
 import ru.practicum.shareit.messages.ExceptionMessages;
 import ru.practicum.shareit.request.RequestRepository;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserDeletedEvent;
+import ru.practicum.shareit.user.UserRenamedEvent;
 import ru.practicum.shareit.user.UserRepository;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.util.PageSettings;
+import ru.practicum.shareit.util.SeekCursor;
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.validation.Validator;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Item service implementation
@@ -33,6 +49,15 @@ import java.util.stream.Collectors;
 @Service
 @AllArgsConstructor
 public class ItemServiceImpl implements ItemService {
+    // Count of streamed items completed and passed to consumer at once
+    private static final int STREAM_CHUNK_SIZE = 100;
+
+    // Count of the latest comments completing item, the rest are paged by comments of item
+    private static final int LATEST_COMMENTS_SIZE = 10;
+
+    // Count of bookings starting within period read for item availability, it bounds response size
+    private static final int AVAILABILITY_BOOKINGS_LIMIT = 500;
+
     // Item DB repository
     private final ItemRepository itemRepository;
     // User DB repository
@@ -43,18 +68,113 @@ public class ItemServiceImpl implements ItemService {
     private final BookingRepository bookingRepository;
     // Request DB repository
     private final RequestRepository requestRepository;
+    // In-memory item search index
+    private final ItemSearchIndex searchIndex;
+    // In-memory trie of item names for prefix suggestions
+    private final ItemSuggestIndex suggestIndex;
+    // Cache of item search results
+    private final ItemSearchCache searchCache;
+    // Item search settings
+    private final ItemSearchProperties searchProperties;
+    // In-memory timelines of approved bookings
+    private final BookingTimeline bookingTimeline;
+    // Cache of assembled item DTO
+    private final ItemDtoCache itemDtoCache;
+    // Item summary DB repository, owner items are read from it
+    private final ItemSummaryRepository summaryRepository;
+    // Keeps item summaries in sync with items
+    private final ItemSummaryUpdater summaryUpdater;
+    // Persistence context, it is cleared while items are streamed
+    private final EntityManager entityManager;
+    // Validates elements of item batch
+    private final Validator validator;
 
     @Transactional
     @Override
     public ItemDto create(final ItemDto itemDto, final Long ownerId) {
         User owner = getUserById(ownerId);
         Item item = ItemMapper.toItem(itemDto);
+        // Client ID is ignored, so item of another owner can not be overwritten by create
+        item.setId(null);
         item.setOwner(owner);
         Long requestId = itemDto.getRequestId();
         if (requestId != null) {
             item.setRequest(getRequestById(requestId));
         }
-        return ItemMapper.toItemDto(itemRepository.save(item));
+        Item savedItem = itemRepository.save(item);
+        summaryUpdater.create(savedItem);
+        searchIndex.index(savedItem);
+        suggestIndex.index(savedItem);
+        searchCache.invalidate(savedItem);
+        // Item ID may be reused after DB is recreated, so view cached for previous item is dropped
+        itemDtoCache.invalidate(savedItem.getId());
+        return ItemMapper.toItemDto(savedItem);
+    }
+
+    @Transactional
+    @Override
+    public List<ItemBatchResultDto> createAll(final List<ItemDto> itemDtos, final Long ownerId) {
+        User owner = getUserById(ownerId);
+        Set<Long> requestIds = itemDtos.stream()
+                .filter(Objects::nonNull)
+                .map(ItemDto::getRequestId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, ItemRequest> requests = requestRepository.findAllById(requestIds).stream()
+                .collect(Collectors.toMap(ItemRequest::getId, request -> request));
+
+        List<ItemBatchResultDto> results = new ArrayList<>(itemDtos.size());
+        List<ItemBatchResultDto> createdResults = new ArrayList<>();
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < itemDtos.size(); i++) {
+            ItemDto itemDto = itemDtos.get(i);
+            ItemBatchResultDto result = new ItemBatchResultDto(i);
+            results.add(result);
+            String error = validate(itemDto, requests);
+            if (error != null) {
+                result.setError(error);
+                continue;
+            }
+            Item item = ItemMapper.toItem(itemDto);
+            item.setId(null);
+            item.setOwner(owner);
+            item.setRequest(itemDto.getRequestId() == null ? null : requests.get(itemDto.getRequestId()));
+            items.add(item);
+            createdResults.add(result);
+        }
+
+        itemRepository.insertAll(items);
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            createdResults.get(i).setItem(ItemMapper.toItemDto(item));
+            summaryUpdater.create(item);
+            searchIndex.index(item);
+            suggestIndex.index(item);
+            itemDtoCache.invalidate(item.getId());
+        }
+        if (!items.isEmpty()) {
+            searchCache.invalidateAll();
+        }
+        return results;
+    }
+
+    // Validation errors of batch element joined to one message or null if element is valid
+    private String validate(final ItemDto itemDto, final Map<Long, ItemRequest> requests) {
+        if (itemDto == null) {
+            return ExceptionMessages.INVALID_DATA;
+        }
+        String error = validator.validate(itemDto).stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+        if (!error.isEmpty()) {
+            return error;
+        }
+        Long requestId = itemDto.getRequestId();
+        if (requestId != null && !requests.containsKey(requestId)) {
+            return String.format(ExceptionMessages.REQUEST_NOT_FOUND, requestId);
+        }
+        return null;
     }
 
     @Transactional
@@ -65,6 +185,8 @@ public class ItemServiceImpl implements ItemService {
         if (!ownerId.equals(item.getOwner().getId())) {
             throw new ForbiddenException(ExceptionMessages.ACCESS_DENIED);
         }
+        String previousName = item.getName();
+        String previousDescription = item.getDescription();
 
         if (itemDto.getName() != null) {
             item.setName(itemDto.getName());
@@ -78,70 +200,239 @@ public class ItemServiceImpl implements ItemService {
             item.setAvailable(itemDto.getAvailable());
         }
 
+        summaryUpdater.update(item);
+        searchIndex.index(item);
+        suggestIndex.index(item);
+        // Results found by item before and after update, removed after commit once index has updated item
+        searchCache.invalidate(item, previousName, previousDescription);
+        itemDtoCache.invalidate(itemId);
         return ItemMapper.toItemDto(item);
     }
 
+    @Transactional(readOnly = true)
     @Override
     public ItemDto get(final Long itemId, final Long userId) {
+        ItemDto itemDto = itemDtoCache.get(itemId, this::loadItemDto);
+        if (!userId.equals(itemDto.getOwnerId())) {
+            return itemDto;
+        }
+        return itemDtoCache.getOwnerView(itemId, id -> {
+            ItemDto ownerView = copyItemDto(itemDto);
+            setLastAndNextBookings(Arrays.asList(ownerView));
+            return ownerView;
+        });
+    }
+
+    // Load item with the latest comments from DB
+    private ItemDto loadItemDto(final Long itemId) {
         Item item = getItemById(itemId);
         ItemDto itemDto = ItemMapper.toItemDto(item);
-        List<Comment> comments = getCommentsByItemIds(Arrays.asList(itemId)).get(itemId);
+        List<Comment> comments = getLatestCommentsByItemIds(Arrays.asList(itemDto)).get(itemId);
         itemDto.setComments(CommentMapper.toCommentDtoList(comments));
-
-        if (userId.equals(itemDto.getOwnerId())) {
-            Map<Long, List<Booking>> bookingsGroupByItemIds = getBookingsByItemIds(Arrays.asList(itemId));
-            Booking lastBooking = getLastBooking(bookingsGroupByItemIds, itemId);
-            Booking nextBooking = getNextBooking(bookingsGroupByItemIds, itemId);
-            if (lastBooking != null)
-                itemDto.setLastBooking(BookingMapper.toBriefBookingDto(lastBooking));
-            if (nextBooking != null)
-                itemDto.setNextBooking(BookingMapper.toBriefBookingDto(nextBooking));
-        }
         return itemDto;
     }
 
+    // Copy item DTO, so cached non-owner view is not changed when owner view is built from it
+    private ItemDto copyItemDto(final ItemDto itemDto) {
+        ItemDto copy = new ItemDto();
+        copy.setId(itemDto.getId());
+        copy.setName(itemDto.getName());
+        copy.setDescription(itemDto.getDescription());
+        copy.setAvailable(itemDto.getAvailable());
+        copy.setOwnerId(itemDto.getOwnerId());
+        copy.setComments(itemDto.getComments());
+        copy.setCommentCount(itemDto.getCommentCount());
+        copy.setRequestId(itemDto.getRequestId());
+        return copy;
+    }
+
     @Transactional
     @Override
     public void delete(final Long itemId) {
+        // Item is loaded by deleteById anyway, so it is taken from persistence context there
+        Optional<Item> item = itemRepository.findById(itemId);
         itemRepository.deleteById(itemId);
+        searchIndex.remove(itemId);
+        suggestIndex.remove(itemId);
+        // Results found by item, removed after commit once index has no item
+        item.ifPresent(searchCache::invalidate);
+        bookingTimeline.removeItem(itemId);
+        itemDtoCache.invalidate(itemId);
     }
 
+    /**
+     * Count off comments of user being deleted from items of other owners. Runs in deleting transaction
+     * before comments are deleted by cascade, cached items and search results are invalidated.
+     * @param event user deleted event
+     */
+    @Transactional
+    @EventListener
+    public void onUserDeleted(final UserDeletedEvent event) {
+        List<Long> commentedItemIds = commentRepository.findItemIdsByAuthorId(event.getUserId());
+        itemRepository.uncountCommentsByAuthorId(event.getUserId());
+        summaryUpdater.refresh(commentedItemIds);
+        itemDtoCache.invalidateAll();
+        searchCache.invalidateAll();
+    }
+
+    /**
+     * Invalidate cached items whose comments show name of renamed user, now and once again after commit
+     * @param event user renamed event
+     */
+    @EventListener
+    public void onUserRenamed(final UserRenamedEvent event) {
+        commentRepository.findItemIdsByAuthorId(event.getUserId()).forEach(itemDtoCache::invalidate);
+    }
+
+    @Transactional(readOnly = true)
     @Override
     public List<ItemDto> getByOwner(final Long ownerId, final Integer from, final Integer size) {
-        List<ItemDto> itemDtoList = new ArrayList<>();
-        Pageable pageable = new PageSettings(from, size, ItemRepository.SORT_IDS_ASC);
-        List<Item> items = itemRepository.findByOwnerId(ownerId, pageable);
-        List<Long> itemIds = items.stream().map(Item::getId).collect(Collectors.toList());
-        Map<Long, List<Booking>> bookingsGroupByItemIds = getBookingsByItemIds(itemIds);
-        Map<Long, List<Comment>> commentsGroupByItemIds = getCommentsByItemIds(itemIds);
-
-        for (Item item : items) {
-            ItemDto itemDto = ItemMapper.toItemDto(item);
-            Long itemId = item.getId();
-            Booking lastBooking = getLastBooking(bookingsGroupByItemIds, itemId);
-            Booking nextBooking = getNextBooking(bookingsGroupByItemIds, itemId);
-            List<Comment> comments = commentsGroupByItemIds.get(itemId);
+        Pageable pageable = new PageSettings(from, size, ItemSummaryRepository.SORT_ITEM_IDS_ASC);
+        return summariesToOwnerItemDtoList(summaryRepository.findByOwnerId(ownerId, pageable));
+    }
 
-            if (lastBooking != null)
-                itemDto.setLastBooking(BookingMapper.toBriefBookingDto(lastBooking));
-            if (nextBooking != null)
-                itemDto.setNextBooking(BookingMapper.toBriefBookingDto(nextBooking));
-            if (comments != null)
-                itemDto.setComments(CommentMapper.toCommentDtoList(comments));
+    @Transactional(readOnly = true)
+    @Override
+    public List<ItemDto> getByOwner(final Long ownerId, final SeekCursor after, final Integer size) {
+        Pageable pageable = PageRequest.of(0, size, ItemSummaryRepository.SORT_ITEM_IDS_ASC);
+        return summariesToOwnerItemDtoList(
+                summaryRepository.findByOwnerIdAndItemIdGreaterThan(ownerId, after.getId(), pageable)
+        );
+    }
 
-            itemDtoList.add(itemDto);
+    // Owner items with last and next bookings taken from summaries and the latest comments.
+    // Summaries not yet advanced after their next booking has started get bookings found again
+    private List<ItemDto> summariesToOwnerItemDtoList(final List<ItemSummary> summaries) {
+        summaryUpdater.setExpiredBookings(summaries);
+        List<ItemDto> itemDtoList = summaries.stream().map(ItemMapper::toItemDto).collect(Collectors.toList());
+        setLatestComments(itemDtoList);
+        return itemDtoList;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public void streamByOwner(final Long ownerId, final Consumer<ItemDto> consumer) {
+        try (Stream<ItemDto> items = itemRepository.streamByOwnerId(ownerId)) {
+            forEachChunk(items, chunk -> toOwnerItemDtoList(chunk).forEach(consumer));
         }
+    }
+
+    // Complete owner items with last and next bookings and the latest comments
+    private List<ItemDto> toOwnerItemDtoList(final List<ItemDto> itemDtoList) {
+        setLatestComments(itemDtoList);
+        setLastAndNextBookings(itemDtoList);
         return itemDtoList;
     }
 
+    private void setLatestComments(final List<ItemDto> itemDtoList) {
+        Map<Long, List<Comment>> commentsGroupByItemIds = getLatestCommentsByItemIds(itemDtoList);
+        for (ItemDto itemDto : itemDtoList) {
+            List<Comment> comments = commentsGroupByItemIds.get(itemDto.getId());
+            if (comments != null)
+                itemDto.setComments(CommentMapper.toCommentDtoList(comments));
+        }
+    }
+
     @Override
     public List<ItemDto> search(final Long ownerId, final String text, final Integer from, final Integer size) {
+        return search(ownerId, text, from, size, false);
+    }
+
+    @Override
+    public List<ItemDto> search(
+            final Long ownerId, final String text, final Integer from, final Integer size, final Boolean ranked
+    ) {
+        if ((text == null) || (text.isBlank())) {
+            return new ArrayList<>();
+        }
+        // Only cache key is normalized, searched text keeps its case and inner whitespaces
+        ItemSearchCache.Key key = ItemSearchCache.key(ItemSearchCache.normalize(text), from, size,
+                Boolean.TRUE.equals(ranked));
+        List<Long> cachedItemIds = searchCache.get(key);
+        if (cachedItemIds != null) {
+            return getByIds(cachedItemIds);
+        }
+        long stamp = searchCache.stamp();
+        List<ItemDto> items = searchUncached(text.trim(), from, size, ranked);
+        searchCache.put(key, items.stream().map(ItemDto::getId).collect(Collectors.toList()), stamp);
+        return items;
+    }
+
+    private List<ItemDto> searchUncached(
+            final String text, final Integer from, final Integer size, final Boolean ranked
+    ) {
+        if (Boolean.TRUE.equals(ranked)) {
+            // Relevance needs corpus statistics, until index is warm items are returned in ID order
+            Optional<List<ItemDto>> rankedItems = searchIndex.searchRanked(text, from, size);
+            if (rankedItems.isPresent()) {
+                return rankedItems.get();
+            }
+        }
+        Optional<List<ItemDto>> indexedItems = searchIndex.search(text, from, size);
+        if (indexedItems.isPresent()) {
+            return indexedItems.get();
+        }
+        Pageable pageable = new PageSettings(from, size, ItemRepository.SORT_IDS_ASC);
+        if (ItemSearchProperties.Mode.TRIGRAM == searchProperties.getMode()) {
+            return ItemMapper.toItemDtoList(
+                    itemRepository.findNameOrDescriptionContainingTextByTrigram(text, pageable)
+            );
+        }
+        return ItemMapper.toItemDtoList(itemRepository.findNameOrDescriptionContainingText(text, pageable));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public void streamSearch(final String text, final Consumer<ItemDto> consumer) {
         if ((text == null) || (text.isBlank())) {
+            return;
+        }
+        String query = text.trim();
+        Stream<Item> items = ItemSearchProperties.Mode.TRIGRAM == searchProperties.getMode()
+                ? itemRepository.streamNameOrDescriptionContainingTextByTrigram(query)
+                : itemRepository.streamNameOrDescriptionContainingText(query);
+        try (items) {
+            forEachChunk(items, chunk -> chunk.stream().map(ItemMapper::toItemDto).forEach(consumer));
+        }
+    }
+
+    // Pass stream to action by chunks, persistence context is cleared after each chunk so it does not grow
+    private <T> void forEachChunk(final Stream<T> stream, final Consumer<List<T>> action) {
+        List<T> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+        Iterator<T> iterator = stream.iterator();
+        while (iterator.hasNext()) {
+            chunk.add(iterator.next());
+            if (chunk.size() == STREAM_CHUNK_SIZE) {
+                action.accept(chunk);
+                entityManager.clear();
+                chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            action.accept(chunk);
+        }
+    }
+
+    // Items in order of IDs taken from search index or by one DB query
+    private List<ItemDto> getByIds(final List<Long> itemIds) {
+        if (itemIds.isEmpty()) {
             return new ArrayList<>();
-        } else {
-            Pageable pageable = new PageSettings(from, size, ItemRepository.SORT_IDS_ASC);
-            return ItemMapper.toItemDtoList(itemRepository.findNameOrDescriptionContainingText(text, pageable));
         }
+        Optional<List<ItemDto>> indexedItems = searchIndex.get(itemIds);
+        if (indexedItems.isPresent()) {
+            return indexedItems.get();
+        }
+        Map<Long, ItemDto> itemsById = itemRepository.findByIdIn(itemIds).stream()
+                .collect(Collectors.toMap(ItemDto::getId, itemDto -> itemDto));
+        return itemIds.stream()
+                .map(itemsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<ItemDto> suggest(final String prefix) {
+        return suggestIndex.suggest(prefix);
     }
 
     @Transactional
@@ -149,6 +440,8 @@ public class ItemServiceImpl implements ItemService {
     public CommentDto createComment(final Long itemId, final Long userId, final CommentDto commentDto) {
         User user = getUserById(userId);
         Item item = getItemById(itemId);
+        // Item row stays locked until commit, so concurrent comments do not lose increments of comment count
+        entityManager.refresh(item, LockModeType.PESSIMISTIC_WRITE);
         LocalDateTime created = LocalDateTime.now();
         List<Booking> bookerItems = bookingRepository
                 .findAllByBookerIdAndItemIdAndEndBeforeAndStatus(userId, itemId, created, BookingStatus.APPROVED,
@@ -157,12 +450,107 @@ public class ItemServiceImpl implements ItemService {
             throw new BadRequestException(ExceptionMessages.NO_BOOKER_FOR_ITEM);
         }
         Comment comment = CommentMapper.toComment(commentDto, user, item, created);
-        return CommentMapper.toCommentDto(commentRepository.save(comment));
+        CommentDto savedComment = CommentMapper.toCommentDto(commentRepository.save(comment));
+        item.setCommentCount(item.getCommentCount() + 1);
+        summaryUpdater.update(item);
+        itemDtoCache.invalidate(itemId);
+        return savedComment;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<CommentDto> getComments(final Long itemId, final SeekCursor after, final Integer size) {
+        if (!itemRepository.existsById(itemId)) {
+            throw new DataNotFoundException(ExceptionMessages.DATA_NOT_FOUND);
+        }
+        Pageable pageable = PageRequest.of(0, size);
+        List<Comment> comments = after == null
+                ? commentRepository.findByItemIdOrderByIdDesc(itemId, pageable)
+                : commentRepository.findByItemIdAndIdLessThanOrderByIdDesc(itemId, after.getId(), pageable);
+        return CommentMapper.toCommentDtoList(comments);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public ItemAvailabilityDto getAvailability(final Long itemId, final LocalDateTime from, final LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new BadRequestException(ExceptionMessages.INVALID_PERIOD);
+        }
+        // Item is read from second-level cache, so only bookings are queried
+        getItemById(itemId);
+        List<BookingInterval> bookings = new ArrayList<>(
+                bookingRepository.findIntervalsByItemId(itemId, from, to, AVAILABILITY_BOOKINGS_LIMIT + 1));
+        LocalDateTime end = to;
+        long startedWithin = bookings.stream().filter(booking -> !booking.getStart().isBefore(from)).count();
+        if (startedWithin > AVAILABILITY_BOOKINGS_LIMIT) {
+            // The booking over limit is the latest one, period ends when it starts
+            end = bookings.remove(bookings.size() - 1).getStart();
+        }
+        return sweep(itemId, bookings, from, end);
+    }
+
+    // Merge bookings sorted by start into busy intervals clipped by period, gaps between them are free
+    private static ItemAvailabilityDto sweep(final Long itemId, final List<BookingInterval> bookings,
+                                             final LocalDateTime from, final LocalDateTime to) {
+        List<IntervalDto> busy = new ArrayList<>();
+        List<IntervalDto> free = new ArrayList<>();
+        IntervalDto current = null;
+        // End of time covered by intervals
+        LocalDateTime covered = from;
+        for (BookingInterval booking : bookings) {
+            LocalDateTime start = booking.getStart().isBefore(from) ? from : booking.getStart();
+            LocalDateTime end = booking.getEnd().isAfter(to) ? to : booking.getEnd();
+            if (!end.isAfter(covered) || !start.isBefore(end)) {
+                continue;
+            }
+            if (current != null && !start.isAfter(covered)) {
+                current.setEnd(end);
+            } else {
+                if (start.isAfter(covered)) {
+                    free.add(new IntervalDto(covered, start));
+                }
+                current = new IntervalDto(start, end);
+                busy.add(current);
+            }
+            covered = end;
+        }
+        if (covered.isBefore(to)) {
+            free.add(new IntervalDto(covered, to));
+        }
+        return new ItemAvailabilityDto(itemId, from, to, busy, free);
     }
 
-    private Map<Long, List<Booking>> getBookingsByItemIds(final List<Long> itemIds) {
+    // Set the latest past and the earliest future approved bookings of items,
+    // bookings are looked up in timelines when they are warm and loaded from DB otherwise
+    private void setLastAndNextBookings(final List<ItemDto> itemDtoList) {
+        LocalDateTime now = LocalDateTime.now();
+        if (bookingTimeline.isWarm()) {
+            for (ItemDto itemDto : itemDtoList) {
+                itemDto.setLastBooking(bookingTimeline.findLast(itemDto.getId(), now));
+                itemDto.setNextBooking(bookingTimeline.findNext(itemDto.getId(), now));
+            }
+            return;
+        }
+
+        List<Long> itemIds = itemDtoList.stream().map(ItemDto::getId).collect(Collectors.toList());
+        Map<Long, List<Booking>> bookingsGroupByItemIds = getBookingsByItemIds(itemIds, now);
+        for (ItemDto itemDto : itemDtoList) {
+            Booking lastBooking = getLastBooking(bookingsGroupByItemIds, itemDto.getId(), now);
+            Booking nextBooking = getNextBooking(bookingsGroupByItemIds, itemDto.getId(), now);
+            if (lastBooking != null)
+                itemDto.setLastBooking(BookingMapper.toBriefBookingDto(lastBooking));
+            if (nextBooking != null)
+                itemDto.setNextBooking(BookingMapper.toBriefBookingDto(nextBooking));
+        }
+    }
+
+    // Get the latest past and the earliest future approved booking of each item grouped by item IDs
+    private Map<Long, List<Booking>> getBookingsByItemIds(final List<Long> itemIds, final LocalDateTime now) {
         Map<Long, List<Booking>> bookingsGroupByItemIds = new HashMap<>();
-        List<Booking> bookings = bookingRepository.findAllByItemIdIn(itemIds);
+        if (itemIds.isEmpty()) {
+            return bookingsGroupByItemIds;
+        }
+        List<Booking> bookings = bookingRepository.findLastAndNextByItemIdIn(itemIds, now);
         for (Booking booking : bookings) {
             Long itemId = booking.getItem().getId();
             List<Booking> bookingsByItemId = bookingsGroupByItemIds.get(itemId);
@@ -175,39 +563,66 @@ public class ItemServiceImpl implements ItemService {
         return bookingsGroupByItemIds;
     }
 
-    private Booking getLastBooking(final Map<Long, List<Booking>> bookingsGroupByItemIds, final Long itemId) {
-        List<Booking> bookings = bookingsGroupByItemIds.get(itemId);
-        Booking lastBooking = null;
-        if (bookings != null) {
-            List<Booking> lastBookings = bookings
-                    .stream()
-                    .filter(booking -> booking.getStart().isBefore(LocalDateTime.now()))
-                    .sorted(Comparator.comparing(Booking::getStart).reversed())
-                    .collect(Collectors.toList());
-            if (!lastBookings.isEmpty())
-                lastBooking = lastBookings.get(0);
-        }
-        return lastBooking;
+    private Booking getLastBooking(
+            final Map<Long, List<Booking>> bookingsGroupByItemIds, final Long itemId, final LocalDateTime now
+    ) {
+        List<Booking> bookings = bookingsGroupByItemIds.getOrDefault(itemId, Collections.emptyList());
+        return bookings.stream()
+                .filter(booking -> booking.getStart().isBefore(now))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private Booking getNextBooking(
+            final Map<Long, List<Booking>> bookingsGroupByItemIds, final Long itemId, final LocalDateTime now
+    ) {
+        List<Booking> bookings = bookingsGroupByItemIds.getOrDefault(itemId, Collections.emptyList());
+        return bookings.stream()
+                .filter(booking -> booking.getStart().isAfter(now))
+                .findFirst()
+                .orElse(null);
     }
 
-    private Booking getNextBooking(final Map<Long, List<Booking>> bookingsGroupByItemIds, final Long itemId) {
-        List<Booking> bookings = bookingsGroupByItemIds.get(itemId);
-        Booking nextBooking = null;
-        if (bookings != null) {
-            List<Booking> nextBookings = bookings
-                    .stream()
-                    .filter(booking -> booking.getStart().isAfter(LocalDateTime.now()))
-                    .sorted(Comparator.comparing(Booking::getStart))
+    // Get the latest comments of items in order of IDs grouped by item IDs. Items without comments are skipped,
+    // the latest comments of items having more of them than are shown are ranked by one query for all such items,
+    // so rows read do not grow with count
+    private Map<Long, List<Comment>> getLatestCommentsByItemIds(final List<ItemDto> itemDtoList) {
+        Map<Long, List<Comment>> commentsGroupByItemIds = new HashMap<>();
+        List<Long> itemIds = new ArrayList<>();
+        List<Long> manyCommentsItemIds = new ArrayList<>();
+        for (ItemDto itemDto : itemDtoList) {
+            Integer commentCount = itemDto.getCommentCount();
+            if (commentCount != null && commentCount > LATEST_COMMENTS_SIZE) {
+                manyCommentsItemIds.add(itemDto.getId());
+            } else if (commentCount == null || commentCount > 0) {
+                // Items with unknown count are loaded with all their comments
+                itemIds.add(itemDto.getId());
+            }
+        }
+        if (!itemIds.isEmpty()) {
+            commentsGroupByItemIds.putAll(getCommentsByItemIds(itemIds));
+        }
+        if (!manyCommentsItemIds.isEmpty()) {
+            List<Long> commentIds = commentRepository
+                    .findLatestIdsByItemIdIn(manyCommentsItemIds, LATEST_COMMENTS_SIZE).stream()
+                    .map(Number::longValue)
                     .collect(Collectors.toList());
-            if (!nextBookings.isEmpty())
-                nextBooking = nextBookings.get(0);
+            commentsGroupByItemIds.putAll(groupByItemIds(
+                    commentRepository.findAllByIdIn(commentIds, Sort.by(Sort.Direction.ASC, "id"))
+            ));
         }
-        return nextBooking;
+        return commentsGroupByItemIds;
     }
 
     private Map<Long, List<Comment>> getCommentsByItemIds(final List<Long> itemIds) {
+        return groupByItemIds(
+                commentRepository.findAllByItemIdInOrderById(itemIds, Sort.by(Sort.Direction.ASC, "id"))
+        );
+    }
+
+    // Group comments by item IDs keeping their order
+    private static Map<Long, List<Comment>> groupByItemIds(final List<Comment> comments) {
         Map<Long, List<Comment>> commentsGroupByItemIds = new HashMap<>();
-        List<Comment> comments = commentRepository.findAllByItemIdInOrderById(itemIds, Sort.by(Sort.Direction.ASC, "id"));
         for (Comment comment : comments) {
             Long itemId = comment.getItem().getId();
             List<Comment> commentsByItemId = commentsGroupByItemIds.get(itemId);
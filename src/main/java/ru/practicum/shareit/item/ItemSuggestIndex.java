@@ -0,0 +1,447 @@
+package ru.practicum.shareit.item;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.dto.ItemBookingCount;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserDeletedEvent;
+import ru.practicum.shareit.util.AfterCommit;
+import ru.practicum.shareit.util.WarmUp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory compact trie over name tokens of available items for prefix suggestions.
+ * Every trie node keeps the most booked items having a token with node prefix, so lookup does not walk subtree.
+ * Trie is built in background at startup and kept in sync by item and booking service write operations.
+ * Until trie is warm suggestions are empty.
+ * @author Evgeniy Lee
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemSuggestIndex implements WarmUp {
+    // Count of items loaded from DB per one query while building trie
+    private static final int REBUILD_CHUNK_SIZE = 1000;
+
+    private static final long[] NO_ITEMS = new long[0];
+
+    // Item DB repository
+    private final ItemRepository itemRepository;
+
+    // Booking DB repository
+    private final BookingRepository bookingRepository;
+
+    // Item search settings
+    private final ItemSearchProperties searchProperties;
+
+    // Root of trie, its label is empty
+    private final Node root = new Node("");
+
+    // Indexed available items by item ID
+    private final Map<Long, SuggestedItem> items = new HashMap<>();
+
+    // Count of bookings by item ID, items with more bookings are suggested first
+    private final Map<Long, Long> popularity = new HashMap<>();
+
+    // Guards trie, items and popularity
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Versions of items changed while trie is building by item ID, rebuild must not put older snapshots.
+    // Removed items have the largest version.
+    private final Map<Long, Long> changedWhileBuilding = new HashMap<>();
+
+    // Is trie built and ready for suggestions
+    private volatile boolean warm;
+
+    /**
+     * Build trie from all items stored in DB
+     */
+    @Override
+    public void rebuild() {
+        warm = false;
+        try {
+            long indexed = 0;
+            List<Item> chunk = itemRepository.findAllByIdGreaterThan(0L,
+                    PageRequest.of(0, REBUILD_CHUNK_SIZE, ItemRepository.SORT_IDS_ASC));
+            while (!chunk.isEmpty()) {
+                List<Long> itemIds = chunk.stream().map(Item::getId).collect(Collectors.toList());
+                Map<Long, Long> bookings = bookingRepository.countByItemIdIn(itemIds).stream()
+                        .collect(Collectors.toMap(ItemBookingCount::getItemId, ItemBookingCount::getBookings));
+                for (Item item : chunk) {
+                    SuggestedItem suggestedItem = new SuggestedItem(item);
+                    write(() -> {
+                        if (changedWhileBuilding.getOrDefault(suggestedItem.id, -1L) <= suggestedItem.version) {
+                            popularity.put(suggestedItem.id, bookings.getOrDefault(suggestedItem.id, 0L));
+                            put(suggestedItem);
+                        }
+                    });
+                    indexed++;
+                }
+                Long lastId = chunk.get(chunk.size() - 1).getId();
+                chunk = itemRepository.findAllByIdGreaterThan(lastId,
+                        PageRequest.of(0, REBUILD_CHUNK_SIZE, ItemRepository.SORT_IDS_ASC));
+            }
+            write(() -> {
+                changedWhileBuilding.clear();
+                warm = true;
+            });
+            log.info("Item suggest trie built, {} items indexed", indexed);
+        } catch (RuntimeException exception) {
+            log.error("Item suggest trie build failed, suggestions are empty", exception);
+        }
+    }
+
+    /**
+     * Check trie is built and ready for suggestions
+     * @return true if trie is ready
+     */
+    public boolean isWarm() {
+        return warm;
+    }
+
+    /**
+     * Add, replace or remove item depending on its availability after current transaction is committed.
+     * Snapshot is taken after commit, so it has version of committed item.
+     * @param item item
+     */
+    public void index(final Item item) {
+        AfterCommit.run(() -> {
+            SuggestedItem suggestedItem = new SuggestedItem(item);
+            write(() -> {
+                markChanged(suggestedItem.id, suggestedItem.version);
+                put(suggestedItem);
+            });
+        });
+    }
+
+    /**
+     * Remove item from trie after current transaction is committed
+     * @param itemId item ID
+     */
+    public void remove(final Long itemId) {
+        AfterCommit.run(() -> write(() -> {
+            markChanged(itemId, Long.MAX_VALUE);
+            delete(itemId);
+            popularity.remove(itemId);
+        }));
+    }
+
+    /**
+     * Remove all items of deleted user from trie after user deletion is committed
+     * @param event user deleted event
+     */
+    @TransactionalEventListener
+    public void onUserDeleted(final UserDeletedEvent event) {
+        Long ownerId = event.getUserId();
+        write(() -> items.values().stream()
+                .filter(suggestedItem -> ownerId.equals(suggestedItem.ownerId))
+                .map(suggestedItem -> suggestedItem.id)
+                .collect(Collectors.toList())
+                .forEach(itemId -> {
+                    markChanged(itemId, Long.MAX_VALUE);
+                    delete(itemId);
+                    popularity.remove(itemId);
+                }));
+    }
+
+    /**
+     * Count booking of item after current transaction is committed, so item moves up in suggestions.
+     * Only items in trie are counted, others get their count from DB when trie is built.
+     * @param itemId item ID
+     */
+    public void addBooking(final Long itemId) {
+        AfterCommit.run(() -> write(() -> {
+            SuggestedItem suggestedItem = items.get(itemId);
+            if (suggestedItem != null) {
+                popularity.merge(itemId, 1L, Long::sum);
+                // Item can only move up, so it is offered again to nodes on paths of its tokens
+                suggestedItem.tokens.forEach(token -> path(token).forEach(node -> offer(node, itemId)));
+            }
+        }));
+    }
+
+    /**
+     * Suggest available items having name token which starts with the last word of prefix ignoring case
+     * @param prefix typed text
+     * @return the most booked items, equally booked items are ordered by ID
+     */
+    public List<ItemDto> suggest(final String prefix) {
+        List<String> tokens = ItemSearchIndex.tokenize(prefix == null ? null : prefix.toLowerCase(Locale.ROOT));
+        if (!warm || tokens.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String token = tokens.get(tokens.size() - 1);
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            Node node = find(token);
+            if (node == null) {
+                return new ArrayList<>();
+            }
+            return Arrays.stream(node.top)
+                    .mapToObj(items::get)
+                    .map(SuggestedItem::toItemDto)
+                    .collect(Collectors.toList());
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private void put(final SuggestedItem suggestedItem) {
+        delete(suggestedItem.id);
+        if (!suggestedItem.available) {
+            return;
+        }
+        items.put(suggestedItem.id, suggestedItem);
+        popularity.putIfAbsent(suggestedItem.id, 0L);
+        for (String token : suggestedItem.tokens) {
+            insert(token, suggestedItem.id);
+        }
+    }
+
+    private void delete(final Long itemId) {
+        SuggestedItem suggestedItem = items.remove(itemId);
+        if (suggestedItem == null) {
+            return;
+        }
+        for (String token : suggestedItem.tokens) {
+            remove(token, itemId);
+        }
+    }
+
+    // Add item to node of token, nodes are created and edges are split where token leaves trie
+    private void insert(final String token, final long itemId) {
+        Node node = root;
+        String rest = token;
+        while (!rest.isEmpty()) {
+            Node child = node.children.get(rest.charAt(0));
+            if (child == null) {
+                child = new Node(rest);
+                node.children.put(rest.charAt(0), child);
+            } else {
+                int common = commonPrefixLength(child.label, rest);
+                if (common < child.label.length()) {
+                    child = split(node, child, common);
+                }
+            }
+            rest = rest.substring(child.label.length());
+            node = child;
+            offer(node, itemId);
+        }
+        node.itemIds.add(itemId);
+    }
+
+    // Remove item from node of token, then nodes left without items are dropped and single child edges merged
+    private void remove(final String token, final long itemId) {
+        List<Node> path = path(token);
+        if (path.isEmpty()) {
+            return;
+        }
+        path.get(path.size() - 1).itemIds.remove(itemId);
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            if (contains(node.top, itemId)) {
+                node.top = top(node);
+            }
+        }
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            Node parent = i == 0 ? root : path.get(i - 1);
+            if (!node.itemIds.isEmpty()) {
+                continue;
+            }
+            if (node.children.isEmpty()) {
+                parent.children.remove(node.label.charAt(0));
+            } else if (node.children.size() == 1) {
+                Node child = node.children.values().iterator().next();
+                child.label = node.label + child.label;
+                parent.children.put(child.label.charAt(0), child);
+            }
+        }
+    }
+
+    // Nodes from root child to node whose label ends token, empty list if token is not in trie
+    private List<Node> path(final String token) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        String rest = token;
+        while (!rest.isEmpty()) {
+            node = node.children.get(rest.charAt(0));
+            if (node == null || !rest.startsWith(node.label)) {
+                return new ArrayList<>();
+            }
+            rest = rest.substring(node.label.length());
+            path.add(node);
+        }
+        return path;
+    }
+
+    // Node whose subtree holds all tokens starting with prefix or null if there are no such tokens
+    private Node find(final String prefix) {
+        Node node = root;
+        String rest = prefix;
+        while (!rest.isEmpty()) {
+            node = node.children.get(rest.charAt(0));
+            if (node == null) {
+                return null;
+            }
+            if (rest.length() <= node.label.length()) {
+                return node.label.startsWith(rest) ? node : null;
+            }
+            if (!rest.startsWith(node.label)) {
+                return null;
+            }
+            rest = rest.substring(node.label.length());
+        }
+        return node;
+    }
+
+    // Split child edge after common prefix, the new middle node takes child's place and keeps its best items
+    private static Node split(final Node parent, final Node child, final int common) {
+        Node middle = new Node(child.label.substring(0, common));
+        middle.top = child.top;
+        child.label = child.label.substring(common);
+        middle.children.put(child.label.charAt(0), child);
+        parent.children.put(middle.label.charAt(0), middle);
+        return middle;
+    }
+
+    // Put item into the best items of node if it is among them
+    private void offer(final Node node, final long itemId) {
+        long[] others = Arrays.stream(node.top).filter(id -> id != itemId).toArray();
+        int position = 0;
+        while (position < others.length && isBefore(others[position], itemId)) {
+            position++;
+        }
+        int limit = searchProperties.getSuggestions();
+        if (position >= limit) {
+            node.top = others;
+            return;
+        }
+        long[] top = new long[Math.min(others.length + 1, limit)];
+        System.arraycopy(others, 0, top, 0, position);
+        top[position] = itemId;
+        System.arraycopy(others, position, top, position + 1, top.length - position - 1);
+        node.top = top;
+    }
+
+    // The best items of node's own items and the best items of its children
+    private long[] top(final Node node) {
+        int limit = searchProperties.getSuggestions();
+        PriorityQueue<Long> best = new PriorityQueue<>(limit + 1, (id1, id2) -> isBefore(id1, id2) ? 1 : -1);
+        Set<Long> candidates = new HashSet<>(node.itemIds);
+        node.children.values().forEach(child -> Arrays.stream(child.top).forEach(candidates::add));
+        for (Long candidate : candidates) {
+            best.offer(candidate);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        long[] top = new long[best.size()];
+        for (int i = top.length - 1; i >= 0; i--) {
+            top[i] = best.poll();
+        }
+        return top;
+    }
+
+    // Is item suggested before other one
+    private boolean isBefore(final long itemId, final long otherId) {
+        long bookings = popularity.getOrDefault(itemId, 0L);
+        long otherBookings = popularity.getOrDefault(otherId, 0L);
+        return bookings > otherBookings || (bookings == otherBookings && itemId < otherId);
+    }
+
+    private static boolean contains(final long[] itemIds, final long itemId) {
+        return Arrays.stream(itemIds).anyMatch(id -> id == itemId);
+    }
+
+    private static int commonPrefixLength(final String first, final String second) {
+        int length = Math.min(first.length(), second.length());
+        int common = 0;
+        while (common < length && first.charAt(common) == second.charAt(common)) {
+            common++;
+        }
+        return common;
+    }
+
+    private void markChanged(final Long itemId, final long version) {
+        if (!warm) {
+            changedWhileBuilding.merge(itemId, version, Math::max);
+        }
+    }
+
+    private void write(final Runnable action) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            action.run();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Trie node, edge from parent is labeled with part of token
+    private static final class Node {
+        private String label;
+        private final Map<Character, Node> children = new HashMap<>();
+        // Items having token which ends at this node
+        private final Set<Long> itemIds = new HashSet<>();
+        // The most booked items in subtree of this node
+        private long[] top = NO_ITEMS;
+
+        private Node(final String label) {
+            this.label = label;
+        }
+    }
+
+    // Snapshot of item fields needed for suggestions and for building item DTO
+    private static final class SuggestedItem {
+        private final Long id;
+        private final long version;
+        private final String name;
+        private final String description;
+        private final boolean available;
+        private final Long ownerId;
+        private final Long requestId;
+        private final List<String> tokens;
+
+        private SuggestedItem(final Item item) {
+            id = item.getId();
+            version = item.getVersion();
+            name = item.getName();
+            description = item.getDescription();
+            available = Boolean.TRUE.equals(item.getAvailable());
+            ownerId = item.getOwner() == null ? null : item.getOwner().getId();
+            requestId = item.getRequest() == null ? null : item.getRequest().getId();
+            tokens = ItemSearchIndex.tokenize(name == null ? null : name.toLowerCase(Locale.ROOT));
+        }
+
+        private ItemDto toItemDto() {
+            ItemDto itemDto = new ItemDto();
+            itemDto.setId(id);
+            itemDto.setName(name);
+            itemDto.setDescription(description);
+            itemDto.setAvailable(available);
+            itemDto.setOwnerId(ownerId);
+            itemDto.setRequestId(requestId);
+            return itemDto;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.practicum.shareit.item;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+import java.util.Map;
+
+/**
+ * Actuator endpoint rebuilding item summaries from items, comments and bookings,
+ * run by JMX operation {@code rebuild} of {@code org.springframework.boot:type=Endpoint,name=Itemsummary}.
+ * It is not exposed over HTTP
+ * @author Evgeniy Lee
+ */
+@Component
+@Endpoint(id = "itemsummary")
+@RequiredArgsConstructor
+public class ItemSummaryEndpoint {
+    // Item summaries
+    private final ItemSummaryUpdater summaryUpdater;
+
+    @WriteOperation
+    public Map<String, Long> rebuild() {
+        return Map.of("items", summaryUpdater.rebuild());
+    }
+}
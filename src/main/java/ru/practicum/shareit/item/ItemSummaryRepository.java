@@ -0,0 +1,82 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.model.ItemSummary;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Item summary repository
+ * @author Evgeniy Lee
+ */
+public interface ItemSummaryRepository extends JpaRepository<ItemSummary, Long> {
+    // Page of owner summaries is read by range scan of index on owner ID and item ID
+    List<ItemSummary> findByOwnerId(Long ownerId, Pageable pageable);
+
+    List<ItemSummary> findByOwnerIdAndItemIdGreaterThan(Long ownerId, Long itemId, Pageable pageable);
+
+    // Summaries whose next booking has started, read by chunks of item IDs
+    List<ItemSummary> findByNextBookingStartLessThanEqualAndItemIdGreaterThan(LocalDateTime date, Long itemId,
+                                                                             Pageable pageable);
+
+    @Query("SELECT summary.itemId FROM ItemSummary summary " +
+            "WHERE summary.lastBookerId = :bookerId OR summary.nextBookerId = :bookerId")
+    List<Long> findItemIdsByBookerId(@Param("bookerId") Long bookerId);
+
+    // Booking replaces last booking of item summary if it starts later, summary is not loaded
+    @Modifying
+    @Query("UPDATE ItemSummary summary SET summary.lastBookingId = :bookingId, summary.lastBookerId = :bookerId, " +
+            "summary.lastBookingStart = :start, summary.lastBookingEnd = :end " +
+            "WHERE summary.itemId = :itemId " +
+            "AND (summary.lastBookingStart IS NULL OR summary.lastBookingStart < :start)")
+    int updateLastBooking(@Param("itemId") Long itemId, @Param("bookingId") Long bookingId,
+                          @Param("bookerId") Long bookerId, @Param("start") LocalDateTime start,
+                          @Param("end") LocalDateTime end);
+
+    // Booking replaces next booking of item summary if it starts earlier
+    @Modifying
+    @Query("UPDATE ItemSummary summary SET summary.nextBookingId = :bookingId, summary.nextBookerId = :bookerId, " +
+            "summary.nextBookingStart = :start, summary.nextBookingEnd = :end " +
+            "WHERE summary.itemId = :itemId " +
+            "AND (summary.nextBookingStart IS NULL OR summary.nextBookingStart > :start)")
+    int updateNextBooking(@Param("itemId") Long itemId, @Param("bookingId") Long bookingId,
+                          @Param("bookerId") Long bookerId, @Param("start") LocalDateTime start,
+                          @Param("end") LocalDateTime end);
+
+    // Last and next bookings found again replace summarized ones unless approval changed them since summary was read,
+    // missing booking IDs are compared as 0
+    @Modifying
+    @Query("UPDATE ItemSummary summary SET " +
+            "summary.lastBookingId = :#{#found.lastBookingId}, summary.lastBookerId = :#{#found.lastBookerId}, " +
+            "summary.lastBookingStart = :#{#found.lastBookingStart}, " +
+            "summary.lastBookingEnd = :#{#found.lastBookingEnd}, " +
+            "summary.nextBookingId = :#{#found.nextBookingId}, summary.nextBookerId = :#{#found.nextBookerId}, " +
+            "summary.nextBookingStart = :#{#found.nextBookingStart}, " +
+            "summary.nextBookingEnd = :#{#found.nextBookingEnd} " +
+            "WHERE summary.itemId = :#{#found.itemId} " +
+            "AND COALESCE(summary.lastBookingId, 0) = :lastBookingId " +
+            "AND COALESCE(summary.nextBookingId, 0) = :nextBookingId")
+    int replaceBookings(@Param("found") ItemSummary found, @Param("lastBookingId") long lastBookingId,
+                        @Param("nextBookingId") long nextBookingId);
+
+    // Item columns are copied from items by the statement, so item updated concurrently is not overwritten
+    // by its copy read before
+    @Modifying
+    @Query("UPDATE ItemSummary summary SET " +
+            "summary.ownerId = (SELECT item.owner.id FROM Item item WHERE item.id = summary.itemId), " +
+            "summary.name = (SELECT item.name FROM Item item WHERE item.id = summary.itemId), " +
+            "summary.description = (SELECT item.description FROM Item item WHERE item.id = summary.itemId), " +
+            "summary.available = (SELECT item.available FROM Item item WHERE item.id = summary.itemId), " +
+            "summary.requestId = (SELECT item.request.id FROM Item item WHERE item.id = summary.itemId), " +
+            "summary.commentCount = (SELECT item.commentCount FROM Item item WHERE item.id = summary.itemId) " +
+            "WHERE summary.itemId IN :itemIds")
+    int copyItems(@Param("itemIds") Collection<Long> itemIds);
+
+    Sort SORT_ITEM_IDS_ASC = Sort.by(Sort.Direction.ASC, "itemId");
+}
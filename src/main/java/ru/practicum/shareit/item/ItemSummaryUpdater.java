@@ -0,0 +1,285 @@
+package ru.practicum.shareit.item;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemSummary;
+import ru.practicum.shareit.user.UserDeletedEvent;
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps item summaries in sync with items, comments and approved bookings.
+ * Summaries are changed by write operations of item, booking and user services in their transactions.
+ * Last and next bookings depend on current time, so summaries whose next booking has started are advanced
+ * by scheduled job, and found again in memory when they are read before.
+ * @author Evgeniy Lee
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemSummaryUpdater {
+    // Count of items summarized or advanced per one query
+    private static final int REBUILD_CHUNK_SIZE = 1000;
+
+    // Item summary DB repository
+    private final ItemSummaryRepository summaryRepository;
+    // Item DB repository
+    private final ItemRepository itemRepository;
+    // Booking DB repository
+    private final BookingRepository bookingRepository;
+    // Persists new summaries without checking they exist, flushes and clears rebuilt chunks
+    private final EntityManager entityManager;
+    // Runs every rebuilt chunk in its own transaction
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Create summary of new item
+     * @param item item with ID
+     */
+    public void create(final Item item) {
+        entityManager.persist(summarize(item));
+    }
+
+    /**
+     * Copy changed item columns and comment count to its summary.
+     * Summary missing until rebuild, e.g. of item inserted by SQL, is created.
+     * @param item item
+     */
+    public void update(final Item item) {
+        Optional<ItemSummary> summary = summaryRepository.findById(item.getId());
+        if (summary.isPresent()) {
+            copy(item, summary.get());
+            return;
+        }
+        ItemSummary createdSummary = summarize(item);
+        setBookings(List.of(createdSummary), LocalDateTime.now());
+        entityManager.persist(createdSummary);
+    }
+
+    /**
+     * Set approved booking as last or next booking of item if it is closer to current time than summarized ones.
+     * Summary is changed by one conditional update, so concurrent approvals of item bookings are not lost.
+     * @param booking booking
+     */
+    public void addBooking(final Booking booking) {
+        if (booking.getStatus() != BookingStatus.APPROVED) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (booking.getStart().isBefore(now)) {
+            summaryRepository.updateLastBooking(booking.getItem().getId(), booking.getId(),
+                    booking.getBooker().getId(), booking.getStart(), booking.getEnd());
+        } else if (booking.getStart().isAfter(now)) {
+            summaryRepository.updateNextBooking(booking.getItem().getId(), booking.getId(),
+                    booking.getBooker().getId(), booking.getStart(), booking.getEnd());
+        }
+    }
+
+    /**
+     * Find last and next bookings again for items whose summaries show bookings of deleted user.
+     * Runs before deleting transaction is committed, when bookings of user are already deleted by cascade.
+     * @param event user deleted event
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onUserDeleted(final UserDeletedEvent event) {
+        refresh(summaryRepository.findItemIdsByBookerId(event.getUserId()));
+    }
+
+    /**
+     * Copy item columns and comment count and find last and next bookings of items again,
+     * e.g. after comments and bookings of deleted user were deleted
+     * @param itemIds item IDs
+     */
+    public void refresh(final Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        summaryRepository.copyItems(itemIds);
+        replaceBookings(summaryRepository.findAllById(itemIds), LocalDateTime.now());
+    }
+
+    /**
+     * Find last and next bookings again for summaries whose next booking has started. Summaries are detached
+     * and changed only in memory, so they are read in read-only transaction, stored summaries are advanced
+     * by {@link #advanceExpired()}.
+     * @param summaries item summaries
+     */
+    public void setExpiredBookings(final List<ItemSummary> summaries) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ItemSummary> expired = summaries.stream()
+                .filter(summary -> isExpired(summary, now))
+                .collect(Collectors.toList());
+        if (!expired.isEmpty()) {
+            expired.forEach(entityManager::detach);
+            setBookings(expired, now);
+        }
+    }
+
+    /**
+     * Advance stored summaries whose next booking has started. Summaries are advanced by chunks in separate
+     * transactions and written by conditional updates, so bookings set by concurrent approvals are not overwritten.
+     * @return count of advanced summaries
+     */
+    @Scheduled(fixedDelayString = "${shareit.item.summary.advance-delay}",
+            initialDelayString = "${shareit.item.summary.advance-delay}")
+    public long advanceExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        long advanced = 0;
+        List<Long> itemIds = transactionTemplate.execute(status -> advanceExpiredChunk(0L, now));
+        while (!itemIds.isEmpty()) {
+            advanced += itemIds.size();
+            Long lastId = itemIds.get(itemIds.size() - 1);
+            itemIds = transactionTemplate.execute(status -> advanceExpiredChunk(lastId, now));
+        }
+        if (advanced > 0) {
+            log.debug("Item summaries advanced, {} expired summaries found", advanced);
+        }
+        return advanced;
+    }
+
+    /**
+     * Rebuild all summaries from items and approved bookings. Items are summarized by chunks in separate
+     * transactions, missing summaries are inserted and existing ones are updated in place by conditional updates,
+     * so summaries stay readable and concurrent item and booking writes are not overwritten.
+     * @return count of summarized items
+     */
+    public long rebuild() {
+        long rebuilt = 0;
+        List<Long> itemIds = transactionTemplate.execute(status -> rebuildChunk(0L));
+        while (!itemIds.isEmpty()) {
+            rebuilt += itemIds.size();
+            Long lastId = itemIds.get(itemIds.size() - 1);
+            itemIds = transactionTemplate.execute(status -> rebuildChunk(lastId));
+        }
+        log.info("Item summaries rebuilt, {} items summarized", rebuilt);
+        return rebuilt;
+    }
+
+    // Advance chunk of expired summaries following item ID, summary whose next booking starts now stays expired,
+    // so chunks are read by item IDs and it is not read again
+    private List<Long> advanceExpiredChunk(final Long afterId, final LocalDateTime now) {
+        List<ItemSummary> expired = summaryRepository.findByNextBookingStartLessThanEqualAndItemIdGreaterThan(now,
+                afterId, PageRequest.of(0, REBUILD_CHUNK_SIZE, ItemSummaryRepository.SORT_ITEM_IDS_ASC));
+        if (!expired.isEmpty()) {
+            replaceBookings(expired, now);
+        }
+        return expired.stream().map(ItemSummary::getItemId).collect(Collectors.toList());
+    }
+
+    private static boolean isExpired(final ItemSummary summary, final LocalDateTime now) {
+        return summary.getNextBookingStart() != null && !summary.getNextBookingStart().isAfter(now);
+    }
+
+    // Summarize chunk of items following item ID, item committed with its summary is never inserted twice
+    private List<Long> rebuildChunk(final Long afterId) {
+        List<Item> items = itemRepository.findAllByIdGreaterThan(afterId,
+                PageRequest.of(0, REBUILD_CHUNK_SIZE, ItemRepository.SORT_IDS_ASC));
+        List<Long> itemIds = items.stream().map(Item::getId).collect(Collectors.toList());
+        if (items.isEmpty()) {
+            return itemIds;
+        }
+        List<ItemSummary> stored = summaryRepository.findAllById(itemIds);
+        Set<Long> storedIds = stored.stream().map(ItemSummary::getItemId).collect(Collectors.toSet());
+        LocalDateTime now = LocalDateTime.now();
+        List<ItemSummary> missing = items.stream()
+                .filter(item -> !storedIds.contains(item.getId()))
+                .map(ItemSummaryUpdater::summarize)
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            setBookings(missing, now);
+            missing.forEach(entityManager::persist);
+        }
+        if (!stored.isEmpty()) {
+            summaryRepository.copyItems(storedIds);
+            replaceBookings(stored, now);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return itemIds;
+    }
+
+    // Find last and next bookings of summaries again and write them by conditional updates.
+    // Summaries are detached, so they hold found bookings without being written at flush
+    private void replaceBookings(final List<ItemSummary> summaries, final LocalDateTime now) {
+        Map<Long, Long> lastBookingIds = summaries.stream()
+                .collect(Collectors.toMap(ItemSummary::getItemId, summary -> idOrZero(summary.getLastBookingId())));
+        Map<Long, Long> nextBookingIds = summaries.stream()
+                .collect(Collectors.toMap(ItemSummary::getItemId, summary -> idOrZero(summary.getNextBookingId())));
+        summaries.forEach(entityManager::detach);
+        setBookings(summaries, now);
+        for (ItemSummary summary : summaries) {
+            summaryRepository.replaceBookings(summary, lastBookingIds.get(summary.getItemId()),
+                    nextBookingIds.get(summary.getItemId()));
+        }
+    }
+
+    private static long idOrZero(final Long id) {
+        return id == null ? 0 : id;
+    }
+
+    // Set the latest past and the earliest future approved bookings of items by one DB query
+    private void setBookings(final List<ItemSummary> summaries, final LocalDateTime now) {
+        Map<Long, ItemSummary> summariesByItemIds = summaries.stream()
+                .collect(Collectors.toMap(ItemSummary::getItemId, Function.identity()));
+        for (ItemSummary summary : summaries) {
+            setLastBooking(summary, null);
+            setNextBooking(summary, null);
+        }
+        List<Long> itemIds = List.copyOf(summariesByItemIds.keySet());
+        for (Booking booking : bookingRepository.findLastAndNextByItemIdIn(itemIds, now)) {
+            ItemSummary summary = summariesByItemIds.get(booking.getItem().getId());
+            if (booking.getStart().isBefore(now)) {
+                setLastBooking(summary, booking);
+            } else {
+                setNextBooking(summary, booking);
+            }
+        }
+    }
+
+    private static ItemSummary summarize(final Item item) {
+        ItemSummary summary = new ItemSummary();
+        copy(item, summary);
+        return summary;
+    }
+
+    private static void copy(final Item item, final ItemSummary summary) {
+        summary.setItemId(item.getId());
+        summary.setOwnerId(item.getOwner().getId());
+        summary.setName(item.getName());
+        summary.setDescription(item.getDescription());
+        summary.setAvailable(item.getAvailable());
+        summary.setRequestId(item.getRequest() == null ? null : item.getRequest().getId());
+        summary.setCommentCount(item.getCommentCount());
+    }
+
+    private static void setLastBooking(final ItemSummary summary, final Booking booking) {
+        summary.setLastBookingId(booking == null ? null : booking.getId());
+        summary.setLastBookerId(booking == null ? null : booking.getBooker().getId());
+        summary.setLastBookingStart(booking == null ? null : booking.getStart());
+        summary.setLastBookingEnd(booking == null ? null : booking.getEnd());
+    }
+
+    private static void setNextBooking(final ItemSummary summary, final Booking booking) {
+        summary.setNextBookingId(booking == null ? null : booking.getId());
+        summary.setNextBookerId(booking == null ? null : booking.getBooker().getId());
+        summary.setNextBookingStart(booking == null ? null : booking.getStart());
+        summary.setNextBookingEnd(booking == null ? null : booking.getEnd());
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Interval of time from start inclusive to end exclusive
+ * @author Evgeniy Lee
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IntervalDto {
+    // Start of interval
+    private LocalDateTime start;
+    // End of interval
+    private LocalDateTime end;
+}
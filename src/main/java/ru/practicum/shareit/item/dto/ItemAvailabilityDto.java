@@ -0,0 +1,27 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Busy and free intervals of item within period, both sorted by start and covering the period together
+ * @author Evgeniy Lee
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemAvailabilityDto {
+    // Item ID
+    private Long itemId;
+    // Start of period
+    private LocalDateTime from;
+    // End of period, earlier than requested one when item has more bookings than returned at once
+    private LocalDateTime to;
+    // Merged intervals of waiting and approved bookings
+    private List<IntervalDto> busy;
+    // Intervals between busy ones
+    private List<IntervalDto> free;
+}
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of creating one element of item batch, holds either created item or validation error
+ * @author Evgeniy Lee
+ */
+@Data
+@NoArgsConstructor
+public class ItemBatchResultDto {
+    // Index of element in batch
+    private int index;
+    // Created item
+    private ItemDto item;
+    // Why element was not created
+    private String error;
+
+    public ItemBatchResultDto(final int index) {
+        this.index = index;
+    }
+}
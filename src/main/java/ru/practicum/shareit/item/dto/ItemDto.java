@@ -2,6 +2,7 @@ package ru.practicum.shareit.item.dto;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import ru.practicum.shareit.booking.dto.BriefBookingDto;
 
 import javax.validation.constraints.NotBlank;
@@ -13,6 +14,7 @@ import java.util.List;
  * @author Evgeniy Lee
  */
 @Data
+@NoArgsConstructor
 public class ItemDto {
     // Item ID
     private Long id;
@@ -28,12 +30,36 @@ public class ItemDto {
     // Item owner ID
     @JsonIgnore
     private Long ownerId;
-    // List of comments
+    // The latest comments in order of creation, the rest are paged by comments of item
     private List<CommentDto> comments;
+    // Count of all item comments
+    private Integer commentCount;
     // Last booking
     private BriefBookingDto lastBooking;
     // Next booking
     private BriefBookingDto nextBooking;
     // Request ID
     private Long requestId;
+
+    /**
+     * Create item DTO from item columns
+     */
+    public ItemDto(final Long id, final String name, final String description, final Boolean available,
+                   final Long ownerId, final Long requestId) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.available = available;
+        this.ownerId = ownerId;
+        this.requestId = requestId;
+    }
+
+    /**
+     * Create item DTO from item columns and comment count, used by JPQL constructor expressions of list queries
+     */
+    public ItemDto(final Long id, final String name, final String description, final Boolean available,
+                   final Long ownerId, final Long requestId, final Integer commentCount) {
+        this(id, name, description, available, ownerId, requestId);
+        this.commentCount = commentCount;
+    }
 }
@@ -1,6 +1,9 @@
 package ru.practicum.shareit.item.model;
 
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.User;
 import javax.persistence.Entity;
@@ -8,9 +11,13 @@ import javax.persistence.Table;
 import javax.persistence.Id;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Column;
 import javax.persistence.ManyToOne;
+import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
+import javax.persistence.Cacheable;
+import javax.persistence.Version;
 
 /**
  * Item class holds info for items
@@ -18,11 +25,19 @@ import javax.persistence.JoinColumn;
  */
 @Entity
 @Table(name = "items")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Item.CACHE_REGION)
+// Update writes changed columns only, so item update does not overwrite comment count incremented meanwhile
+@DynamicUpdate
 @Data
 public class Item {
+    // Second-level cache region
+    public static final String CACHE_REGION = "items";
+
     // Item ID
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_seq")
+    @SequenceGenerator(name = "items_seq", sequenceName = "items_seq", allocationSize = 50)
     private Long id;
 
     // Item name
@@ -38,12 +53,20 @@ public class Item {
     private Boolean available;
 
     // Item owner
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "owner_id", referencedColumnName = "id")
     private User owner;
 
     // Item request for booking
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "request_id")
     private ItemRequest request;
+
+    // Count of item comments, incremented when comment is created
+    @Column(name = "comment_count", nullable = false)
+    private int commentCount;
+
+    // Version incremented by every update, update of item changed by concurrent transaction fails
+    @Version
+    private long version;
 }
@@ -0,0 +1,76 @@
+package ru.practicum.shareit.item.model;
+
+import lombok.Data;
+import org.hibernate.annotations.DynamicUpdate;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Item summary holds item columns, comment count and the last and next approved bookings,
+ * so owner items are read from one table
+ * @author Evgeniy Lee
+ */
+@Entity
+@Table(name = "item_summary")
+@Data
+// Only changed columns are written, so copy of item columns does not overwrite bookings set by approvals
+@DynamicUpdate
+public class ItemSummary {
+    // Item ID
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+
+    // Item owner ID
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    // Item name
+    @Column(length = 255, nullable = false)
+    private String name;
+
+    // Item description
+    @Column(length = 1000, nullable = false)
+    private String description;
+
+    // Is item available
+    @Column(name = "is_available")
+    private Boolean available;
+
+    // Item request ID
+    @Column(name = "request_id")
+    private Long requestId;
+
+    // Count of item comments
+    @Column(name = "comment_count", nullable = false)
+    private int commentCount;
+
+    // The latest approved booking started before summary was updated
+    @Column(name = "last_booking_id")
+    private Long lastBookingId;
+
+    @Column(name = "last_booker_id")
+    private Long lastBookerId;
+
+    @Column(name = "last_booking_start")
+    private LocalDateTime lastBookingStart;
+
+    @Column(name = "last_booking_end")
+    private LocalDateTime lastBookingEnd;
+
+    // The earliest approved booking starting after summary was updated, summary expires when it starts
+    @Column(name = "next_booking_id")
+    private Long nextBookingId;
+
+    @Column(name = "next_booker_id")
+    private Long nextBookerId;
+
+    @Column(name = "next_booking_start")
+    private LocalDateTime nextBookingStart;
+
+    @Column(name = "next_booking_end")
+    private LocalDateTime nextBookingEnd;
+}
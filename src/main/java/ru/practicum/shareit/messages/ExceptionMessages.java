@@ -7,4 +7,11 @@ public interface ExceptionMessages {
     String UNKNOWN_STATE = "Unknown state: %s";
     String INVALID_DATA = "Data not valid";
     String NO_BOOKER_FOR_ITEM = "Booker or item for comment not found";
+    String INVALID_CURSOR = "Invalid page cursor";
+    String REQUEST_NOT_FOUND = "Request not found: %d";
+    String BOOKING_OVERLAP = "Booking overlaps another booking of item";
+    String DATA_CHANGED = "Data changed by concurrent request";
+    String VERSION_MISMATCH = "Version %d does not match current version %d";
+    String INVALID_VERSION = "Invalid version: %s";
+    String INVALID_PERIOD = "Period start must be before its end";
 }
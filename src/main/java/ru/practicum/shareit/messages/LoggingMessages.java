@@ -2,14 +2,21 @@ package ru.practicum.shareit.messages;
 
 public enum LoggingMessages {
     CREATE("Creating data {}"),
+    CREATE_BATCH("Creating batch of {} elements"),
     GET("Getting data with id {}"),
     GET_ALL("Getting all data"),
     UPDATE("Updating data {}"),
     DELETE("Deleting data with id {}"),
     GET_ITEMS_BY_OWNER_ID("Getting items by owner ID"),
+    STREAM_ITEMS_BY_OWNER_ID("Streaming items by owner ID"),
+    STREAM_ITEMS_BY_TEXT("Streaming items by text in name or description"),
     SEARCH_ITEMS_BY_TEXT("Searching items by text in name or description"),
+    SUGGEST_ITEMS_BY_PREFIX("Suggesting items by name prefix {}"),
     POST_COMMENT("Post comment to item with id = {}, text = {}"),
+    GET_COMMENTS_BY_ITEM_ID("Getting comments of item with id {}"),
+    GET_ITEM_AVAILABILITY("Getting availability of item with id {} from {} to {}"),
     APPROVE_BOOKING("Approve booking with id {}"),
+    APPROVE_BATCH("Approve batch of {} bookings"),
     GET_BOOKINGS_BY_USER_ID("Getting bookings by user id {}"),
     GET_BOOKINGS_BY_OWNER_ID("Getting bookings by owner id {}");
 
@@ -2,10 +2,12 @@ package ru.practicum.shareit.request;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.messages.LoggingMessages;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.util.SeekCursor;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
@@ -45,11 +47,16 @@ public class ItemRequestController {
     }
 
     @GetMapping("/all")
-    public List<ItemRequestDto> getAllRequestOtherUsers(
+    public ResponseEntity<List<ItemRequestDto>> getAllRequestOtherUsers(
             @RequestHeader(name = "X-Sharer-User-Id") long requesterId,
             @RequestParam(name = "from", defaultValue = "0") @PositiveOrZero Integer from,
-            @RequestParam(name = "size", defaultValue = "10") @Positive Integer size
+            @RequestParam(name = "size", defaultValue = "10") @Positive Integer size,
+            @RequestParam(name = "after", required = false) String after
     ) {
-        return service.getAllOtherUsers(requesterId, from, size);
+        List<ItemRequestDto> requests = after == null
+                ? service.getAllOtherUsers(requesterId, from, size)
+                : service.getAllOtherUsers(requesterId, SeekCursor.decodeDateAndId(after), size);
+        return SeekCursor.toResponseEntity(requests, size,
+                request -> SeekCursor.of(request.getCreated(), request.getId()));
     }
 }
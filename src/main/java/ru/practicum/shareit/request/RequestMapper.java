@@ -2,8 +2,7 @@ package ru.practicum.shareit.request;
 
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
-import ru.practicum.shareit.item.ItemMapper;
-import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 import java.util.ArrayList;
@@ -34,16 +33,12 @@ public class RequestMapper {
     }
 
     public static List<ItemRequestDto> toItemRequestDtoList(
-            List<ItemRequest> requests,
-            Map<Long, List<Item>> itemsGroupByRequestIds
+            List<ItemRequestDto> requests,
+            Map<Long, List<ItemDto>> itemsGroupByRequestIds
     ) {
-        List<ItemRequestDto> itemRequestDtoList = new ArrayList<>();
-        for (ItemRequest request : requests) {
-            ItemRequestDto itemRequestDto = RequestMapper.toItemRequestDto(request);
-            List<Item> items = itemsGroupByRequestIds.get(request.getId());
-            itemRequestDto.setItems(ItemMapper.toItemDtoList(items));
-            itemRequestDtoList.add(itemRequestDto);
+        for (ItemRequestDto request : requests) {
+            request.setItems(itemsGroupByRequestIds.getOrDefault(request.getId(), new ArrayList<>()));
         }
-        return itemRequestDtoList;
+        return requests;
     }
 }
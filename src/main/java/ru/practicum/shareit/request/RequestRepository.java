@@ -3,14 +3,38 @@ package ru.practicum.shareit.request;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.model.ItemRequest;
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface RequestRepository extends JpaRepository<ItemRequest, Long> {
 
-    List<ItemRequest> findAllByRequesterId(Long requesterId, Pageable pageable);
+    // Selects request DTO with request columns, so list queries do not load managed entities
+    String SELECT_REQUEST_DTO = "SELECT new ru.practicum.shareit.request.dto.ItemRequestDto(" +
+            "request.id, request.description, request.created) " +
+            "FROM ItemRequest request ";
 
-    List<ItemRequest> findAllByRequesterIdNot(Long requesterId, Pageable pageable);
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    @Query(SELECT_REQUEST_DTO + "WHERE request.requester.id = :requesterId")
+    List<ItemRequestDto> findAllByRequesterId(@Param("requesterId") Long requesterId, Pageable pageable);
+
+    @Query(SELECT_REQUEST_DTO + "WHERE request.requester.id <> :requesterId")
+    List<ItemRequestDto> findAllByRequesterIdNot(@Param("requesterId") Long requesterId, Pageable pageable);
+
+    // Cursor predicate is bounded by creation date, so requests are read by range scan of index on it
+    @Query(SELECT_REQUEST_DTO +
+            "WHERE request.requester.id <> :requesterId " +
+            "AND request.created >= :created AND (request.created > :created OR request.id > :id)")
+    List<ItemRequestDto> findAllByRequesterIdNotAfterCursor(@Param("requesterId") Long requesterId,
+                                                            @Param("created") LocalDateTime created,
+                                                            @Param("id") Long id, Pageable pageable);
 
     Sort SORT_CREATE_DATE_ASC = Sort.by(Sort.Direction.ASC, "created");
+
+    Sort SORT_CREATE_DATE_ID_ASC = Sort.by(Sort.Direction.ASC, "created", "id");
 }
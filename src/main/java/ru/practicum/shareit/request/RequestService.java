@@ -1,6 +1,7 @@
 package ru.practicum.shareit.request;
 
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.util.SeekCursor;
 
 import java.util.List;
 
@@ -12,4 +13,6 @@ public interface RequestService {
     ItemRequestDto get(Long requestId, Long requesterId);
 
     List<ItemRequestDto> getAllOtherUsers(Long requesterId, Integer from, Integer size);
+
+    List<ItemRequestDto> getAllOtherUsers(Long requesterId, SeekCursor after, Integer size);
 }
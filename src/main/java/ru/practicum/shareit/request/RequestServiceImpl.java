@@ -1,18 +1,20 @@
 package ru.practicum.shareit.request;
 
 import lombok.AllArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.DataNotFoundException;
-import ru.practicum.shareit.item.ItemMapper;
 import ru.practicum.shareit.item.ItemRepository;
-import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.messages.ExceptionMessages;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.util.PageSettings;
+import ru.practicum.shareit.util.SeekCursor;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -34,44 +36,58 @@ public class RequestServiceImpl implements RequestService {
         return RequestMapper.toItemRequestDto(requestRepository.save(request));
     }
 
+    @Transactional(readOnly = true)
     @Override
     public List<ItemRequestDto> getAllByRequesterId(Long requesterId, Integer from, Integer size) {
         User requester = getUserById(requesterId);
         Pageable pageable = new PageSettings(from, size, RequestRepository.SORT_CREATE_DATE_ASC);
-        List<ItemRequest> requests = requestRepository.findAllByRequesterId(requester.getId(), pageable);
-        List<Long> requestIds = requests.stream().map(ItemRequest::getId).collect(Collectors.toList());
-        Map<Long, List<Item>> itemsGroupByRequestIds = getItemsByRequestIds(requestIds);
+        List<ItemRequestDto> requests = requestRepository.findAllByRequesterId(requester.getId(), pageable);
+        List<Long> requestIds = requests.stream().map(ItemRequestDto::getId).collect(Collectors.toList());
+        Map<Long, List<ItemDto>> itemsGroupByRequestIds = getItemsByRequestIds(requestIds);
         return RequestMapper.toItemRequestDtoList(requests, itemsGroupByRequestIds);
     }
 
+    @Transactional(readOnly = true)
     @Override
     public ItemRequestDto get(Long requestId, Long requesterId) {
         User requester = getUserById(requesterId);
         ItemRequest request = requestRepository.findById(requestId)
                 .orElseThrow(() -> new DataNotFoundException(ExceptionMessages.DATA_NOT_FOUND));
         ItemRequestDto itemRequestDto = RequestMapper.toItemRequestDto(request);
-        Map<Long, List<Item>> itemsGroupByRequestIds = getItemsByRequestIds(Arrays.asList(requestId));
-        List<Item> items = itemsGroupByRequestIds.get(request.getId());
-        itemRequestDto.setItems(ItemMapper.toItemDtoList(items));
+        Map<Long, List<ItemDto>> itemsGroupByRequestIds = getItemsByRequestIds(Arrays.asList(requestId));
+        itemRequestDto.setItems(itemsGroupByRequestIds.getOrDefault(request.getId(), new ArrayList<>()));
         return itemRequestDto;
     }
 
+    @Transactional(readOnly = true)
     @Override
     public List<ItemRequestDto> getAllOtherUsers(Long requesterId, Integer from, Integer size) {
         User requester = getUserById(requesterId);
         Pageable pageable = new PageSettings(from, size, RequestRepository.SORT_CREATE_DATE_ASC);
-        List<ItemRequest> requests = requestRepository.findAllByRequesterIdNot(requester.getId(), pageable);
-        List<Long> requestIds = requests.stream().map(ItemRequest::getId).collect(Collectors.toList());
-        Map<Long, List<Item>> itemsGroupByRequestIds = getItemsByRequestIds(requestIds);
+        List<ItemRequestDto> requests = requestRepository.findAllByRequesterIdNot(requester.getId(), pageable);
+        List<Long> requestIds = requests.stream().map(ItemRequestDto::getId).collect(Collectors.toList());
+        Map<Long, List<ItemDto>> itemsGroupByRequestIds = getItemsByRequestIds(requestIds);
         return RequestMapper.toItemRequestDtoList(requests, itemsGroupByRequestIds);
     }
 
-    private Map<Long, List<Item>> getItemsByRequestIds(final List<Long> requestIds) {
-        Map<Long, List<Item>> itemsGroupByRequestIds = new HashMap<>();
-        List<Item> items = itemRepository.findByRequestIdIn(requestIds);
-        for (Item item : items) {
-            Long requestId = item.getRequest().getId();
-            List<Item> itemsByRequestId = itemsGroupByRequestIds.get(requestId);
+    @Transactional(readOnly = true)
+    @Override
+    public List<ItemRequestDto> getAllOtherUsers(Long requesterId, SeekCursor after, Integer size) {
+        User requester = getUserById(requesterId);
+        Pageable pageable = PageRequest.of(0, size, RequestRepository.SORT_CREATE_DATE_ID_ASC);
+        List<ItemRequestDto> requests = requestRepository
+                .findAllByRequesterIdNotAfterCursor(requester.getId(), after.getDate(), after.getId(), pageable);
+        List<Long> requestIds = requests.stream().map(ItemRequestDto::getId).collect(Collectors.toList());
+        Map<Long, List<ItemDto>> itemsGroupByRequestIds = getItemsByRequestIds(requestIds);
+        return RequestMapper.toItemRequestDtoList(requests, itemsGroupByRequestIds);
+    }
+
+    private Map<Long, List<ItemDto>> getItemsByRequestIds(final List<Long> requestIds) {
+        Map<Long, List<ItemDto>> itemsGroupByRequestIds = new HashMap<>();
+        List<ItemDto> items = itemRepository.findByRequestIdIn(requestIds);
+        for (ItemDto item : items) {
+            Long requestId = item.getRequestId();
+            List<ItemDto> itemsByRequestId = itemsGroupByRequestIds.get(requestId);
             if (itemsByRequestId == null) {
                 itemsByRequestId = new ArrayList<>();
             }
@@ -1,12 +1,14 @@
 package ru.practicum.shareit.request.dto;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import ru.practicum.shareit.item.dto.ItemDto;
 import javax.validation.constraints.NotBlank;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
+@NoArgsConstructor
 public class ItemRequestDto {
 
     private Long id;
@@ -17,4 +19,11 @@ public class ItemRequestDto {
     private LocalDateTime created;
 
     private List<ItemDto> items;
+
+    // Used by JPQL constructor expressions of list queries
+    public ItemRequestDto(final Long id, final String description, final LocalDateTime created) {
+        this.id = id;
+        this.description = description;
+        this.created = created;
+    }
 }
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.user;
+
+import lombok.Value;
+
+/**
+ * Published by user service in deleting transaction before user is deleted from DB.
+ * Items, requests, comments and bookings of user are deleted by DB cascade, which Hibernate does not see,
+ * so components depending on them subscribe to this event. Listeners run synchronously to change rows
+ * before cascade deletes them, before commit to change rows after cascade, and after commit to change
+ * in-memory indexes.
+ * @author Evgeniy Lee
+ */
+@Value
+public class UserDeletedEvent {
+    // ID of deleted user
+    Long userId;
+}
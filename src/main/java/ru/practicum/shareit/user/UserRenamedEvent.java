@@ -0,0 +1,14 @@
+package ru.practicum.shareit.user;
+
+import lombok.Value;
+
+/**
+ * Published by user service in updating transaction when user name is changed.
+ * Cached views showing user name, e.g. items with comments of user, subscribe to this event.
+ * @author Evgeniy Lee
+ */
+@Value
+public class UserRenamedEvent {
+    // ID of renamed user
+    Long userId;
+}
@@ -1,11 +1,18 @@
 package ru.practicum.shareit.user;
 
 import lombok.AllArgsConstructor;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.exception.DataNotFoundException;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.messages.ExceptionMessages;
+import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.util.AfterCommit;
 import org.springframework.transaction.annotation.Transactional;
+import javax.persistence.EntityManagerFactory;
 import java.util.List;
 
 /**
@@ -18,6 +25,12 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository repository;
 
+    // Components depending on rows of deleted user or showing user name subscribe to user events
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Second-level cache may hold items and requests of deleted user
+    private final EntityManagerFactory entityManagerFactory;
+
     @Transactional
     @Override
     public UserDto create(UserDto userDto) {
@@ -44,8 +57,9 @@ public class UserServiceImpl implements UserService {
         User user = repository.findById(id)
                 .orElseThrow(() -> new DataNotFoundException(ExceptionMessages.DATA_NOT_FOUND));
 
-        if (userDto.getName() != null) {
+        if (userDto.getName() != null && !userDto.getName().equals(user.getName())) {
             user.setName(userDto.getName());
+            eventPublisher.publishEvent(new UserRenamedEvent(id));
         }
 
         if (userDto.getEmail() != null && !userDto.getEmail().equals(user.getEmail())) {
@@ -58,6 +72,17 @@ public class UserServiceImpl implements UserService {
     @Transactional
     @Override
     public void delete(Long id) {
+        eventPublisher.publishEvent(new UserDeletedEvent(id));
         repository.deleteById(id);
+        // Comments and bookings are deleted by cascade when user is deleted from DB
+        repository.flush();
+        // Rows deleted by cascade are not seen by Hibernate, they are evicted once again after commit,
+        // so rows loaded by concurrent readers before commit are not kept in cache
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        AfterCommit.runNowAndAfterCommit(() -> {
+            cache.evictEntityData(Item.class);
+            cache.evictEntityData(ItemRequest.class);
+            cache.evictQueryRegions();
+        });
     }
 }
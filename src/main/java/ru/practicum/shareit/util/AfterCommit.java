@@ -0,0 +1,43 @@
+package ru.practicum.shareit.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Runs actions which must see committed state of current transaction, e.g. updates of in-memory indexes and caches
+ * @author Evgeniy Lee
+ */
+public final class AfterCommit {
+    private AfterCommit() {
+    }
+
+    /**
+     * Run action after commit of current transaction or immediately if there is no transaction.
+     * Action is not run if transaction is rolled back.
+     * @param action action
+     */
+    public static void run(final Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Run action now and once again after commit of current transaction if there is one.
+     * Used to invalidate caches, so values loaded by concurrent readers before commit are not kept.
+     * @param action action
+     */
+    public static void runNowAndAfterCommit(final Runnable action) {
+        action.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            run(action);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package ru.practicum.shareit.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes values to output stream as newline delimited JSON, one value per line.
+ * Values are buffered by generator and output stream only, so memory does not grow with count of values.
+ * @author Evgeniy Lee
+ */
+public class NdjsonWriter<T> implements Consumer<T>, Closeable {
+    // Writes value without flushing output stream after it
+    private final ObjectWriter writer;
+
+    private final JsonGenerator generator;
+
+    public NdjsonWriter(final ObjectMapper objectMapper, final OutputStream outputStream) throws IOException {
+        writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        generator = objectMapper.getFactory().createGenerator(outputStream);
+        // Output stream belongs to caller
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // Values are separated by line feed written after each of them instead of default space
+        generator.setRootValueSeparator(null);
+    }
+
+    @Override
+    public void accept(final T value) {
+        try {
+            writer.writeValue(generator, value);
+            generator.writeRaw('\n');
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Flush buffered values to output stream
+     * @throws IOException if values can not be written
+     */
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
@@ -0,0 +1,128 @@
+package ru.practicum.shareit.util;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.messages.ExceptionMessages;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Opaque cursor for keyset pagination, holds sort key of the last element of previous page
+ * @author Evgeniy Lee
+ */
+@Getter
+@EqualsAndHashCode
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class SeekCursor {
+    // Response header with cursor of the next page
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    // Separates date and ID in encoded cursor
+    private static final String SEPARATOR = "|";
+
+    // Sort date of the last element, null when elements are sorted by ID only
+    private final LocalDateTime date;
+
+    // ID of the last element
+    private final Long id;
+
+    /**
+     * Create cursor for elements sorted by ID
+     * @param id ID of the last element
+     * @return cursor
+     */
+    public static SeekCursor of(final Long id) {
+        return new SeekCursor(null, id);
+    }
+
+    /**
+     * Create cursor for elements sorted by date and ID
+     * @param date sort date of the last element
+     * @param id ID of the last element
+     * @return cursor
+     */
+    public static SeekCursor of(final LocalDateTime date, final Long id) {
+        return new SeekCursor(date, id);
+    }
+
+    /**
+     * Decode cursor of elements sorted by ID
+     * @param value encoded cursor
+     * @return cursor
+     */
+    public static SeekCursor decodeId(final String value) {
+        String[] keys = decode(value);
+        if (keys.length != 1) {
+            throw new BadRequestException(ExceptionMessages.INVALID_CURSOR);
+        }
+        return of(parseId(keys[0]));
+    }
+
+    /**
+     * Decode cursor of elements sorted by date and ID
+     * @param value encoded cursor
+     * @return cursor
+     */
+    public static SeekCursor decodeDateAndId(final String value) {
+        String[] keys = decode(value);
+        if (keys.length != 2) {
+            throw new BadRequestException(ExceptionMessages.INVALID_CURSOR);
+        }
+        try {
+            return of(LocalDateTime.parse(keys[0]), parseId(keys[1]));
+        } catch (DateTimeParseException exception) {
+            throw new BadRequestException(ExceptionMessages.INVALID_CURSOR);
+        }
+    }
+
+    /**
+     * Encode cursor to opaque string
+     * @return encoded cursor
+     */
+    public String encode() {
+        String keys = date == null ? String.valueOf(id) : date + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(keys.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Build response with page and cursor of the next page if page is full
+     * @param page page elements
+     * @param size requested page size
+     * @param cursorOf builds cursor from the last element
+     * @return response entity
+     */
+    public static <T> ResponseEntity<List<T>> toResponseEntity(
+            final List<T> page, final int size, final Function<T, SeekCursor> cursorOf
+    ) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!page.isEmpty() && page.size() >= size) {
+            response.header(NEXT_CURSOR_HEADER, cursorOf.apply(page.get(page.size() - 1)).encode());
+        }
+        return response.body(page);
+    }
+
+    private static String[] decode(final String value) {
+        try {
+            String keys = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            return keys.split("\\" + SEPARATOR, -1);
+        } catch (IllegalArgumentException exception) {
+            throw new BadRequestException(ExceptionMessages.INVALID_CURSOR);
+        }
+    }
+
+    private static Long parseId(final String value) {
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException exception) {
+            throw new BadRequestException(ExceptionMessages.INVALID_CURSOR);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.util;
+
+/**
+ * In-memory structure built from DB in background when application is ready, see {@link WarmUpRunner}
+ * @author Evgeniy Lee
+ */
+public interface WarmUp {
+    /**
+     * Build structure from data stored in DB
+     */
+    void rebuild();
+}
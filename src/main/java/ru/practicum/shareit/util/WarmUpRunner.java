@@ -0,0 +1,44 @@
+package ru.practicum.shareit.util;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import java.util.List;
+
+/**
+ * Starts building of all in-memory structures when application is ready.
+ * Builds run in parallel on own executor with threads named "warm-up-",
+ * which is shut down with application context without waiting for unfinished builds.
+ * @author Evgeniy Lee
+ */
+@Component
+public class WarmUpRunner implements DisposableBean {
+    // Structures built at startup
+    private final List<WarmUp> warmUps;
+
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+    public WarmUpRunner(final List<WarmUp> warmUps) {
+        this.warmUps = warmUps;
+        executor.setThreadNamePrefix("warm-up-");
+        executor.setCorePoolSize(Math.max(1, warmUps.size()));
+        executor.setDaemon(true);
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+    }
+
+    /**
+     * Start building structures in background
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        warmUps.forEach(warmUp -> executor.execute(warmUp::rebuild));
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
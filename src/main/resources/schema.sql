@@ -1,7 +1,20 @@
-DROP TABLE IF EXISTS requests, items, users, bookings, comments;
+DROP TABLE IF EXISTS item_summary, requests, items, users, bookings, comments;
+DROP SEQUENCE IF EXISTS users_seq;
+DROP SEQUENCE IF EXISTS requests_seq;
+DROP SEQUENCE IF EXISTS items_seq;
+DROP SEQUENCE IF EXISTS bookings_seq;
+DROP SEQUENCE IF EXISTS comments_seq;
+
+-- Hibernate takes block of 50 IDs starting with sequence value (pooled-lo optimizer),
+-- so increment must match allocationSize of entities. Rows inserted without ID take sequence value by default
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS requests_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS items_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS bookings_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS comments_seq START WITH 1 INCREMENT BY 50;
 
 CREATE TABLE IF NOT EXISTS users (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    id BIGINT DEFAULT nextval('users_seq') NOT NULL,
     name VARCHAR(255) NOT NULL,
     email VARCHAR(255) NOT NULL,
     CONSTRAINT pk_user PRIMARY KEY (id),
@@ -9,7 +22,7 @@ CREATE TABLE IF NOT EXISTS users (
 );
 
 CREATE TABLE IF NOT EXISTS requests (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    id BIGINT DEFAULT nextval('requests_seq') NOT NULL,
     description VARCHAR(1000) NOT NULL,
     requester_id BIGINT REFERENCES users (id) ON DELETE CASCADE NOT NULL,
     created TIMESTAMP WITHOUT TIME ZONE NOT NULL,
@@ -17,30 +30,87 @@ CREATE TABLE IF NOT EXISTS requests (
 );
 
 CREATE TABLE IF NOT EXISTS items (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    id BIGINT DEFAULT nextval('items_seq') NOT NULL,
     name VARCHAR(255) NOT NULL,
     description VARCHAR(1000) NOT NULL,
     is_available BOOLEAN,
     owner_id BIGINT REFERENCES users (id) ON DELETE CASCADE NOT NULL,
     request_id BIGINT REFERENCES requests (id) ON DELETE CASCADE,
+    comment_count INTEGER DEFAULT 0 NOT NULL,
+    version BIGINT DEFAULT 0 NOT NULL,
     CONSTRAINT pk_item PRIMARY KEY (id)
 );
 
 CREATE TABLE IF NOT EXISTS bookings (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    id BIGINT DEFAULT nextval('bookings_seq') NOT NULL,
     start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
     end_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
     item_id BIGINT REFERENCES items (id) ON DELETE CASCADE NOT NULL,
     booker_id BIGINT REFERENCES users(id) ON DELETE CASCADE NOT NULL,
     status VARCHAR(20),
+    version BIGINT DEFAULT 0 NOT NULL,
     CONSTRAINT pk_booking PRIMARY KEY (id)
 );
 
 CREATE TABLE IF NOT EXISTS comments (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    id BIGINT DEFAULT nextval('comments_seq') NOT NULL,
     text VARCHAR(500) NOT NULL,
     item_id BIGINT REFERENCES items (id) ON DELETE CASCADE NOT NULL,
     author_id BIGINT REFERENCES users (id) ON DELETE CASCADE  NOT NULL,
     created TIMESTAMP WITHOUT TIME ZONE,
     CONSTRAINT pk_comment PRIMARY KEY (id)
 );
+
+-- Foreign keys are not indexed by PostgreSQL, so every access path by referenced row has its own index.
+-- Bookings of booker are read from the latest, also filtered by status
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_id_start_date ON bookings (booker_id, start_date);
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_id_status ON bookings (booker_id, status);
+
+-- Bookings of owner items, last and next approved bookings and bookings counted per item are read by item and status
+CREATE INDEX IF NOT EXISTS ix_bookings_item_id_status_start_date ON bookings (item_id, status, start_date);
+
+-- Bookings overlap when each starts before the other ends. Overlap check scans index range of bookings
+-- ending after start of checked booking, i.e. current and future bookings of item, not its whole history
+CREATE INDEX IF NOT EXISTS ix_bookings_item_id_end_date ON bookings (item_id, end_date);
+
+-- Availability of item within period is read by range scan of bookings starting within it,
+-- end date is taken from index
+CREATE INDEX IF NOT EXISTS ix_bookings_item_id_start_date_end_date ON bookings (item_id, start_date, end_date);
+
+-- Latest comments of item and pages of item comments are read by range scan of this index
+CREATE INDEX IF NOT EXISTS ix_comments_item_id_id ON comments (item_id, id);
+
+-- Items commented by deleted user count off their comments
+CREATE INDEX IF NOT EXISTS ix_comments_author_id ON comments (author_id);
+
+-- Pages of owner items are read in order of item ID
+CREATE INDEX IF NOT EXISTS ix_items_owner_id_id ON items (owner_id, id);
+
+CREATE INDEX IF NOT EXISTS ix_items_request_id ON items (request_id);
+
+-- Own requests are read in order of creation, requests of other users are paged by creation date and ID
+CREATE INDEX IF NOT EXISTS ix_requests_requester_id_created ON requests (requester_id, created);
+CREATE INDEX IF NOT EXISTS ix_requests_created_id ON requests (created, id);
+
+-- Read model of owner items kept in sync by services, bookings are copied without foreign keys
+CREATE TABLE IF NOT EXISTS item_summary (
+    item_id BIGINT REFERENCES items (id) ON DELETE CASCADE NOT NULL,
+    owner_id BIGINT NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    description VARCHAR(1000) NOT NULL,
+    is_available BOOLEAN,
+    request_id BIGINT,
+    comment_count INTEGER DEFAULT 0 NOT NULL,
+    last_booking_id BIGINT,
+    last_booker_id BIGINT,
+    last_booking_start TIMESTAMP WITHOUT TIME ZONE,
+    last_booking_end TIMESTAMP WITHOUT TIME ZONE,
+    next_booking_id BIGINT,
+    next_booker_id BIGINT,
+    next_booking_start TIMESTAMP WITHOUT TIME ZONE,
+    next_booking_end TIMESTAMP WITHOUT TIME ZONE,
+    CONSTRAINT pk_item_summary PRIMARY KEY (item_id)
+);
+
+CREATE INDEX IF NOT EXISTS ix_item_summary_owner_id_item_id ON item_summary (owner_id, item_id);
+CREATE INDEX IF NOT EXISTS ix_item_summary_next_booking_start ON item_summary (next_booking_start);
@@ -0,0 +1,255 @@
+package ru.practicum.shareit;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingSearchStatus;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.CommentRepository;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.ItemSummaryRepository;
+import ru.practicum.shareit.request.RequestRepository;
+import ru.practicum.shareit.util.SeekCursor;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Explains queries of repositories on seeded data, so query which loses its index fails instead of
+ * scanning whole table. Plans are chosen by H2, indexes are the same on PostgreSQL.
+ * Text search and offset pages of requests of other users read most of table by design and are not explained
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url = jdbc:h2:mem:plans",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector = " +
+                "ru.practicum.shareit.QueryPlanTest$SqlRecorder"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class QueryPlanTest {
+    private static final int USERS = 1_000;
+    private static final int ITEMS = 10_000;
+    private static final int BOOKINGS = 100_000;
+    private static final int REQUESTS = 2_000;
+    private static final int COMMENTS = 20_000;
+
+    private static final Pageable PAGE = PageRequest.of(0, 10, BookingRepository.SORT_START_DATE_ID_DESC);
+    private static final String BOOKER_START = "ix_bookings_booker_id_start_date";
+    private static final String BOOKER_STATUS = "ix_bookings_booker_id_status";
+    private static final String ITEM_STATUS = "ix_bookings_item_id_status_start_date";
+    private static final String OWNER = "ix_items_owner_id_id";
+    private static final String REQUEST = "ix_items_request_id";
+    private static final String AUTHOR = "ix_comments_author_id";
+    private static final String REQUESTER = "ix_requests_requester_id_created";
+    private static final String CREATED = "ix_requests_created_id";
+    private static final Set<BookingSearchStatus> SEARCH_STATES =
+            EnumSet.complementOf(EnumSet.of(BookingSearchStatus.UNSUPPORTED_STATUS));
+    private static final Set<BookingSearchStatus> STATUS_STATES =
+            EnumSet.of(BookingSearchStatus.WAITING, BookingSearchStatus.APPROVED, BookingSearchStatus.REJECTED);
+    private static final Set<BookingStatus> ACTIVE = EnumSet.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+
+    // Scan of table or of whole index, H2 shows index conditions after colon
+    private static final Pattern FULL_SCAN = Pattern.compile("/\\* PUBLIC\\.(\\w+\\.tableScan|[\\w.]+) \\*/");
+
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private RequestRepository requestRepository;
+    @Autowired
+    private ItemSummaryRepository summaryRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+    @BeforeAll
+    public void seed() {
+        // H2 indexes foreign keys by itself and PostgreSQL does not, so they are dropped
+        // with their indexes and plans use indexes of schema only
+        jdbcTemplate.queryForList("SELECT table_name, constraint_name FROM information_schema.table_constraints " +
+                        "WHERE constraint_type = 'FOREIGN KEY' AND table_schema = 'PUBLIC'")
+                .forEach(constraint -> jdbcTemplate.execute("ALTER TABLE " + constraint.get("TABLE_NAME") +
+                        " DROP CONSTRAINT " + constraint.get("CONSTRAINT_NAME")));
+        jdbcTemplate.update("INSERT INTO users (id, name, email) " +
+                "SELECT x, 'User ' || x, 'user' || x || '@yandex.ru' FROM SYSTEM_RANGE(1, ?)", USERS);
+        jdbcTemplate.update("INSERT INTO requests (id, description, requester_id, created) " +
+                        "SELECT x, 'Request ' || x, MOD(x, ?) + 1, DATEADD('HOUR', -x, CAST(? AS TIMESTAMP)) " +
+                        "FROM SYSTEM_RANGE(1, ?)",
+                USERS, now, REQUESTS);
+        jdbcTemplate.update("INSERT INTO items (id, name, description, is_available, owner_id, request_id) " +
+                        "SELECT x, 'Item ' || x, 'Item ' || x || ' for rent', TRUE, MOD(x, ?) + 1, " +
+                        "CASE WHEN MOD(x, 5) = 0 THEN MOD(x, ?) + 1 END " +
+                        "FROM SYSTEM_RANGE(1, ?)",
+                USERS, REQUESTS, ITEMS);
+        // Every item has ten bookings a day apart around current date, statuses are spread evenly
+        jdbcTemplate.update("INSERT INTO bookings (id, start_date, end_date, item_id, booker_id, status) " +
+                        "SELECT x, DATEADD('DAY', MOD(x, 10) - 5, CAST(? AS TIMESTAMP)), " +
+                        "DATEADD('HOUR', 24 * (MOD(x, 10) - 5) + 1, CAST(? AS TIMESTAMP)), " +
+                        "MOD(x, ?) + 1, MOD(x, ?) + 1, " +
+                        "CASEWHEN(MOD(x, 4) = 0, 'WAITING', CASEWHEN(MOD(x, 4) = 1, 'APPROVED', " +
+                        "CASEWHEN(MOD(x, 4) = 2, 'REJECTED', 'CANCELED'))) " +
+                        "FROM SYSTEM_RANGE(1, ?)",
+                now, now, ITEMS, USERS, BOOKINGS);
+        jdbcTemplate.update("INSERT INTO comments (id, text, item_id, author_id, created) " +
+                        "SELECT x, 'Comment ' || x, MOD(x, ?) + 1, MOD(x, ?) + 1, CAST(? AS TIMESTAMP) " +
+                        "FROM SYSTEM_RANGE(1, ?)",
+                ITEMS, USERS, now, COMMENTS);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    public void bookerBookingsTest() {
+        for (BookingSearchStatus state : SEARCH_STATES) {
+            String index = STATUS_STATES.contains(state) ? BOOKER_STATUS : BOOKER_START;
+            assertUsesIndex(index, () -> bookingRepository.findByState(BookingRole.BOOKER, 1L, state, now,
+                    null, PAGE));
+            assertUsesIndex(index, () -> bookingRepository.findByState(BookingRole.BOOKER, 1L, state, now,
+                    SeekCursor.of(now, 1L), PAGE));
+        }
+    }
+
+    @Test
+    public void ownerBookingsTest() {
+        for (BookingSearchStatus state : SEARCH_STATES) {
+            if (STATUS_STATES.contains(state)) {
+                assertUsesIndex(ITEM_STATUS, () -> bookingRepository.findByState(BookingRole.OWNER, 1L, state, now,
+                        null, PAGE));
+                assertUsesIndex(ITEM_STATUS, () -> bookingRepository.findByState(BookingRole.OWNER, 1L, state, now,
+                        SeekCursor.of(now, 1L), PAGE));
+            } else {
+                assertNoFullScans(() -> bookingRepository.findByState(BookingRole.OWNER, 1L, state, now, null, PAGE));
+                assertNoFullScans(() -> bookingRepository.findByState(BookingRole.OWNER, 1L, state, now,
+                        SeekCursor.of(now, 1L), PAGE));
+            }
+        }
+    }
+
+    @Test
+    public void itemBookingsTest() {
+        assertNoFullScans(() -> bookingRepository.findById(1L));
+        assertNoFullScans(() -> bookingRepository.findAllByBookerIdAndItemIdAndEndBeforeAndStatus(1L, 1L, now,
+                BookingStatus.APPROVED, BookingRepository.SORT_START_DATE_DESC));
+        assertNoFullScans(() -> bookingRepository.existsOverlapping(1L, ACTIVE, now, now.plusDays(1)));
+        assertNoFullScans(() -> bookingRepository.findAllOverlapping(List.of(1L, 2L), ACTIVE, now, now.plusDays(1)));
+        assertNoFullScans(() -> bookingRepository.findAllById(List.of(1L, 2L)));
+        assertNoFullScans(() -> bookingRepository.findIntervalsByItemId(1L, now, now.plusMonths(1), 501));
+        assertUsesIndex(ITEM_STATUS, () -> bookingRepository.findLastAndNextByItemIdIn(List.of(1L, 2L), now));
+        assertNoFullScans(() -> bookingRepository.findAllByStatusAndIdGreaterThan(BookingStatus.APPROVED,
+                BOOKINGS - 10L, PageRequest.of(0, 10, BookingRepository.SORT_IDS_ASC)));
+        assertNoFullScans(() -> bookingRepository.countByItemIdIn(List.of(1L, 2L)));
+    }
+
+    @Test
+    public void itemsTest() {
+        Pageable page = PageRequest.of(0, 10, ItemRepository.SORT_IDS_ASC);
+        assertUsesIndex(OWNER, () -> itemRepository.findByOwnerId(1L, page));
+        assertNoFullScans(() -> itemRepository.findByOwnerIdAndIdGreaterThan(1L, 1L, page));
+        assertNoFullScans(() -> transactionTemplate.executeWithoutResult(
+                status -> itemRepository.streamByOwnerId(1L).close()));
+        assertUsesIndex(REQUEST, () -> itemRepository.findByRequestIdIn(List.of(1L, 2L)));
+        assertNoFullScans(() -> itemRepository.findAllByIdGreaterThan(ITEMS - 10L, page));
+        assertNoFullScans(() -> itemRepository.findByIdIn(List.of(1L, 2L)));
+        assertNoFullScans(() -> summaryRepository.findByOwnerId(1L,
+                PageRequest.of(0, 10, ItemSummaryRepository.SORT_ITEM_IDS_ASC)));
+    }
+
+    @Test
+    public void commentsTest() {
+        assertNoFullScans(() -> commentRepository.findAllByItemIdOrderById(1L, ItemRepository.SORT_IDS_ASC));
+        assertNoFullScans(() -> commentRepository.findAllByItemIdInOrderById(List.of(1L, 2L),
+                ItemRepository.SORT_IDS_ASC));
+        assertNoFullScans(() -> commentRepository.findByItemIdOrderByIdDesc(1L, PageRequest.of(0, 10)));
+        assertNoFullScans(() -> commentRepository.findLatestIdsByItemIdIn(List.of(1L, 2L), 10));
+        assertNoFullScans(() -> commentRepository.findAllByIdIn(List.of(1L, 2L), ItemRepository.SORT_IDS_ASC));
+        assertNoFullScans(() -> commentRepository.findByItemIdAndIdLessThanOrderByIdDesc(1L, 100L,
+                PageRequest.of(0, 10)));
+        assertUsesIndex(AUTHOR, () -> commentRepository.findItemIdsByAuthorId(1L));
+    }
+
+    @Test
+    public void requestsTest() {
+        assertUsesIndex(REQUESTER, () -> requestRepository.findAllByRequesterId(1L,
+                PageRequest.of(0, 10, RequestRepository.SORT_CREATE_DATE_ASC)));
+        assertUsesIndex(CREATED, () -> requestRepository.findAllByRequesterIdNotAfterCursor(1L, now.minusHours(10), 1L,
+                PageRequest.of(0, 10, RequestRepository.SORT_CREATE_DATE_ID_ASC)));
+    }
+
+    // Run repository call and check plans of every query it sent to DB
+    private void assertNoFullScans(final Runnable call) {
+        explainAll(call);
+    }
+
+    // Run repository call and check one of its queries is served by index
+    private void assertUsesIndex(final String index, final Runnable call) {
+        List<String> plans = explainAll(call);
+        Assertions.assertTrue(plans.stream().anyMatch(plan -> plan.contains("/* PUBLIC." + index.toUpperCase())),
+                () -> "Index " + index + " is not used by plans:\n" + String.join("\n", plans));
+    }
+
+    private List<String> explainAll(final Runnable call) {
+        SqlRecorder.STATEMENTS.clear();
+        call.run();
+        List<String> queries = new ArrayList<>(SqlRecorder.STATEMENTS);
+        Assertions.assertFalse(queries.isEmpty());
+        List<String> plans = new ArrayList<>();
+        for (String query : queries) {
+            String plan = explain(query);
+            Matcher fullScan = FULL_SCAN.matcher(plan);
+            Assertions.assertFalse(fullScan.find(), () -> "Full scan " + fullScan.group(1) + " in plan:\n" + plan);
+            plans.add(plan);
+        }
+        return plans;
+    }
+
+    // Plan does not depend on parameter values, so they are bound to nulls
+    private String explain(final String query) {
+        return jdbcTemplate.execute("EXPLAIN " + query, (PreparedStatement statement) -> {
+            int parameters = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                statement.setObject(i, null);
+            }
+            StringBuilder plan = new StringBuilder();
+            try (var resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1)).append('\n');
+                }
+            }
+            return plan.toString();
+        });
+    }
+
+    /**
+     * Records SQL sent to DB by Hibernate
+     */
+    public static class SqlRecorder implements StatementInspector {
+        private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(final String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package ru.practicum.shareit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.jdbc.Sql;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.dto.BriefBookingDto;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.RequestRepository;
+import ru.practicum.shareit.request.RequestService;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url = jdbc:h2:mem:l2cache",
+        "shareit.jpa.second-level-cache.enabled = true",
+        // Cache hits are counted by statistics, which are off in application
+        "spring.jpa.properties.hibernate.generate_statistics = true"
+})
+@Sql("classpath:schema.sql")
+public class SecondLevelCacheTest {
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private RequestService requestService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private RequestRepository requestRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private UserDto owner;
+    private UserDto booker;
+    private ItemDto item;
+
+    @BeforeEach
+    public void beforeEach() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManagerFactory.getCache().evictAll();
+
+        owner = userService.create(TestFixtures.user("owner@yandex.ru"));
+        booker = userService.create(TestFixtures.user("booker@yandex.ru"));
+        item = itemService.create(TestFixtures.drill(), owner.getId());
+    }
+
+    @Test
+    public void createBookingReadsUserAndItemFromCacheTest() {
+        BriefBookingDto bookingDto = new BriefBookingDto();
+        bookingDto.setItemId(item.getId());
+        bookingDto.setStart(LocalDateTime.now().plusDays(1));
+        bookingDto.setEnd(LocalDateTime.now().plusDays(2));
+        // Rows inserted with identity ID are cached when they are read for the first time
+        bookingService.create(bookingDto, booker.getId());
+        statistics.clear();
+
+        bookingDto.setStart(bookingDto.getEnd().plusHours(1));
+        bookingDto.setEnd(bookingDto.getEnd().plusDays(1));
+        bookingService.create(bookingDto, booker.getId());
+
+        // Only overlap check and booking insert go to DB
+        Assertions.assertEquals(2, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(1, statistics.getDomainDataRegionStatistics(User.CACHE_REGION).getHitCount());
+        Assertions.assertEquals(1, statistics.getDomainDataRegionStatistics(Item.CACHE_REGION).getHitCount());
+    }
+
+    @Test
+    public void getAvailabilityTakesOneQueryTest() {
+        LocalDateTime from = LocalDateTime.now().plusDays(1);
+        BriefBookingDto bookingDto = new BriefBookingDto();
+        bookingDto.setItemId(item.getId());
+        bookingDto.setStart(from.plusDays(1));
+        bookingDto.setEnd(from.plusDays(2));
+        bookingService.create(bookingDto, booker.getId());
+        itemService.getAvailability(item.getId(), from, from.plusMonths(1));
+        statistics.clear();
+
+        ItemAvailabilityDto availability = itemService.getAvailability(item.getId(), from, from.plusMonths(1));
+
+        // Month view reads bookings by one query, item is taken from cache
+        Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(1, availability.getBusy().size());
+        Assertions.assertEquals(2, availability.getFree().size());
+    }
+
+    @Test
+    public void queryCacheTest() {
+        ItemRequestDto requestDto = new ItemRequestDto();
+        requestDto.setDescription("Need a drill");
+        requestService.create(requestDto, booker.getId());
+        Pageable pageable = PageRequest.of(0, 10, RequestRepository.SORT_CREATE_DATE_ASC);
+        requestRepository.findAllByRequesterId(booker.getId(), pageable);
+        statistics.clear();
+
+        Assertions.assertEquals(1, requestRepository.findAllByRequesterId(booker.getId(), pageable).size());
+        Assertions.assertEquals(0, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    public void deleteUserEvictsCascadedItemsTest() {
+        itemRepository.findById(item.getId());
+        Assertions.assertTrue(entityManagerFactory.getCache().contains(Item.class, item.getId()));
+
+        userService.delete(owner.getId());
+
+        Assertions.assertFalse(entityManagerFactory.getCache().contains(Item.class, item.getId()));
+    }
+}
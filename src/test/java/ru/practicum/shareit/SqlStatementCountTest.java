@@ -0,0 +1,171 @@
+package ru.practicum.shareit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.BookingTimeline;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BriefBookingDto;
+import ru.practicum.shareit.item.CommentRepository;
+import ru.practicum.shareit.item.ItemDtoCache;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.ItemSummaryUpdater;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.RequestService;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts SQL statements executed by endpoints, so lazy associations are never loaded one by one
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url = jdbc:h2:mem:statements",
+        "spring.jpa.properties.hibernate.generate_statistics = true"
+})
+@AutoConfigureMockMvc
+@Sql("classpath:schema.sql")
+public class SqlStatementCountTest {
+    private static final String X_SHARER_USER_ID = "X-Sharer-User-Id";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private RequestService requestService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private BookingTimeline bookingTimeline;
+    @Autowired
+    private ItemDtoCache itemDtoCache;
+    @Autowired
+    private ItemSummaryUpdater itemSummaryUpdater;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private UserDto owner;
+    private UserDto booker;
+    private ItemDto item;
+    private BookingDto booking;
+
+    @BeforeEach
+    public void beforeEach() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // Last and next bookings are taken from timelines, not from DB
+        bookingTimeline.rebuild();
+        itemDtoCache.invalidateAll();
+
+        owner = userService.create(TestFixtures.user("owner@yandex.ru"));
+        booker = userService.create(TestFixtures.user("booker@yandex.ru"));
+        ItemRequestDto requestDto = new ItemRequestDto();
+        requestDto.setDescription("Need a drill");
+        ItemRequestDto request = requestService.create(requestDto, booker.getId());
+        for (int i = 1; i <= 3; i++) {
+            ItemDto itemDto = new ItemDto();
+            itemDto.setName("Drill " + i);
+            itemDto.setDescription("Cordless drill " + i);
+            itemDto.setAvailable(true);
+            itemDto.setRequestId(request.getId());
+            item = itemService.create(itemDto, owner.getId());
+
+            BriefBookingDto bookingDto = new BriefBookingDto();
+            bookingDto.setItemId(item.getId());
+            bookingDto.setStart(LocalDateTime.now().plusDays(i));
+            bookingDto.setEnd(LocalDateTime.now().plusDays(i + 1));
+            booking = bookingService.create(bookingDto, booker.getId());
+
+            Comment comment = new Comment();
+            comment.setText("Comment " + i);
+            comment.setItem(itemRepository.getReferenceById(item.getId()));
+            comment.setAuthor(userRepository.getReferenceById(booker.getId()));
+            comment.setCreated(LocalDateTime.now());
+            commentRepository.save(comment);
+            // Booker has no finished bookings to comment, so comment is saved directly and counted here
+            Item commentedItem = itemRepository.findById(item.getId()).orElseThrow();
+            commentedItem.setCommentCount(1);
+            itemRepository.save(commentedItem);
+        }
+        // Comment counts are set bypassing services, so owner item summaries are rebuilt from DB
+        itemSummaryUpdater.rebuild();
+    }
+
+    @Test
+    public void getBookingsByBookerTest() throws Exception {
+        // Booker and page of bookings joined with items and bookers
+        assertStatements(2, MockMvcRequestBuilders.get("/bookings").header(X_SHARER_USER_ID, booker.getId()));
+    }
+
+    @Test
+    public void getBookingsByOwnerTest() throws Exception {
+        assertStatements(2, MockMvcRequestBuilders.get("/bookings/owner").header(X_SHARER_USER_ID, owner.getId()));
+    }
+
+    @Test
+    public void getBookingTest() throws Exception {
+        // Booking joined with item and booker, then requesting user
+        assertStatements(2, MockMvcRequestBuilders.get("/bookings/{id}", booking.getId())
+                .header(X_SHARER_USER_ID, owner.getId()));
+    }
+
+    @Test
+    public void approveBookingTest() throws Exception {
+        // Booking joined with item and booker, overlap check, conditional update of item summary, then status update
+        assertStatements(4, MockMvcRequestBuilders.patch("/bookings/{id}", booking.getId())
+                .header(X_SHARER_USER_ID, owner.getId())
+                .param("approved", "true"));
+    }
+
+    @Test
+    public void getItemTest() throws Exception {
+        // Item, then comments joined with authors
+        assertStatements(2, MockMvcRequestBuilders.get("/items/{id}", item.getId())
+                .header(X_SHARER_USER_ID, owner.getId()));
+    }
+
+    @Test
+    public void getItemsByOwnerTest() throws Exception {
+        // Page of item summaries, then comments of items joined with authors
+        assertStatements(2, MockMvcRequestBuilders.get("/items").header(X_SHARER_USER_ID, owner.getId()));
+    }
+
+    @Test
+    public void getOwnRequestsTest() throws Exception {
+        // Requester, page of requests, then items answering them
+        assertStatements(3, MockMvcRequestBuilders.get("/requests").header(X_SHARER_USER_ID, booker.getId()));
+    }
+
+    private void assertStatements(final long expected, final MockHttpServletRequestBuilder request) throws Exception {
+        statistics.clear();
+        mockMvc.perform(request).andExpect(status().isOk());
+        Assertions.assertEquals(expected, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,36 @@
+package ru.practicum.shareit;
+
+import ru.practicum.shareit.booking.dto.BriefBookingDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.dto.UserDto;
+import java.time.LocalDateTime;
+
+// DTOs passed to services by integration tests creating their own users, items and bookings
+public final class TestFixtures {
+    private TestFixtures() {
+    }
+
+    // User named by email, so users of one test differ by email only
+    public static UserDto user(final String email) {
+        UserDto userDto = new UserDto();
+        userDto.setName(email);
+        userDto.setEmail(email);
+        return userDto;
+    }
+
+    public static ItemDto drill() {
+        ItemDto itemDto = new ItemDto();
+        itemDto.setName("Drill");
+        itemDto.setDescription("Cordless drill");
+        itemDto.setAvailable(true);
+        return itemDto;
+    }
+
+    public static BriefBookingDto booking(final Long itemId, final LocalDateTime start, final LocalDateTime end) {
+        BriefBookingDto bookingDto = new BriefBookingDto();
+        bookingDto.setItemId(itemId);
+        bookingDto.setStart(start);
+        bookingDto.setEnd(end);
+        return bookingDto;
+    }
+}
@@ -0,0 +1,258 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.TestFixtures;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BriefBookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exception.PreconditionFailedException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.messages.ExceptionMessages;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+// Overlapping bookings are rejected by DB trigger as they are by exclusion constraint on PostgreSQL
+@SpringBootTest(properties = {
+        "spring.datasource.url = jdbc:h2:mem:concurrency",
+        "spring.sql.init.schema-locations = classpath:schema.sql,classpath:booking-overlap-guard-h2.sql"
+})
+public class BookingConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int BOOKINGS_PER_THREAD = 50;
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemBookingLocks itemLocks;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    public void createConcurrentlyTest() throws Exception {
+        UserDto owner = userService.create(TestFixtures.user("stress-owner@yandex.ru"));
+        List<Long> itemIds = List.of(itemService.create(TestFixtures.drill(), owner.getId()).getId(),
+                itemService.create(TestFixtures.drill(), owner.getId()).getId());
+        List<Long> bookerIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            bookerIds.add(userService.create(TestFixtures.user("stress-booker" + i + "@yandex.ru")).getId());
+        }
+        LocalDateTime base = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Long bookerId = bookerIds.get(i);
+            Random random = new Random(i);
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < BOOKINGS_PER_THREAD; j++) {
+                    // Bookings of one to three hours within one day, most of them overlap
+                    BriefBookingDto bookingDto = new BriefBookingDto();
+                    bookingDto.setItemId(itemIds.get(random.nextInt(itemIds.size())));
+                    bookingDto.setStart(base.plusMinutes(30L * random.nextInt(48)));
+                    bookingDto.setEnd(bookingDto.getStart().plusHours(1 + random.nextInt(3)));
+                    try {
+                        bookingService.create(bookingDto, bookerId);
+                        created.incrementAndGet();
+                    } catch (ValidationException exception) {
+                        Assertions.assertEquals(ExceptionMessages.BOOKING_OVERLAP, exception.getMessage());
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        Assertions.assertEquals(THREADS * BOOKINGS_PER_THREAD, created.get() + rejected.get());
+        Assertions.assertTrue(created.get() > 0);
+        Assertions.assertTrue(rejected.get() > 0);
+        int stored = 0;
+        for (Long itemId : itemIds) {
+            List<Booking> bookings = findBookings(itemId);
+            stored += bookings.size();
+            for (int i = 1; i < bookings.size(); i++) {
+                Assertions.assertFalse(bookings.get(i).getStart().isBefore(bookings.get(i - 1).getEnd()),
+                        "Booking " + bookings.get(i).getId() + " overlaps " + bookings.get(i - 1).getId());
+            }
+        }
+        Assertions.assertEquals(created.get(), stored);
+        // Locks of items are removed when they are released
+        Assertions.assertEquals(0, itemLocks.size());
+    }
+
+    @Test
+    public void dbGuardTest() throws Exception {
+        UserDto owner = userService.create(TestFixtures.user("guard-owner@yandex.ru"));
+        UserDto booker = userService.create(TestFixtures.user("guard-booker@yandex.ru"));
+        Long itemId = itemService.create(TestFixtures.drill(), owner.getId()).getId();
+        LocalDateTime bookingStart = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // Bookings are inserted without item lock and overlap check, as other application instances would do
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        Booking booking = new Booking();
+                        booking.setItem(itemRepository.getReferenceById(itemId));
+                        booking.setBooker(userRepository.getReferenceById(booker.getId()));
+                        booking.setStart(bookingStart);
+                        booking.setEnd(bookingStart.plusHours(2));
+                        bookingRepository.saveAndFlush(booking);
+                    });
+                    return true;
+                } catch (DataIntegrityViolationException exception) {
+                    Assertions.assertTrue(exception.getMostSpecificCause().getMessage()
+                            .contains(Booking.OVERLAP_CONSTRAINT));
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+        int inserted = 0;
+        for (Future<Boolean> future : futures) {
+            inserted += future.get(1, TimeUnit.MINUTES) ? 1 : 0;
+        }
+        executor.shutdown();
+
+        Assertions.assertEquals(1, inserted);
+        Assertions.assertEquals(1, findBookings(itemId).size());
+    }
+
+    @Test
+    public void differentItemsDoNotContendTest() throws Exception {
+        UserDto owner = userService.create(TestFixtures.user("contend-owner@yandex.ru"));
+        UserDto booker = userService.create(TestFixtures.user("contend-booker@yandex.ru"));
+        Long lockedItemId = itemService.create(TestFixtures.drill(), owner.getId()).getId();
+        Long freeItemId = itemService.create(TestFixtures.drill(), owner.getId()).getId();
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<?> holder = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+            itemLocks.lockUntilCompletion(lockedItemId);
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        locked.await();
+
+        LocalDateTime bookingStart = LocalDateTime.now().plusDays(1);
+        LocalDateTime bookingEnd = bookingStart.plusHours(1);
+        BookingDto booking = Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> bookingService.create(TestFixtures.booking(freeItemId, bookingStart, bookingEnd),
+                        booker.getId()));
+        Assertions.assertEquals(freeItemId, booking.getItem().getId());
+
+        // Booking of locked item waits until lock holder completes its transaction
+        Future<BookingDto> waiting = executor.submit(
+                () -> bookingService.create(TestFixtures.booking(lockedItemId, bookingStart, bookingEnd),
+                        booker.getId()));
+        Thread.sleep(200);
+        Assertions.assertFalse(waiting.isDone());
+        release.countDown();
+        holder.get(1, TimeUnit.MINUTES);
+        Assertions.assertEquals(lockedItemId, waiting.get(1, TimeUnit.MINUTES).getItem().getId());
+        executor.shutdown();
+    }
+
+    @Test
+    public void approveConcurrentlyTest() throws Exception {
+        UserDto owner = userService.create(TestFixtures.user("approve-owner@yandex.ru"));
+        UserDto booker = userService.create(TestFixtures.user("approve-booker@yandex.ru"));
+        Long itemId = itemService.create(TestFixtures.drill(), owner.getId()).getId();
+        LocalDateTime bookingStart = LocalDateTime.now().plusDays(1);
+        BookingDto booking = bookingService.create(
+                TestFixtures.booking(itemId, bookingStart, bookingStart.plusHours(1)), booker.getId());
+        CountDownLatch start = new CountDownLatch(1);
+
+        // Owner approves and rejects booking at once, e.g. by double click and retries of gateway
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<BookingDto>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            boolean approved = i % 2 == 0;
+            futures.add(executor.submit(() -> {
+                start.await();
+                return bookingService.approve(booking.getId(), owner.getId(), approved);
+            }));
+        }
+        start.countDown();
+        List<BookingDto> approvals = new ArrayList<>();
+        for (Future<BookingDto> future : futures) {
+            try {
+                approvals.add(future.get(1, TimeUnit.MINUTES));
+            } catch (ExecutionException exception) {
+                // Approval which read booking before it was changed fails, the one which read it after sees status
+                Throwable cause = exception.getCause();
+                Assertions.assertTrue(cause instanceof OptimisticLockingFailureException
+                        || cause instanceof ValidationException, cause.toString());
+            }
+        }
+        executor.shutdown();
+
+        Assertions.assertEquals(1, approvals.size());
+        BookingDto stored = bookingService.get(booking.getId(), owner.getId());
+        Assertions.assertEquals(approvals.get(0).getStatus(), stored.getStatus());
+        Assertions.assertEquals(1L, stored.getVersion());
+        Assertions.assertEquals(stored.getVersion(), approvals.get(0).getVersion());
+
+        // Retry conditioned on version read before approval is rejected without reading booking again
+        Assertions.assertThrows(PreconditionFailedException.class,
+                () -> bookingService.approve(booking.getId(), owner.getId(), true, booking.getVersion()));
+    }
+
+    private List<Booking> findBookings(final Long itemId) {
+        return bookingRepository.findAll().stream()
+                .filter(booking -> itemId.equals(booking.getItem().getId()))
+                .sorted(Comparator.comparing(Booking::getStart))
+                .collect(Collectors.toList());
+    }
+}
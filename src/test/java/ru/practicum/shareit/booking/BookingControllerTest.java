@@ -11,24 +11,31 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import ru.practicum.shareit.LocalDateTimeAdapter;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingApprovalResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BriefBookingDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingSearchStatus;
+import ru.practicum.shareit.exception.PreconditionFailedException;
 import ru.practicum.shareit.exception.UnknownStateException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.messages.ExceptionMessages;
 import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.util.SeekCursor;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -126,7 +133,7 @@ public class BookingControllerTest {
         BookingDto bookingDto = BookingMapper.toBookingDto(bookings.get(0));
         User user = users.get(0);
         Mockito
-                .when(service.approve(Mockito.anyLong(), Mockito.anyLong(), Mockito.anyBoolean()))
+                .when(service.approve(Mockito.anyLong(), Mockito.anyLong(), Mockito.anyBoolean(), Mockito.isNull()))
                 .thenReturn(bookingDto);
 
         mockMvc.perform(MockMvcRequestBuilders.patch("/bookings/{bookingId}", bookingDto.getId())
@@ -138,6 +145,77 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.id", is(bookingDto.getId()), Long.class));
     }
 
+    @Test
+    public void approveBookingIfMatchTest() throws Exception {
+        BookingDto bookingDto = BookingMapper.toBookingDto(bookings.get(0));
+        bookingDto.setVersion(4L);
+        User user = users.get(0);
+        Mockito
+                .when(service.approve(bookingDto.getId(), user.getId(), true, 3L))
+                .thenReturn(bookingDto);
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/bookings/{bookingId}", bookingDto.getId())
+                        .header(X_SHARER_USER_ID, user.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .param("approved", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(jsonPath("$.version", is(4)));
+
+        Mockito
+                .when(service.approve(bookingDto.getId(), user.getId(), true, 4L))
+                .thenThrow(new PreconditionFailedException(String.format(ExceptionMessages.VERSION_MISMATCH, 4, 5)));
+        mockMvc.perform(MockMvcRequestBuilders.patch("/bookings/{bookingId}", bookingDto.getId())
+                        .header(X_SHARER_USER_ID, user.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"4\"")
+                        .param("approved", "true"))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/bookings/{bookingId}", bookingDto.getId())
+                        .header(X_SHARER_USER_ID, user.getId())
+                        .header(HttpHeaders.IF_MATCH, "W/\"4\"")
+                        .param("approved", "true"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void approveBookingConcurrentlyTest() throws Exception {
+        BookingDto bookingDto = BookingMapper.toBookingDto(bookings.get(0));
+        User user = users.get(0);
+        Mockito
+                .when(service.approve(Mockito.anyLong(), Mockito.anyLong(), Mockito.anyBoolean(), Mockito.isNull()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, bookingDto.getId()));
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/bookings/{bookingId}", bookingDto.getId())
+                        .header(X_SHARER_USER_ID, user.getId())
+                        .param("approved", "true"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error", is(ExceptionMessages.DATA_CHANGED)));
+    }
+
+    @Test
+    public void approveAllTest() throws Exception {
+        BookingDto bookingDto = BookingMapper.toBookingDto(bookings.get(0));
+        User user = users.get(0);
+        BookingApprovalResultDto approved = new BookingApprovalResultDto(bookingDto.getId());
+        approved.setBooking(bookingDto);
+        BookingApprovalResultDto failed = new BookingApprovalResultDto(2L);
+        failed.setError(ExceptionMessages.BOOKING_OVERLAP);
+        Mockito.when(service.approveAll(Mockito.anyList(), Mockito.eq(user.getId())))
+                .thenReturn(List.of(approved, failed));
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/bookings/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(gson.toJson(List.of(new BookingApprovalDto(bookingDto.getId(), true),
+                                new BookingApprovalDto(2L, true))))
+                        .header(X_SHARER_USER_ID, user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()", is(2)))
+                .andExpect(jsonPath("$[0].booking.id", is(bookingDto.getId()), Long.class))
+                .andExpect(jsonPath("$[1].bookingId", is(2L), Long.class))
+                .andExpect(jsonPath("$[1].error", is(ExceptionMessages.BOOKING_OVERLAP)));
+    }
+
     @Test
     public void getBookingTest() throws Exception {
         BookingDto bookingDto = BookingMapper.toBookingDto(bookings.get(0));
@@ -227,4 +305,33 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.error",
                         containsStringIgnoringCase(ExceptionMessages.UNKNOWN_STATE)));
     }
+
+    @Test
+    public void getAllByUserAfterCursorTest() throws Exception {
+        BookingDto bookingDto = BookingMapper.toBookingDto(bookings.get(0));
+        User user = users.get(0);
+        SeekCursor after = SeekCursor.of(bookingDto.getStart().plusDays(1), 99L);
+        Mockito
+                .when(service.getByBookerId(Mockito.anyLong(), Mockito.any(BookingSearchStatus.class),
+                        Mockito.eq(after), Mockito.anyInt()))
+                .thenReturn(List.of(bookingDto));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/bookings")
+                        .header(X_SHARER_USER_ID, user.getId())
+                        .param("after", after.encode())
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().string(SeekCursor.NEXT_CURSOR_HEADER,
+                        SeekCursor.of(bookingDto.getStart(), bookingDto.getId()).encode()));
+    }
+
+    @Test
+    public void getAllByOwnerWithInvalidCursorTest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/bookings/owner")
+                        .header(X_SHARER_USER_ID, users.get(0).getId())
+                        .param("after", SeekCursor.of(1L).encode()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is(ExceptionMessages.INVALID_CURSOR)));
+    }
 }
@@ -0,0 +1,50 @@
+package ru.practicum.shareit.booking;
+
+import org.h2.api.Trigger;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * H2 counterpart of PostgreSQL exclusion constraint {@code ex_bookings_item_id_period}.
+ * Item row is locked until transaction end, so bookings of item inserted by concurrent transactions
+ * are checked one by one and each check sees bookings committed before it.
+ * @author Evgeniy Lee
+ */
+public class BookingOverlapTrigger implements Trigger {
+    // Columns of bookings table in order of their declaration
+    private static final int ID = 0;
+    private static final int START_DATE = 1;
+    private static final int END_DATE = 2;
+    private static final int ITEM_ID = 3;
+    private static final int STATUS = 5;
+
+    @Override
+    public void fire(final Connection connection, final Object[] oldRow, final Object[] newRow) throws SQLException {
+        String status = (String) newRow[STATUS];
+        if (!BookingStatus.WAITING.name().equals(status) && !BookingStatus.APPROVED.name().equals(status)) {
+            return;
+        }
+        try (PreparedStatement lock = connection.prepareStatement("SELECT id FROM items WHERE id = ? FOR UPDATE")) {
+            lock.setObject(1, newRow[ITEM_ID]);
+            lock.executeQuery().close();
+        }
+        try (PreparedStatement check = connection.prepareStatement("SELECT id FROM bookings " +
+                "WHERE item_id = ? AND id <> ? AND status IN ('WAITING', 'APPROVED') " +
+                "AND end_date > ? AND start_date < ? LIMIT 1")) {
+            check.setObject(1, newRow[ITEM_ID]);
+            check.setObject(2, newRow[ID]);
+            check.setObject(3, newRow[START_DATE]);
+            check.setObject(4, newRow[END_DATE]);
+            try (ResultSet overlapping = check.executeQuery()) {
+                if (overlapping.next()) {
+                    throw new SQLException("Booking " + newRow[ID] + " overlaps booking " + overlapping.getLong(1)
+                            + ", constraint " + Booking.OVERLAP_CONSTRAINT, "23P01");
+                }
+            }
+        }
+    }
+}
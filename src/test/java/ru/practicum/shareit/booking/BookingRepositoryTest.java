@@ -8,16 +8,26 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.dto.BookingInterval;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingSearchStatus;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.exception.UnknownStateException;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.RequestRepository;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.util.SeekCursor;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @DataJpaTest
 public class BookingRepositoryTest {
@@ -75,18 +85,20 @@ public class BookingRepositoryTest {
         item2.setRequest(request2);
         items.add(itemRepository.save(item2));
 
+        // Keep booking dates within database timestamp precision
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
         Booking booking1 = new Booking();
         booking1.setBooker(user1);
         booking1.setItem(item1);
-        booking1.setStart(LocalDateTime.now().plusDays(1));
-        booking1.setEnd(LocalDateTime.now().plusDays(3));
+        booking1.setStart(now.plusDays(1));
+        booking1.setEnd(now.plusDays(3));
         bookings.add(bookingRepository.save(booking1));
 
         Booking booking2 = new Booking();
         booking2.setBooker(user2);
         booking2.setItem(item2);
-        booking2.setStart(LocalDateTime.now().plusDays(4));
-        booking2.setEnd(LocalDateTime.now().plusDays(7));
+        booking2.setStart(now.plusDays(4));
+        booking2.setEnd(now.plusDays(7));
         bookings.add(bookingRepository.save(booking2));
     }
 
@@ -103,28 +115,172 @@ public class BookingRepositoryTest {
     }
 
     @Test
-    public void findAllByBookerIdAndStartBeforeAndEndAfterTest() {
+    public void findByStateCurrentTest() {
         Pageable pageable = PageRequest.of(0 / 1, 1);
 
-        Assertions.assertEquals(List.of(bookings.get(0)),
-                bookingRepository.findAllByBookerIdAndStartBeforeAndEndAfter(users.get(0).getId(),
-                        LocalDateTime.now().plusDays(2), pageable));
+        Assertions.assertEquals(List.of(BookingMapper.toBookingDto(bookings.get(0))),
+                bookingRepository.findByState(BookingRole.BOOKER, users.get(0).getId(), BookingSearchStatus.CURRENT,
+                        LocalDateTime.now().plusDays(2), null, pageable));
+        Assertions.assertEquals(List.of(BookingMapper.toBookingDto(bookings.get(1))),
+                bookingRepository.findByState(BookingRole.BOOKER, users.get(1).getId(), BookingSearchStatus.CURRENT,
+                        LocalDateTime.now().plusDays(5), null, pageable));
 
-        Assertions.assertEquals(List.of(bookings.get(1)),
-                bookingRepository.findAllByBookerIdAndStartBeforeAndEndAfter(users.get(1).getId(),
-                        LocalDateTime.now().plusDays(5), pageable));
+        Assertions.assertEquals(List.of(BookingMapper.toBookingDto(bookings.get(0))),
+                bookingRepository.findByState(BookingRole.OWNER, users.get(1).getId(), BookingSearchStatus.CURRENT,
+                        LocalDateTime.now().plusDays(2), null, pageable));
+        Assertions.assertEquals(List.of(BookingMapper.toBookingDto(bookings.get(1))),
+                bookingRepository.findByState(BookingRole.OWNER, users.get(0).getId(), BookingSearchStatus.CURRENT,
+                        LocalDateTime.now().plusDays(5), null, pageable));
+        Assertions.assertEquals(List.of(),
+                bookingRepository.findByState(BookingRole.OWNER, users.get(0).getId(), BookingSearchStatus.CURRENT,
+                        LocalDateTime.now().plusDays(2), null, pageable));
     }
 
     @Test
-    public void findAllByItemOwnerIdAndStartBeforeAndEndAfterTest() {
-        Pageable pageable = PageRequest.of(0 / 1, 1);
+    public void findByStateAfterCursorTest() {
+        Pageable pageable = PageRequest.of(0, 1);
+        Booking booking = bookings.get(0);
+        Long bookerId = users.get(0).getId();
+        LocalDateTime start = booking.getStart();
+
+        Assertions.assertEquals(List.of(BookingMapper.toBookingDto(booking)),
+                bookingRepository.findByState(BookingRole.BOOKER, bookerId, BookingSearchStatus.ALL, null,
+                        SeekCursor.of(start.plusSeconds(1), booking.getId()), pageable));
+        Assertions.assertEquals(List.of(BookingMapper.toBookingDto(booking)),
+                bookingRepository.findByState(BookingRole.BOOKER, bookerId, BookingSearchStatus.ALL, null,
+                        SeekCursor.of(start, booking.getId() + 1), pageable));
+        Assertions.assertEquals(List.of(),
+                bookingRepository.findByState(BookingRole.BOOKER, bookerId, BookingSearchStatus.ALL, null,
+                        SeekCursor.of(start, booking.getId()), pageable));
+
+        booking = bookings.get(1);
+        Long ownerId = users.get(0).getId();
+        Assertions.assertEquals(List.of(BookingMapper.toBookingDto(booking)),
+                bookingRepository.findByState(BookingRole.OWNER, ownerId, BookingSearchStatus.FUTURE,
+                        LocalDateTime.now(), SeekCursor.of(booking.getStart().plusSeconds(1), 0L), pageable));
+        Assertions.assertEquals(List.of(),
+                bookingRepository.findByState(BookingRole.OWNER, ownerId, BookingSearchStatus.FUTURE,
+                        LocalDateTime.now(), SeekCursor.of(booking.getStart(), booking.getId()), pageable));
+    }
+
+    @Test
+    public void findByStateStatusTest() {
+        Pageable pageable = PageRequest.of(0, 10);
+        Booking booking = bookings.get(0);
+        booking.setStatus(BookingStatus.APPROVED);
+        bookingRepository.saveAndFlush(booking);
+        Long bookerId = users.get(0).getId();
+        Long ownerId = users.get(1).getId();
+
+        Assertions.assertEquals(List.of(BookingMapper.toBookingDto(booking)),
+                bookingRepository.findByState(BookingRole.BOOKER, bookerId, BookingSearchStatus.APPROVED, null,
+                        null, pageable));
+        Assertions.assertEquals(List.of(BookingMapper.toBookingDto(booking)),
+                bookingRepository.findByState(BookingRole.OWNER, ownerId, BookingSearchStatus.APPROVED, null,
+                        null, pageable));
+        Assertions.assertEquals(List.of(),
+                bookingRepository.findByState(BookingRole.BOOKER, bookerId, BookingSearchStatus.WAITING, null,
+                        null, pageable));
+        Assertions.assertEquals(List.of(BookingMapper.toBookingDto(bookings.get(1))),
+                bookingRepository.findByState(BookingRole.BOOKER, users.get(1).getId(), BookingSearchStatus.WAITING,
+                        null, null, pageable));
+    }
+
+    @Test
+    public void findByStateUnknownStateTest() {
+        Assertions.assertThrows(UnknownStateException.class,
+                () -> bookingRepository.findByState(BookingRole.BOOKER, users.get(0).getId(),
+                        BookingSearchStatus.UNSUPPORTED_STATUS, LocalDateTime.now(), null, PageRequest.of(0, 1)));
+    }
+
+    @Test
+    public void findAllOverlappingTest() {
+        Booking booking = bookings.get(0);
+        booking.setStatus(BookingStatus.APPROVED);
+        bookingRepository.saveAndFlush(booking);
+        List<Long> itemIds = List.of(items.get(0).getId(), items.get(1).getId());
+        Set<BookingStatus> statuses = Set.of(BookingStatus.APPROVED);
+
+        List<Booking> overlapping = bookingRepository.findAllOverlapping(itemIds, statuses,
+                booking.getStart().plusDays(1), bookings.get(1).getEnd());
+        Assertions.assertEquals(List.of(booking.getId()),
+                overlapping.stream().map(Booking::getId).collect(Collectors.toList()));
+        Assertions.assertEquals(List.of(), bookingRepository.findAllOverlapping(itemIds, statuses,
+                booking.getEnd(), bookings.get(1).getEnd()));
+    }
+
+    @Test
+    public void existsOverlappingTest() {
+        Booking booking = bookings.get(0);
+        Long itemId = booking.getItem().getId();
+        Set<BookingStatus> statuses = Set.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+
+        Assertions.assertTrue(bookingRepository.existsOverlapping(itemId,
+                statuses, booking.getStart().plusDays(1), booking.getEnd().plusDays(1)));
+        Assertions.assertTrue(bookingRepository.existsOverlapping(itemId,
+                statuses, booking.getStart().minusDays(1), booking.getStart().plusHours(1)));
+        // Booking starting when another one ends does not overlap it
+        Assertions.assertFalse(bookingRepository.existsOverlapping(itemId,
+                statuses, booking.getEnd(), booking.getEnd().plusDays(1)));
+        Assertions.assertFalse(bookingRepository.existsOverlapping(itemId,
+                statuses, booking.getStart().minusDays(1), booking.getStart()));
+        Assertions.assertFalse(bookingRepository.existsOverlapping(itemId,
+                Set.of(BookingStatus.APPROVED), booking.getStart(), booking.getEnd()));
+        Assertions.assertFalse(bookingRepository.existsOverlapping(
+                items.get(1).getId(), statuses, booking.getStart(), booking.getEnd()));
+    }
+
+    @Test
+    public void findIntervalsByItemIdTest() {
+        Booking booking = bookings.get(0);
+        Item item = booking.getItem();
+        User booker = users.get(0);
+        Booking past = createBooking(item, booker, booking.getStart().minusDays(10), BookingStatus.APPROVED);
+        createBooking(item, booker, booking.getStart().plusDays(4), BookingStatus.REJECTED);
+        Booking future = createBooking(item, booker, booking.getStart().plusDays(9), BookingStatus.APPROVED);
 
-        Assertions.assertEquals(List.of(bookings.get(0)),
-            bookingRepository.findAllByItemOwnerIdAndStartBeforeAndEndAfter(users.get(1).getId(),
-                    LocalDateTime.now().plusDays(2), pageable));
+        // Booking starting before period is read along with bookings starting within it
+        List<BookingInterval> intervals = bookingRepository.findIntervalsByItemId(item.getId(),
+                booking.getStart().plusDays(1), booking.getStart().plusDays(20), 10);
+        Assertions.assertEquals(List.of(booking.getStart(), future.getStart()),
+                intervals.stream().map(BookingInterval::getStart).collect(Collectors.toList()));
+        Assertions.assertEquals(List.of(booking.getEnd(), future.getEnd()),
+                intervals.stream().map(BookingInterval::getEnd).collect(Collectors.toList()));
+
+        intervals = bookingRepository.findIntervalsByItemId(item.getId(),
+                past.getStart().minusDays(1), future.getEnd(), 1);
+        Assertions.assertEquals(List.of(past.getStart()),
+                intervals.stream().map(BookingInterval::getStart).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void findLastAndNextByItemIdInTest() {
+        Item item = items.get(0);
+        User booker = users.get(0);
+        LocalDateTime now = LocalDateTime.now();
+        Booking next = bookings.get(0);
+        next.setStatus(BookingStatus.APPROVED);
+        bookingRepository.save(next);
+        createBooking(item, booker, now.minusDays(10), BookingStatus.APPROVED);
+        Booking last = createBooking(item, booker, now.minusDays(5), BookingStatus.APPROVED);
+        createBooking(item, booker, now.minusDays(2), BookingStatus.REJECTED);
+        createBooking(item, booker, now.plusDays(2), BookingStatus.APPROVED);
+
+        List<Booking> lastAndNext = bookingRepository.findLastAndNextByItemIdIn(
+                List.of(item.getId(), items.get(1).getId()), now);
+
+        Assertions.assertEquals(Set.of(last, next), new HashSet<>(lastAndNext));
+        Assertions.assertEquals(2, lastAndNext.size());
+    }
 
-        Assertions.assertEquals(List.of(bookings.get(1)),
-                bookingRepository.findAllByItemOwnerIdAndStartBeforeAndEndAfter(users.get(0).getId(),
-                        LocalDateTime.now().plusDays(5), pageable));
+    private Booking createBooking(final Item item, final User booker, final LocalDateTime start,
+                                  final BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setBooker(booker);
+        booking.setItem(item);
+        booking.setStart(start.truncatedTo(ChronoUnit.MICROS));
+        booking.setEnd(start.plusDays(1).truncatedTo(ChronoUnit.MICROS));
+        booking.setStatus(status);
+        return bookingRepository.save(booking);
     }
 }
@@ -7,6 +7,11 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingApprovalResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingSearchStatus;
@@ -18,6 +23,7 @@ import ru.practicum.shareit.messages.ExceptionMessages;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -32,6 +38,10 @@ public class BookingServiceIntegrationTest {
     private ItemRepository itemRepository;
     @Autowired
     private BookingService bookingService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
 
     private final List<User> users = new ArrayList<>();
     private final List<Item> items = new ArrayList<>();
@@ -40,6 +50,8 @@ public class BookingServiceIntegrationTest {
     @BeforeEach
     @Sql({"schema.sql"})
     public void beforeEach() {
+        // Bookings of other tests would be found by list queries of the same booker and owner
+        bookingRepository.deleteAllInBatch();
         users.clear();
         User user1 = new User();
         user1.setId(1L);
@@ -56,42 +68,45 @@ public class BookingServiceIntegrationTest {
 
         items.clear();
         Item item1 = new Item();
-        item1.setId(1L);
         item1.setName("Item 1");
         item1.setDescription("Item description 1");
         item1.setAvailable(true);
         item1.setOwner(user1);
-        items.add(item1);
-        itemRepository.save(item1);
+        // Items and bookings get IDs from sequences, so every test has its own rows
+        items.add(itemRepository.save(item1));
 
         bookings.clear();
         Booking booking1 = new Booking();
-        booking1.setId(1L);
-        booking1.setStart(LocalDateTime.now());
-        booking1.setEnd(LocalDateTime.now().plusDays(7));
-        booking1.setItem(item1);
+        booking1.setStart(now());
+        booking1.setEnd(now().plusDays(7));
+        booking1.setItem(items.get(0));
         booking1.setBooker(user2);
-        bookings.add(booking1);
-        bookingRepository.save(booking1);
+        bookings.add(bookingRepository.save(booking1));
     }
 
     @Test
     public void createBookingTest() {
         Booking booking = bookings.get(0);
         User user = users.get(1);
+        // Booking must not overlap booking saved before test
+        booking.setStart(booking.getEnd().plusHours(1));
+        booking.setEnd(booking.getEnd().plusDays(1));
         BookingDto actualBooking = bookingService.create(BookingMapper.toBriefBookingDto(booking), user.getId());
         BookingDto expectedBooking = BookingMapper.toBookingDto(booking);
+        // Client ID is ignored, booking gets ID from sequence
+        expectedBooking.setId(actualBooking.getId());
+        expectedBooking.setVersion(actualBooking.getVersion());
 
         Assertions.assertEquals(expectedBooking, actualBooking);
     }
 
     @Test
     public void approveBookingTest() {
-        Booking booking = bookings.get(0);
-        bookingRepository.save(booking);
+        Booking booking = save(bookings.get(0));
         BookingDto actualBooking = bookingService.approve(booking.getId(), users.get(0).getId(), true);
         BookingDto expectedBooking = BookingMapper.toBookingDto(booking);
         expectedBooking.setStatus(BookingStatus.APPROVED);
+        expectedBooking.setVersion(booking.getVersion() + 1);
 
         Assertions.assertEquals(expectedBooking, actualBooking);
     }
@@ -107,13 +122,48 @@ public class BookingServiceIntegrationTest {
         Assertions.assertEquals(ExceptionMessages.ACCESS_DENIED, exception.getMessage());
     }
 
+    @Test
+    public void approveAllReportsConcurrentChangeTest() {
+        Booking changed = bookings.get(0);
+        Booking other = new Booking();
+        other.setStart(changed.getEnd().plusDays(1));
+        other.setEnd(changed.getEnd().plusDays(2));
+        other.setItem(items.get(0));
+        other.setBooker(users.get(1));
+        bookingRepository.save(other);
+
+        TransactionTemplate concurrent = new TransactionTemplate(transactionManager);
+        concurrent.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        List<BookingApprovalResultDto> results = transactionTemplate.execute(status -> {
+            // Booking is read by batch before it is changed and committed by other transaction
+            bookingRepository.findById(changed.getId()).orElseThrow();
+            concurrent.executeWithoutResult(rejection -> {
+                Booking booking = bookingRepository.findById(changed.getId()).orElseThrow();
+                booking.setStatus(BookingStatus.REJECTED);
+            });
+            return bookingService.approveAll(List.of(
+                    new BookingApprovalDto(changed.getId(), true),
+                    new BookingApprovalDto(other.getId(), true)
+            ), users.get(0).getId());
+        });
+
+        Assertions.assertEquals(ExceptionMessages.DATA_CHANGED, results.get(0).getError());
+        Assertions.assertNull(results.get(0).getBooking());
+        Assertions.assertNull(results.get(1).getError());
+        Assertions.assertEquals(BookingStatus.APPROVED, results.get(1).getBooking().getStatus());
+        Assertions.assertEquals(other.getVersion() + 1, results.get(1).getBooking().getVersion());
+        Assertions.assertEquals(BookingStatus.REJECTED,
+                bookingRepository.findById(changed.getId()).orElseThrow().getStatus());
+        Assertions.assertEquals(BookingStatus.APPROVED,
+                bookingRepository.findById(other.getId()).orElseThrow().getStatus());
+    }
+
     @Test
     public void getByBookerIdTest() {
         User booker = users.get(1);
 
-        final Booking booking = bookings.get(0);
-        bookingRepository.save(booking);
-        List<BookingDto> expectedBookings = BookingMapper.toBookingDtoList(bookings);
+        Booking booking = save(bookings.get(0));
+        List<BookingDto> expectedBookings = BookingMapper.toBookingDtoList(List.of(booking));
         List<BookingDto> actualBookings =
                 bookingService.getByBookerId(booker.getId(), BookingSearchStatus.ALL, 0, 1);
         Assertions.assertEquals(expectedBookings, actualBookings);
@@ -124,8 +174,8 @@ public class BookingServiceIntegrationTest {
 
 
         booking.setStatus(BookingStatus.REJECTED);
-        bookingRepository.save(booking);
-        expectedBookings = BookingMapper.toBookingDtoList(bookings);
+        save(booking);
+        expectedBookings = BookingMapper.toBookingDtoList(List.of(booking));
         actualBookings =
                 bookingService.getByBookerId(booker.getId(), BookingSearchStatus.REJECTED, 0, 1);
         Assertions.assertEquals(expectedBookings, actualBookings);
@@ -134,18 +184,18 @@ public class BookingServiceIntegrationTest {
                 bookingService.getByBookerId(booker.getId(), BookingSearchStatus.CURRENT, 0, 1);
         Assertions.assertEquals(expectedBookings, actualBookings);
 
-        booking.setStart(LocalDateTime.now().minusDays(7));
-        booking.setEnd(LocalDateTime.now().minusDays(5));
-        bookingRepository.save(booking);
-        expectedBookings = BookingMapper.toBookingDtoList(bookings);
+        booking.setStart(now().minusDays(7));
+        booking.setEnd(now().minusDays(5));
+        save(booking);
+        expectedBookings = BookingMapper.toBookingDtoList(List.of(booking));
         actualBookings =
                 bookingService.getByBookerId(booker.getId(), BookingSearchStatus.PAST, 0, 1);
         Assertions.assertEquals(expectedBookings, actualBookings);
 
-        booking.setStart(LocalDateTime.now().plusDays(5));
-        booking.setEnd(LocalDateTime.now().plusDays(7));
-        bookingRepository.save(booking);
-        expectedBookings = BookingMapper.toBookingDtoList(bookings);
+        booking.setStart(now().plusDays(5));
+        booking.setEnd(now().plusDays(7));
+        save(booking);
+        expectedBookings = BookingMapper.toBookingDtoList(List.of(booking));
         actualBookings =
                 bookingService.getByBookerId(booker.getId(), BookingSearchStatus.FUTURE, 0, 1);
         Assertions.assertEquals(expectedBookings, actualBookings);
@@ -154,9 +204,8 @@ public class BookingServiceIntegrationTest {
     @Test
     public void getByOwnerIdTest() {
         User owner = users.get(0);
-        final Booking booking = bookings.get(0);
-        bookingRepository.save(booking);
-        List<BookingDto> expectedBookings = BookingMapper.toBookingDtoList(bookings);
+        Booking booking = save(bookings.get(0));
+        List<BookingDto> expectedBookings = BookingMapper.toBookingDtoList(List.of(booking));
         List<BookingDto> actualBookings =
                 bookingService.getByOwnerId(owner.getId(), BookingSearchStatus.ALL, 0, 1);
         Assertions.assertEquals(expectedBookings, actualBookings);
@@ -167,8 +216,8 @@ public class BookingServiceIntegrationTest {
 
 
         booking.setStatus(BookingStatus.REJECTED);
-        bookingRepository.save(booking);
-        expectedBookings = BookingMapper.toBookingDtoList(bookings);
+        save(booking);
+        expectedBookings = BookingMapper.toBookingDtoList(List.of(booking));
         actualBookings =
                 bookingService.getByOwnerId(owner.getId(), BookingSearchStatus.REJECTED, 0, 1);
         Assertions.assertEquals(expectedBookings, actualBookings);
@@ -177,20 +226,31 @@ public class BookingServiceIntegrationTest {
                 bookingService.getByOwnerId(owner.getId(), BookingSearchStatus.CURRENT, 0, 1);
         Assertions.assertEquals(expectedBookings, actualBookings);
 
-        booking.setStart(LocalDateTime.now().minusDays(7));
-        booking.setEnd(LocalDateTime.now().minusDays(5));
-        bookingRepository.save(booking);
-        expectedBookings = BookingMapper.toBookingDtoList(bookings);
+        booking.setStart(now().minusDays(7));
+        booking.setEnd(now().minusDays(5));
+        save(booking);
+        expectedBookings = BookingMapper.toBookingDtoList(List.of(booking));
         actualBookings =
                 bookingService.getByOwnerId(owner.getId(), BookingSearchStatus.PAST, 0, 1);
         Assertions.assertEquals(expectedBookings, actualBookings);
 
-        booking.setStart(LocalDateTime.now().plusDays(5));
-        booking.setEnd(LocalDateTime.now().plusDays(7));
-        bookingRepository.save(booking);
-        expectedBookings = BookingMapper.toBookingDtoList(bookings);
+        booking.setStart(now().plusDays(5));
+        booking.setEnd(now().plusDays(7));
+        save(booking);
+        expectedBookings = BookingMapper.toBookingDtoList(List.of(booking));
         actualBookings =
                 bookingService.getByOwnerId(owner.getId(), BookingSearchStatus.FUTURE, 0, 1);
         Assertions.assertEquals(expectedBookings, actualBookings);
     }
+
+    // Save booking and take version of stored row, so expected bookings are built from local copy with version
+    private Booking save(final Booking booking) {
+        booking.setVersion(bookingRepository.save(booking).getVersion());
+        return booking;
+    }
+
+    // DB keeps timestamps with microseconds, so bookings read back equal the saved ones
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
 }
@@ -8,22 +8,40 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingApprovalResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingRole;
 import ru.practicum.shareit.booking.model.BookingSearchStatus;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.exception.PreconditionFailedException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.ItemDtoCache;
+import ru.practicum.shareit.item.ItemSuggestIndex;
+import ru.practicum.shareit.item.ItemSummaryUpdater;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.messages.ExceptionMessages;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.util.SeekCursor;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @ExtendWith(MockitoExtension.class)
 public class BookingServiceTest {
+    // States which bookings are listed by
+    private static final Set<BookingSearchStatus> SEARCH_STATUSES =
+            EnumSet.complementOf(EnumSet.of(BookingSearchStatus.UNSUPPORTED_STATUS));
+
     @Mock
     private BookingRepository bookingRepository;
 
@@ -33,6 +51,21 @@ public class BookingServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private BookingTimeline bookingTimeline;
+
+    @Mock
+    private ItemDtoCache itemDtoCache;
+
+    @Mock
+    private ItemSuggestIndex suggestIndex;
+
+    @Mock
+    private ItemSummaryUpdater summaryUpdater;
+
+    @Mock
+    private ItemBookingLocks itemLocks;
+
     @InjectMocks
     private BookingServiceImpl bookingService;
 
@@ -80,11 +113,17 @@ public class BookingServiceTest {
         Item item = items.get(0);
         Mockito.when(userRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(user));
         Mockito.when(itemRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(item));
-        Mockito.when(bookingRepository.save(Mockito.any(Booking.class))).thenReturn(booking);
+        Mockito.when(bookingRepository.saveAndFlush(Mockito.any(Booking.class))).thenAnswer(invocation -> {
+            Booking saved = invocation.getArgument(0);
+            Assertions.assertNull(saved.getId());
+            saved.setId(booking.getId());
+            return saved;
+        });
         BookingDto actualBooking = bookingService.create(BookingMapper.toBriefBookingDto(booking), user.getId());
         BookingDto expectedBooking = BookingMapper.toBookingDto(booking);
 
         Assertions.assertEquals(expectedBooking, actualBooking);
+        Mockito.verify(itemLocks).lockUntilCompletion(item.getId());
     }
 
     @Test
@@ -98,111 +137,197 @@ public class BookingServiceTest {
         expectedBooking.setStatus(BookingStatus.APPROVED);
 
         Assertions.assertEquals(expectedBooking, actualBooking);
+        Mockito.verify(bookingTimeline).add(booking);
+        Mockito.verify(itemDtoCache).invalidate(item.getId());
     }
 
     @Test
-    public void getByBookerIdTest() {
-        User booker = users.get(1);
-        List<BookingDto> expectedBookings = BookingMapper.toBookingDtoList(bookings);
-        Mockito.when(userRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(booker));
-        Mockito
-                .when(bookingRepository.findAllByBookerId(Mockito.anyLong(), Mockito.any(Pageable.class)))
-                .thenReturn(bookings);
-        List<BookingDto> actualBookings =
-                bookingService.getByBookerId(booker.getId(), BookingSearchStatus.ALL, 0, 1);
-        Assertions.assertEquals(expectedBookings, actualBookings);
+    public void createOverlappingBookingTest() {
+        Booking booking = bookings.get(0);
+        User user = users.get(1);
+        Item item = items.get(0);
+        Mockito.when(userRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(user));
+        Mockito.when(itemRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(item));
+        Mockito.when(bookingRepository.existsOverlapping(item.getId(),
+                        Set.of(BookingStatus.WAITING, BookingStatus.APPROVED), booking.getStart(), booking.getEnd()))
+                .thenReturn(true);
 
-        Mockito
-                .when(bookingRepository.findAllByBookerIdAndStatus(Mockito.anyLong(),
-                        Mockito.any(BookingStatus.class), Mockito.any(Pageable.class)))
-                .thenReturn(bookings);
-        actualBookings =
-                bookingService.getByBookerId(booker.getId(), BookingSearchStatus.WAITING, 0, 1);
-        Assertions.assertEquals(expectedBookings, actualBookings);
+        ValidationException exception = Assertions.assertThrows(ValidationException.class,
+                () -> bookingService.create(BookingMapper.toBriefBookingDto(booking), user.getId()));
+        Assertions.assertEquals(ExceptionMessages.BOOKING_OVERLAP, exception.getMessage());
+        Mockito.verify(bookingRepository, Mockito.never()).saveAndFlush(Mockito.any(Booking.class));
+    }
 
-        Mockito
-                .when(bookingRepository.findAllByBookerIdAndStatus(Mockito.anyLong(),
-                        Mockito.any(BookingStatus.class), Mockito.any(Pageable.class)))
-                .thenReturn(bookings);
-        actualBookings =
-                bookingService.getByBookerId(booker.getId(), BookingSearchStatus.REJECTED, 0, 1);
-        Assertions.assertEquals(expectedBookings, actualBookings);
+    @Test
+    public void createBookingRejectedByDbTest() {
+        Booking booking = bookings.get(0);
+        User user = users.get(1);
+        Item item = items.get(0);
+        Mockito.when(userRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(user));
+        Mockito.when(itemRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(item));
+        // Booking of item inserted by another application instance after overlap check
+        Mockito.when(bookingRepository.saveAndFlush(Mockito.any(Booking.class))).thenThrow(
+                new DataIntegrityViolationException("could not execute statement",
+                        new SQLException("conflicting key value violates exclusion constraint \""
+                                + Booking.OVERLAP_CONSTRAINT + "\"", "23P01")));
 
-        Mockito
-                .when(bookingRepository.findAllByBookerIdAndStartBeforeAndEndAfter(Mockito.anyLong(),
-                        Mockito.any(LocalDateTime.class), Mockito.any(Pageable.class)))
-                .thenReturn(bookings);
-        actualBookings =
-                bookingService.getByBookerId(booker.getId(), BookingSearchStatus.CURRENT, 0, 1);
-        Assertions.assertEquals(expectedBookings, actualBookings);
+        ValidationException exception = Assertions.assertThrows(ValidationException.class,
+                () -> bookingService.create(BookingMapper.toBriefBookingDto(booking), user.getId()));
+        Assertions.assertEquals(ExceptionMessages.BOOKING_OVERLAP, exception.getMessage());
+        Mockito.verifyNoInteractions(bookingTimeline, summaryUpdater);
+    }
 
-        Mockito
-                .when(bookingRepository.findAllByBookerIdAndEndBefore(Mockito.anyLong(),
-                        Mockito.any(LocalDateTime.class), Mockito.any(Pageable.class)))
-                .thenReturn(bookings);
-        actualBookings =
-                bookingService.getByBookerId(booker.getId(), BookingSearchStatus.PAST, 0, 1);
-        Assertions.assertEquals(expectedBookings, actualBookings);
+    @Test
+    public void approveOverlappingBookingTest() {
+        Booking booking = bookings.get(0);
+        Item item = items.get(0);
+        Mockito.when(bookingRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(booking));
+        Mockito.when(bookingRepository.existsOverlapping(item.getId(),
+                        Set.of(BookingStatus.APPROVED), booking.getStart(), booking.getEnd()))
+                .thenReturn(true);
 
-        Mockito
-                .when(bookingRepository.findAllByBookerIdAndStartAfter(Mockito.anyLong(),
-                        Mockito.any(LocalDateTime.class), Mockito.any(Pageable.class)))
-                .thenReturn(bookings);
-        actualBookings =
-                bookingService.getByBookerId(booker.getId(), BookingSearchStatus.FUTURE, 0, 1);
-        Assertions.assertEquals(expectedBookings, actualBookings);
+        ValidationException exception = Assertions.assertThrows(ValidationException.class,
+                () -> bookingService.approve(booking.getId(), users.get(0).getId(), true));
+        Assertions.assertEquals(ExceptionMessages.BOOKING_OVERLAP, exception.getMessage());
+        Assertions.assertEquals(BookingStatus.WAITING, booking.getStatus());
+
+        // Rejecting does not check overlaps
+        bookingService.approve(booking.getId(), users.get(0).getId(), false);
+        Assertions.assertEquals(BookingStatus.REJECTED, booking.getStatus());
     }
 
     @Test
-    public void getByOwnerIdTest() {
+    public void approveChangedBookingTest() {
+        Booking booking = bookings.get(0);
+        booking.setVersion(2);
+        Mockito.when(bookingRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(booking));
+
+        PreconditionFailedException exception = Assertions.assertThrows(PreconditionFailedException.class,
+                () -> bookingService.approve(booking.getId(), users.get(0).getId(), true, 1L));
+        Assertions.assertEquals(String.format(ExceptionMessages.VERSION_MISMATCH, 1, 2), exception.getMessage());
+        Assertions.assertEquals(BookingStatus.WAITING, booking.getStatus());
+
+        BookingDto actualBooking = bookingService.approve(booking.getId(), users.get(0).getId(), true, 2L);
+        Assertions.assertEquals(BookingStatus.APPROVED, actualBooking.getStatus());
+        Mockito.verify(bookingRepository).flush();
+    }
+
+    @Test
+    public void approveAllTest() {
         User owner = users.get(0);
-        List<BookingDto> expectedBookings = BookingMapper.toBookingDtoList(bookings);
-        Mockito.when(userRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(owner));
-        Mockito
-                .when(bookingRepository.findAllByItemOwnerId(Mockito.anyLong(), Mockito.any(Pageable.class)))
-                .thenReturn(bookings);
-        List<BookingDto> actualBookings =
-                bookingService.getByOwnerId(owner.getId(), BookingSearchStatus.ALL, 0, 1);
-        Assertions.assertEquals(expectedBookings, actualBookings);
+        Item item = items.get(0);
+        Item otherItem = new Item();
+        otherItem.setId(2L);
+        otherItem.setOwner(users.get(1));
+        Booking booking = bookings.get(0);
+        Booking overlapping = createBooking(2L, item, booking.getStart().plusDays(1));
+        Booking rejected = createBooking(3L, item, booking.getStart().plusDays(1));
+        Booking foreign = createBooking(4L, otherItem, booking.getStart());
+        Mockito.when(userRepository.findById(owner.getId())).thenReturn(Optional.of(owner));
+        Mockito.when(bookingRepository.findAllById(Mockito.anyIterable()))
+                .thenReturn(List.of(booking, overlapping, rejected, foreign));
+        Mockito.when(bookingRepository.findAllOverlapping(Mockito.anyCollection(), Mockito.anyCollection(),
+                        Mockito.any(LocalDateTime.class), Mockito.any(LocalDateTime.class)))
+                .thenReturn(List.of());
+        Mockito.when(bookingRepository.updateStatuses(Mockito.anyList(), Mockito.anyList()))
+                .thenAnswer(invocation -> {
+                    List<Booking> updated = invocation.getArgument(0);
+                    List<BookingStatus> statuses = invocation.getArgument(1);
+                    for (int i = 0; i < updated.size(); i++) {
+                        updated.get(i).setStatus(statuses.get(i));
+                    }
+                    return Set.of();
+                });
 
-        Mockito
-                .when(bookingRepository.findAllByItemOwnerIdAndStatus(Mockito.anyLong(),
-                        Mockito.any(BookingStatus.class), Mockito.any(Pageable.class)))
-                .thenReturn(bookings);
-        actualBookings =
-                bookingService.getByOwnerId(owner.getId(), BookingSearchStatus.WAITING, 0, 1);
-        Assertions.assertEquals(expectedBookings, actualBookings);
+        List<BookingApprovalResultDto> results = bookingService.approveAll(List.of(
+                new BookingApprovalDto(booking.getId(), true),
+                new BookingApprovalDto(overlapping.getId(), true),
+                new BookingApprovalDto(rejected.getId(), false),
+                new BookingApprovalDto(foreign.getId(), true),
+                new BookingApprovalDto(booking.getId(), false),
+                new BookingApprovalDto(5L, true),
+                new BookingApprovalDto(null, true)
+        ), owner.getId());
 
+        Assertions.assertEquals(7, results.size());
+        Assertions.assertEquals(BookingStatus.APPROVED, results.get(0).getBooking().getStatus());
+        Assertions.assertEquals(ExceptionMessages.BOOKING_OVERLAP, results.get(1).getError());
+        Assertions.assertEquals(BookingStatus.WAITING, overlapping.getStatus());
+        Assertions.assertEquals(BookingStatus.REJECTED, results.get(2).getBooking().getStatus());
+        Assertions.assertEquals(ExceptionMessages.ACCESS_DENIED, results.get(3).getError());
+        Assertions.assertEquals(BookingStatus.WAITING, foreign.getStatus());
+        Assertions.assertEquals(ExceptionMessages.INVALID_DATA, results.get(4).getError());
+        Assertions.assertEquals(ExceptionMessages.DATA_NOT_FOUND, results.get(5).getError());
+        Assertions.assertEquals(ExceptionMessages.INVALID_DATA, results.get(6).getError());
+        Mockito.verify(bookingRepository).findAllOverlapping(Mockito.eq(Set.of(item.getId())),
+                Mockito.anyCollection(), Mockito.any(LocalDateTime.class), Mockito.any(LocalDateTime.class));
+        Mockito.verify(itemLocks).lockUntilCompletion(item.getId());
+        Mockito.verify(bookingRepository).updateStatuses(List.of(booking, rejected),
+                List.of(BookingStatus.APPROVED, BookingStatus.REJECTED));
+        Mockito.verify(itemDtoCache).invalidate(item.getId());
+    }
+
+    @Test
+    public void getByBookerIdTest() {
+        User booker = users.get(1);
+        List<BookingDto> expectedBookings = BookingMapper.toBookingDtoList(bookings);
+        Mockito.when(userRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(booker));
         Mockito
-                .when(bookingRepository.findAllByItemOwnerIdAndStatus(Mockito.anyLong(),
-                        Mockito.any(BookingStatus.class), Mockito.any(Pageable.class)))
-                .thenReturn(bookings);
-        actualBookings =
-                bookingService.getByOwnerId(owner.getId(), BookingSearchStatus.REJECTED, 0, 1);
-        Assertions.assertEquals(expectedBookings, actualBookings);
+                .when(bookingRepository.findByState(Mockito.eq(BookingRole.BOOKER), Mockito.eq(booker.getId()),
+                        Mockito.any(BookingSearchStatus.class), Mockito.any(LocalDateTime.class),
+                        Mockito.isNull(), Mockito.any(Pageable.class)))
+                .thenReturn(expectedBookings);
+        for (BookingSearchStatus status : SEARCH_STATUSES) {
+            List<BookingDto> actualBookings = bookingService.getByBookerId(booker.getId(), status, 0, 1);
+            Assertions.assertEquals(expectedBookings, actualBookings);
+        }
 
+        SeekCursor after = SeekCursor.of(LocalDateTime.now(), 1L);
         Mockito
-                .when(bookingRepository.findAllByItemOwnerIdAndStartBeforeAndEndAfter(Mockito.anyLong(),
-                        Mockito.any(LocalDateTime.class), Mockito.any(Pageable.class)))
-                .thenReturn(bookings);
-        actualBookings =
-                bookingService.getByOwnerId(owner.getId(), BookingSearchStatus.CURRENT, 0, 1);
-        Assertions.assertEquals(expectedBookings, actualBookings);
+                .when(bookingRepository.findByState(Mockito.eq(BookingRole.BOOKER), Mockito.eq(booker.getId()),
+                        Mockito.any(BookingSearchStatus.class), Mockito.any(LocalDateTime.class),
+                        Mockito.eq(after), Mockito.any(Pageable.class)))
+                .thenReturn(expectedBookings);
+        for (BookingSearchStatus status : SEARCH_STATUSES) {
+            List<BookingDto> actualBookings = bookingService.getByBookerId(booker.getId(), status, after, 1);
+            Assertions.assertEquals(expectedBookings, actualBookings);
+        }
+    }
 
+    @Test
+    public void getByOwnerIdTest() {
+        User owner = users.get(0);
+        List<BookingDto> expectedBookings = BookingMapper.toBookingDtoList(bookings);
+        Mockito.when(userRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(owner));
         Mockito
-                .when(bookingRepository.findAllByItemOwnerIdAndEndBefore(Mockito.anyLong(),
-                        Mockito.any(LocalDateTime.class), Mockito.any(Pageable.class)))
-                .thenReturn(bookings);
-        actualBookings =
-                bookingService.getByOwnerId(owner.getId(), BookingSearchStatus.PAST, 0, 1);
-        Assertions.assertEquals(expectedBookings, actualBookings);
+                .when(bookingRepository.findByState(Mockito.eq(BookingRole.OWNER), Mockito.eq(owner.getId()),
+                        Mockito.any(BookingSearchStatus.class), Mockito.any(LocalDateTime.class),
+                        Mockito.isNull(), Mockito.any(Pageable.class)))
+                .thenReturn(expectedBookings);
+        for (BookingSearchStatus status : SEARCH_STATUSES) {
+            List<BookingDto> actualBookings = bookingService.getByOwnerId(owner.getId(), status, 0, 1);
+            Assertions.assertEquals(expectedBookings, actualBookings);
+        }
 
+        SeekCursor after = SeekCursor.of(LocalDateTime.now(), 1L);
         Mockito
-                .when(bookingRepository.findAllByItemOwnerIdAndStartAfter(Mockito.anyLong(),
-                        Mockito.any(LocalDateTime.class), Mockito.any(Pageable.class)))
-                .thenReturn(bookings);
-        actualBookings =
-                bookingService.getByOwnerId(owner.getId(), BookingSearchStatus.FUTURE, 0, 1);
-        Assertions.assertEquals(expectedBookings, actualBookings);
+                .when(bookingRepository.findByState(Mockito.eq(BookingRole.OWNER), Mockito.eq(owner.getId()),
+                        Mockito.any(BookingSearchStatus.class), Mockito.any(LocalDateTime.class),
+                        Mockito.eq(after), Mockito.any(Pageable.class)))
+                .thenReturn(expectedBookings);
+        for (BookingSearchStatus status : SEARCH_STATUSES) {
+            List<BookingDto> actualBookings = bookingService.getByOwnerId(owner.getId(), status, after, 1);
+            Assertions.assertEquals(expectedBookings, actualBookings);
+        }
+    }
+
+    private Booking createBooking(final Long id, final Item item, final LocalDateTime start) {
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setStart(start);
+        booking.setEnd(start.plusDays(1));
+        booking.setItem(item);
+        booking.setBooker(users.get(1));
+        return booking;
     }
-}
\ No newline at end of file
+}
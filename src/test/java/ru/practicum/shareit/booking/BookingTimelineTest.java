@@ -0,0 +1,112 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.dto.BriefBookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserDeletedEvent;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingTimelineTest {
+    @Mock
+    private BookingRepository bookingRepository;
+    @InjectMocks
+    private BookingTimeline bookingTimeline;
+
+    private final LocalDateTime now = LocalDateTime.of(2023, 5, 10, 12, 0);
+    private final User owner = createUser(1L);
+    private final User booker = createUser(2L);
+    private final Item item = new Item();
+
+    @BeforeEach
+    public void beforeEach() {
+        item.setId(1L);
+        item.setName("Item 1");
+        item.setDescription("Item description 1");
+        item.setAvailable(true);
+        item.setOwner(owner);
+
+        Mockito
+                .when(bookingRepository.findAllByStatusAndIdGreaterThan(Mockito.eq(BookingStatus.APPROVED),
+                        Mockito.anyLong(), Mockito.any(Pageable.class)))
+                .thenReturn(List.of(
+                        createBooking(1L, now.minusDays(10), BookingStatus.APPROVED),
+                        createBooking(2L, now.minusDays(5), BookingStatus.APPROVED),
+                        createBooking(3L, now.plusDays(5), BookingStatus.APPROVED)))
+                .thenReturn(List.of());
+        bookingTimeline.rebuild();
+    }
+
+    @Test
+    public void findBeforeBuildTest() {
+        BookingTimeline coldTimeline = new BookingTimeline(bookingRepository);
+
+        Assertions.assertFalse(coldTimeline.isWarm());
+        Assertions.assertNull(coldTimeline.findLast(item.getId(), now));
+    }
+
+    @Test
+    public void findLastAndNextTest() {
+        Assertions.assertTrue(bookingTimeline.isWarm());
+        Assertions.assertEquals(2L, bookingTimeline.findLast(item.getId(), now).getId());
+        Assertions.assertEquals(3L, bookingTimeline.findNext(item.getId(), now).getId());
+        Assertions.assertNull(bookingTimeline.findLast(item.getId(), now.minusDays(10)));
+        Assertions.assertNull(bookingTimeline.findNext(item.getId(), now.plusDays(5)));
+        Assertions.assertNull(bookingTimeline.findNext(99L, now));
+    }
+
+    @Test
+    public void addTest() {
+        bookingTimeline.add(createBooking(4L, now.plusDays(1), BookingStatus.WAITING));
+        Assertions.assertEquals(3L, bookingTimeline.findNext(item.getId(), now).getId());
+
+        bookingTimeline.add(createBooking(4L, now.plusDays(1), BookingStatus.APPROVED));
+        BriefBookingDto next = bookingTimeline.findNext(item.getId(), now);
+        Assertions.assertEquals(4L, next.getId());
+        Assertions.assertEquals(booker.getId(), next.getBookerId());
+
+        next.setStart(now.plusDays(30));
+        Assertions.assertEquals(now.plusDays(1), bookingTimeline.findNext(item.getId(), now).getStart());
+    }
+
+    @Test
+    public void removeTest() {
+        bookingTimeline.onUserDeleted(new UserDeletedEvent(booker.getId()));
+        Assertions.assertNull(bookingTimeline.findLast(item.getId(), now));
+
+        bookingTimeline.add(createBooking(4L, now.plusDays(1), BookingStatus.APPROVED));
+        bookingTimeline.removeItem(item.getId());
+        Assertions.assertNull(bookingTimeline.findNext(item.getId(), now));
+    }
+
+    private Booking createBooking(final Long id, final LocalDateTime start, final BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setStart(start);
+        booking.setEnd(start.plusDays(1));
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStatus(status);
+        return booking;
+    }
+
+    private static User createUser(final Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setName("User " + id);
+        user.setEmail("user" + id + "@yandex.ru");
+        return user;
+    }
+}
@@ -0,0 +1,85 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import ru.practicum.shareit.TestFixtures;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.util.SeekCursor;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@SpringBootTest(properties = "spring.datasource.url = jdbc:h2:mem:comments")
+@Sql("classpath:schema.sql")
+public class ItemCommentsIntegrationTest {
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Test
+    public void commentsTest() {
+        UserDto owner = userService.create(TestFixtures.user("owner@yandex.ru"));
+        UserDto booker = userService.create(TestFixtures.user("booker@yandex.ru"));
+        Long itemId = itemService.create(TestFixtures.drill(), owner.getId()).getId();
+
+        Booking booking = new Booking();
+        booking.setStart(LocalDateTime.now().minusDays(2));
+        booking.setEnd(LocalDateTime.now().minusDays(1));
+        booking.setItem(itemRepository.getReferenceById(itemId));
+        booking.setBooker(userRepository.getReferenceById(booker.getId()));
+        booking.setStatus(BookingStatus.APPROVED);
+        bookingRepository.save(booking);
+
+        List<Long> commentIds = new ArrayList<>();
+        for (int i = 1; i <= 25; i++) {
+            CommentDto commentDto = new CommentDto();
+            commentDto.setText("Comment " + i);
+            commentIds.add(itemService.createComment(itemId, booker.getId(), commentDto).getId());
+        }
+
+        // Item shows count of all comments and the latest ten of them in order of creation
+        ItemDto item = itemService.get(itemId, booker.getId());
+        Assertions.assertEquals(25, item.getCommentCount());
+        Assertions.assertEquals(commentIds.subList(15, 25), ids(item.getComments()));
+        ItemDto ownerItem = itemService.getByOwner(owner.getId(), 0, 10).get(0);
+        Assertions.assertEquals(25, ownerItem.getCommentCount());
+        Assertions.assertEquals(commentIds.subList(15, 25), ids(ownerItem.getComments()));
+
+        // Comments are paged from the latest
+        List<Long> pagedIds = new ArrayList<>();
+        SeekCursor after = null;
+        List<CommentDto> page;
+        do {
+            page = itemService.getComments(itemId, after, 10);
+            pagedIds.addAll(ids(page));
+            after = page.isEmpty() ? null : SeekCursor.of(page.get(page.size() - 1).getId());
+        } while (page.size() == 10);
+        List<Long> expectedIds = new ArrayList<>(commentIds);
+        Collections.reverse(expectedIds);
+        Assertions.assertEquals(expectedIds, pagedIds);
+        Assertions.assertEquals("booker@yandex.ru", page.get(0).getAuthorName());
+    }
+
+    private static List<Long> ids(final List<CommentDto> comments) {
+        return comments.stream().map(CommentDto::getId).collect(Collectors.toList());
+    }
+}
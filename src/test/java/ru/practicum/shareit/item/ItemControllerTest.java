@@ -2,6 +2,7 @@ package ru.practicum.shareit.item;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,14 +18,21 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import ru.practicum.shareit.LocalDateTimeAdapter;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.IntervalDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemBatchResultDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.messages.ExceptionMessages;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.util.SeekCursor;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.containsStringIgnoringCase;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.hamcrest.Matchers.is;
@@ -171,12 +179,79 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$.size()", is(1)));
     }
 
+    @Test
+    public void createAllTest() throws Exception {
+        UserDto user = users.get(0);
+        ItemBatchResultDto created = new ItemBatchResultDto(0);
+        created.setItem(items.get(0));
+        ItemBatchResultDto failed = new ItemBatchResultDto(1);
+        failed.setError("name: must not be blank");
+        Mockito.when(service.createAll(Mockito.anyList(), Mockito.eq(user.getId())))
+                .thenReturn(List.of(created, failed));
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .post("/items/batch")
+                                .header(X_SHARER_USER_ID, user.getId())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(gson.toJson(items)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()", is(2)))
+                .andExpect(jsonPath("$[0].item.id", is(items.get(0).getId()), Long.class))
+                .andExpect(jsonPath("$[1].index", is(1)))
+                .andExpect(jsonPath("$[1].error", is(failed.getError())));
+    }
+
+    @Test
+    public void streamByOwnerTest() throws Exception {
+        UserDto user = users.get(0);
+        Mockito.doAnswer(invocation -> {
+            Consumer<ItemDto> consumer = invocation.getArgument(1);
+            items.forEach(consumer);
+            return null;
+        }).when(service).streamByOwner(Mockito.eq(user.getId()), Mockito.any());
+
+        String content = mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get("/items")
+                                .header(X_SHARER_USER_ID, user.getId())
+                                .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = content.split("\n");
+        Assertions.assertEquals(items.size(), lines.length);
+        Assertions.assertEquals(items.get(0).getName(), gson.fromJson(lines[0], ItemDto.class).getName());
+        Assertions.assertEquals(items.get(1).getId(), gson.fromJson(lines[1], ItemDto.class).getId());
+        Mockito.verify(service, Mockito.never()).getByOwner(Mockito.anyLong(), Mockito.anyInt(), Mockito.anyInt());
+    }
+
+    @Test
+    public void streamSearchTest() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            Consumer<ItemDto> consumer = invocation.getArgument(1);
+            consumer.accept(items.get(1));
+            return null;
+        }).when(service).streamSearch(Mockito.eq("item 2"), Mockito.any());
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get("/items/search")
+                                .param("text", "item 2")
+                                .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(jsonPath("$.id", is(items.get(1).getId()), Long.class));
+    }
+
     @Test
     public void searchItemTest() throws Exception {
         ItemDto item = items.get(0);
         UserDto user = users.get(0);
 
-        Mockito.when(service.search(Mockito.anyLong(), Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt()))
+        Mockito.when(service.search(Mockito.anyLong(), Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt(),
+                        Mockito.eq(false)))
                 .thenReturn(List.of(item));
 
         mockMvc.perform(
@@ -188,6 +263,40 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$.size()", is(1)));
     }
 
+    @Test
+    public void searchRankedItemTest() throws Exception {
+        ItemDto item = items.get(0);
+        UserDto user = users.get(0);
+
+        Mockito.when(service.search(Mockito.anyLong(), Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt(),
+                        Mockito.eq(true)))
+                .thenReturn(List.of(item));
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get("/items/search")
+                                .header(X_SHARER_USER_ID, user.getId())
+                                .param("text", "text")
+                                .param("ranked", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()", is(1)));
+    }
+
+    @Test
+    public void suggestItemTest() throws Exception {
+        ItemDto item = items.get(0);
+
+        Mockito.when(service.suggest("dri")).thenReturn(List.of(item));
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get("/items/suggest")
+                                .param("prefix", "dri"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()", is(1)))
+                .andExpect(jsonPath("$[0].id", is(item.getId()), Long.class));
+    }
+
     @Test
     public void createCommentTest() throws Exception {
         Mockito
@@ -207,4 +316,60 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$.error",
                         containsStringIgnoringCase(ExceptionMessages.NO_BOOKER_FOR_ITEM)));
     }
+
+    @Test
+    public void getCommentsTest() throws Exception {
+        CommentDto comment = comments.get(0);
+        Mockito
+                .when(service.getComments(1L, SeekCursor.of(5L), 1))
+                .thenReturn(List.of(comment));
+
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/items/{itemId}/comments", 1L)
+                        .param("after", SeekCursor.of(5L).encode())
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is(comment.getId()), Long.class))
+                .andExpect(jsonPath("$[0].authorName", is(comment.getAuthorName())))
+                .andExpect(header().string(SeekCursor.NEXT_CURSOR_HEADER, SeekCursor.of(comment.getId()).encode()));
+    }
+
+    @Test
+    public void getAvailabilityTest() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2023, 5, 1, 12, 30, 15);
+        LocalDateTime to = from.plusDays(30);
+        IntervalDto busy = new IntervalDto(from.plusDays(1), from.plusDays(2));
+        Mockito
+                .when(service.getAvailability(1L, from, to))
+                .thenReturn(new ItemAvailabilityDto(1L, from, to, List.of(busy),
+                        List.of(new IntervalDto(from, busy.getStart()), new IntervalDto(busy.getEnd(), to))));
+
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/items/{itemId}/availability", 1L)
+                        .param("from", from.toString())
+                        .param("to", to.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itemId", is(1L), Long.class))
+                .andExpect(jsonPath("$.busy[0].start", is(busy.getStart().toString())))
+                .andExpect(jsonPath("$.busy[0].end", is(busy.getEnd().toString())))
+                .andExpect(jsonPath("$.free[1].end", is(to.toString())));
+    }
+
+    @Test
+    public void getAvailabilityOfWrongPeriodTest() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2023, 5, 1, 12, 30, 15);
+        Mockito
+                .when(service.getAvailability(1L, from, from))
+                .thenThrow(new BadRequestException(ExceptionMessages.INVALID_PERIOD));
+
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/items/{itemId}/availability", 1L)
+                        .param("from", from.toString())
+                        .param("to", from.toString()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is(ExceptionMessages.INVALID_PERIOD)));
+    }
 }
@@ -0,0 +1,92 @@
+package ru.practicum.shareit.item;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.dto.BriefBookingDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+public class ItemDtoCacheTest {
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger loads = new AtomicInteger();
+    private ItemDtoCache cache;
+
+    @BeforeEach
+    public void beforeEach() {
+        cache = new ItemDtoCache(new ItemCacheProperties(), meterRegistry);
+        loads.set(0);
+    }
+
+    @Test
+    public void getTest() {
+        ItemDto itemDto = cache.get(1L, loader(null));
+        Assertions.assertSame(itemDto, cache.get(1L, loader(null)));
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertEquals(1.0, gets("hit"));
+        Assertions.assertEquals(1.0, gets("miss"));
+    }
+
+    @Test
+    public void ownerViewIsCachedSeparatelyTest() {
+        ItemDto itemDto = cache.get(1L, loader(null));
+        ItemDto ownerView = cache.getOwnerView(1L, loader(null));
+
+        Assertions.assertNotSame(itemDto, ownerView);
+        Assertions.assertSame(ownerView, cache.getOwnerView(1L, loader(null)));
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void invalidateTest() {
+        cache.get(1L, loader(null));
+        cache.getOwnerView(1L, loader(null));
+        cache.get(2L, loader(null));
+
+        cache.invalidate(1L);
+        cache.get(1L, loader(null));
+        cache.getOwnerView(1L, loader(null));
+        cache.get(2L, loader(null));
+        Assertions.assertEquals(5, loads.get());
+
+        cache.invalidateAll();
+        cache.get(2L, loader(null));
+        Assertions.assertEquals(6, loads.get());
+    }
+
+    @Test
+    public void ownerViewExpiresWhenNextBookingStartsTest() {
+        BriefBookingDto nextBooking = new BriefBookingDto();
+        nextBooking.setStart(LocalDateTime.now().minusSeconds(1));
+
+        cache.getOwnerView(1L, loader(nextBooking));
+        cache.getOwnerView(1L, loader(nextBooking));
+        Assertions.assertEquals(2, loads.get());
+
+        cache.get(1L, loader(nextBooking));
+        cache.get(1L, loader(nextBooking));
+        Assertions.assertEquals(3, loads.get());
+    }
+
+    private Function<Long, ItemDto> loader(final BriefBookingDto nextBooking) {
+        return itemId -> {
+            loads.incrementAndGet();
+            ItemDto itemDto = new ItemDto();
+            itemDto.setId(itemId);
+            itemDto.setNextBooking(nextBooking);
+            return itemDto;
+        };
+    }
+
+    private double gets(final String result) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", ItemDtoCache.CACHE_NAME)
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+}
@@ -85,8 +85,10 @@ public class ItemRepositoryTest {
     public void findByOwnerIdTest() {
         Pageable pageable = PageRequest.of(0 / 1, 1);
 
-        Assertions.assertEquals(List.of(items.get(0)), itemRepository.findByOwnerId(users.get(0).getId(), pageable));
-        Assertions.assertEquals(List.of(items.get(1)), itemRepository.findByOwnerId(users.get(1).getId(), pageable));
+        Assertions.assertEquals(List.of(ItemMapper.toItemDto(items.get(0))),
+                itemRepository.findByOwnerId(users.get(0).getId(), pageable));
+        Assertions.assertEquals(List.of(ItemMapper.toItemDto(items.get(1))),
+                itemRepository.findByOwnerId(users.get(1).getId(), pageable));
     }
 
     @Test
@@ -101,9 +103,46 @@ public class ItemRepositoryTest {
 
     @Test
     public void findByRequestIdInTest() {
-        Assertions.assertEquals(List.of(items.get(0)),
+        Assertions.assertEquals(List.of(ItemMapper.toItemDto(items.get(0))),
                 itemRepository.findByRequestIdIn(List.of(requests.get(0).getId())));
-        Assertions.assertEquals(List.of(items.get(1)),
+        Assertions.assertEquals(List.of(ItemMapper.toItemDto(items.get(1))),
+                itemRepository.findByRequestIdIn(List.of(requests.get(1).getId())));
+    }
+
+    @Test
+    public void insertAllTest() {
+        List<Item> newItems = new ArrayList<>();
+        for (int i = 3; i <= 1002; i++) {
+            Item item = new Item();
+            item.setName("Item " + i);
+            item.setDescription("Item " + i + " description");
+            item.setAvailable(i % 2 == 0);
+            item.setOwner(users.get(0));
+            item.setRequest(i == 3 ? requests.get(1) : null);
+            newItems.add(item);
+        }
+
+        itemRepository.insertAll(newItems);
+
+        Assertions.assertTrue(newItems.stream().allMatch(item -> item.getId() > items.get(1).getId()));
+        Assertions.assertEquals(1000, newItems.stream().map(Item::getId).distinct().count());
+        Assertions.assertEquals(List.of(ItemMapper.toItemDto(items.get(1)), ItemMapper.toItemDto(newItems.get(0))),
                 itemRepository.findByRequestIdIn(List.of(requests.get(1).getId())));
+        Item lastItem = newItems.get(newItems.size() - 1);
+        Assertions.assertEquals(List.of(ItemMapper.toItemDto(lastItem)),
+                itemRepository.findByOwnerIdAndIdGreaterThan(users.get(0).getId(), lastItem.getId() - 1,
+                        PageRequest.of(0, 10, ItemRepository.SORT_IDS_ASC)));
+    }
+
+    @Test
+    public void findByOwnerIdAndIdGreaterThanTest() {
+        Pageable pageable = PageRequest.of(0, 1, ItemRepository.SORT_IDS_ASC);
+        Item item = items.get(0);
+        Long ownerId = users.get(0).getId();
+
+        Assertions.assertEquals(List.of(ItemMapper.toItemDto(item)),
+                itemRepository.findByOwnerIdAndIdGreaterThan(ownerId, item.getId() - 1, pageable));
+        Assertions.assertEquals(List.of(),
+                itemRepository.findByOwnerIdAndIdGreaterThan(ownerId, item.getId(), pageable));
     }
 }
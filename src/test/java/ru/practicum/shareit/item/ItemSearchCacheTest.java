@@ -0,0 +1,125 @@
+package ru.practicum.shareit.item;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.model.Item;
+import java.util.List;
+
+public class ItemSearchCacheTest {
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ItemSearchCache cache;
+
+    @BeforeEach
+    public void beforeEach() {
+        cache = new ItemSearchCache(new ItemSearchProperties(), meterRegistry);
+    }
+
+    @Test
+    public void normalizeTest() {
+        Assertions.assertEquals("cordless drill", ItemSearchCache.normalize("  Cordless \t DRILL\n"));
+    }
+
+    @Test
+    public void getTest() {
+        ItemSearchCache.Key key = ItemSearchCache.key("drill", 0, 10, false);
+        Assertions.assertNull(cache.get(key));
+
+        cache.put(key, List.of(1L, 4L), cache.stamp());
+
+        Assertions.assertEquals(List.of(1L, 4L), cache.get(key));
+        // Page containing element with index 5 is the same as page from 0
+        Assertions.assertEquals(List.of(1L, 4L), cache.get(ItemSearchCache.key("drill", 5, 10, false)));
+        Assertions.assertNull(cache.get(ItemSearchCache.key("drill", 10, 10, false)));
+        Assertions.assertNull(cache.get(ItemSearchCache.key("drill", 0, 10, true)));
+        Assertions.assertEquals(2.0, meterRegistry.get("cache.gets").tag("cache", ItemSearchCache.CACHE_NAME)
+                .tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    public void putAfterInvalidationTest() {
+        ItemSearchCache.Key key = ItemSearchCache.key("drill", 0, 10, false);
+        long stamp = cache.stamp();
+
+        cache.invalidate(createItem("Ladder", "Aluminium ladder"));
+        cache.put(key, List.of(1L), stamp);
+
+        Assertions.assertNull(cache.get(key));
+    }
+
+    @Test
+    public void invalidateMatchingQueriesTest() {
+        ItemSearchCache.Key drill = ItemSearchCache.key("drill", 0, 10, false);
+        ItemSearchCache.Key secondPage = ItemSearchCache.key("drill", 10, 10, false);
+        ItemSearchCache.Key cordlessDrill = ItemSearchCache.key("cordless drill", 0, 10, false);
+        ItemSearchCache.Key rankedCordlessDrill = ItemSearchCache.key("cordless drill", 0, 10, true);
+        ItemSearchCache.Key ladder = ItemSearchCache.key("ladder", 0, 10, false);
+        for (ItemSearchCache.Key key : List.of(drill, secondPage, cordlessDrill, rankedCordlessDrill, ladder)) {
+            cache.put(key, List.of(1L), cache.stamp());
+        }
+
+        cache.invalidate(createItem("Hammer DRILL", null));
+
+        Assertions.assertNull(cache.get(drill));
+        Assertions.assertNull(cache.get(secondPage));
+        Assertions.assertNotNull(cache.get(cordlessDrill));
+        Assertions.assertNull(cache.get(rankedCordlessDrill));
+        Assertions.assertNotNull(cache.get(ladder));
+
+        cache.invalidateAll();
+        Assertions.assertNull(cache.get(ladder));
+    }
+
+    @Test
+    public void invalidateQueriesFoundByTokenTest() {
+        ItemSearchCache.Key substring = ItemSearchCache.key("rill", 0, 10, false);
+        ItemSearchCache.Key withoutTokens = ItemSearchCache.key("--", 0, 10, false);
+        ItemSearchCache.Key longer = ItemSearchCache.key("drills", 0, 10, false);
+        for (ItemSearchCache.Key key : List.of(substring, withoutTokens, longer)) {
+            cache.put(key, List.of(1L), cache.stamp());
+        }
+
+        cache.invalidate(createItem("Drill -- hammer", null));
+
+        Assertions.assertNull(cache.get(substring));
+        Assertions.assertNull(cache.get(withoutTokens));
+        Assertions.assertNotNull(cache.get(longer));
+    }
+
+    @Test
+    public void invalidateChangedItemAfterCommitTest() {
+        ItemSearchCache.Key drill = ItemSearchCache.key("drill", 0, 10, false);
+        ItemSearchCache.Key ladder = ItemSearchCache.key("ladder", 0, 10, false);
+        ItemSearchCache.Key kayak = ItemSearchCache.key("kayak", 0, 10, false);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.invalidate(createItem("Ladder", null), "Drill", null);
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            Assertions.assertEquals(1, synchronizations.size());
+
+            // Results cached by transactions which have not seen the change yet
+            for (ItemSearchCache.Key key : List.of(drill, ladder, kayak)) {
+                cache.put(key, List.of(1L), cache.stamp());
+            }
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+            Assertions.assertNull(cache.get(drill));
+            Assertions.assertNull(cache.get(ladder));
+            Assertions.assertNotNull(cache.get(kayak));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static Item createItem(final String name, final String description) {
+        Item item = new Item();
+        item.setName(name);
+        item.setDescription(description);
+        item.setAvailable(true);
+        return item;
+    }
+}
@@ -0,0 +1,161 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserDeletedEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemSearchIndexTest {
+    @Mock
+    private ItemRepository itemRepository;
+    @InjectMocks
+    private ItemSearchIndex searchIndex;
+
+    private final List<Item> items = new ArrayList<>();
+    private final User owner = new User();
+
+    @BeforeEach
+    public void beforeEach() {
+        owner.setId(1L);
+        owner.setName("User 1");
+        owner.setEmail("user1@yandex.ru");
+
+        items.clear();
+        items.add(createItem(1L, "Drill", "Powerful cordless drill", true));
+        items.add(createItem(2L, "Ladder", "Aluminium ladder 3m", true));
+        items.add(createItem(3L, "Hammer drill", "Drill for concrete", false));
+        items.add(createItem(4L, "Screwdriver", "Cordless screwdriver with drill bits", true));
+
+        Mockito
+                .when(itemRepository.findAllByIdGreaterThan(Mockito.anyLong(), Mockito.any(Pageable.class)))
+                .thenReturn(items)
+                .thenReturn(List.of());
+        searchIndex.rebuild();
+    }
+
+    @Test
+    public void searchBeforeBuildTest() {
+        ItemSearchIndex coldIndex = new ItemSearchIndex(itemRepository);
+
+        Assertions.assertFalse(coldIndex.isWarm());
+        Assertions.assertTrue(coldIndex.search("drill", 0, 10).isEmpty());
+    }
+
+    @Test
+    public void searchSubstringIgnoreCaseTest() {
+        Assertions.assertTrue(searchIndex.isWarm());
+        Assertions.assertEquals(List.of(1L, 4L), searchIds("DRiLL", 0, 10));
+        Assertions.assertEquals(List.of(1L, 4L), searchIds("ordless", 0, 10));
+        Assertions.assertEquals(List.of(2L), searchIds("ladder 3", 0, 10));
+        Assertions.assertEquals(List.of(), searchIds("ladder 4", 0, 10));
+        // Text of several tokens is matched with separators as in DB query
+        Assertions.assertEquals(List.of(4L), searchIds("DRILL bits", 0, 10));
+        Assertions.assertEquals(List.of(), searchIds("drill  bits", 0, 10));
+    }
+
+    @Test
+    public void searchByGramsTest() {
+        Assertions.assertEquals(List.of(1L, 4L), searchIds("rd", 0, 10));
+        Assertions.assertEquals(List.of(4L), searchIds("ewdrive", 0, 10));
+        Assertions.assertEquals(List.of(), searchIds("drillx", 0, 10));
+        Assertions.assertEquals(List.of(), searchIds("q", 0, 10));
+    }
+
+    @Test
+    public void searchPagingTest() {
+        Assertions.assertEquals(List.of(1L), searchIds("drill", 0, 1));
+        Assertions.assertEquals(List.of(4L), searchIds("drill", 1, 1));
+        Assertions.assertEquals(List.of(), searchIds("drill", 2, 1));
+    }
+
+    @Test
+    public void searchWithoutTokensTest() {
+        Assertions.assertTrue(searchIndex.search("  -- ", 0, 10).isEmpty());
+    }
+
+    @Test
+    public void indexAndRemoveTest() {
+        Item hammerDrill = createItem(3L, "Hammer drill", "Drill for concrete", true);
+        searchIndex.index(hammerDrill);
+        Assertions.assertEquals(List.of(1L, 3L, 4L), searchIds("drill", 0, 10));
+
+        hammerDrill.setName("Hammer");
+        hammerDrill.setDescription("Heavy hammer");
+        searchIndex.index(hammerDrill);
+        Assertions.assertEquals(List.of(1L, 4L), searchIds("drill", 0, 10));
+        Assertions.assertEquals(List.of(3L), searchIds("hammer", 0, 10));
+
+        searchIndex.remove(1L);
+        Assertions.assertEquals(List.of(4L), searchIds("drill", 0, 10));
+
+        searchIndex.onUserDeleted(new UserDeletedEvent(owner.getId()));
+        Assertions.assertEquals(List.of(), searchIds("drill", 0, 10));
+    }
+
+    @Test
+    public void rebuildKeepsItemsChangedWhileBuildingTest() {
+        Item updated = createItem(2L, "Step ladder", "Aluminium ladder 2m", true);
+        updated.setVersion(1);
+        List<Item> stale = List.of(items.get(0), items.get(1), items.get(3));
+        Mockito
+                .when(itemRepository.findAllByIdGreaterThan(Mockito.anyLong(), Mockito.any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    // Changes are committed after rebuild has read the items
+                    searchIndex.index(updated);
+                    searchIndex.remove(4L);
+                    return stale;
+                })
+                .thenReturn(List.of());
+
+        searchIndex.rebuild();
+
+        Assertions.assertTrue(searchIndex.isWarm());
+        Assertions.assertEquals(List.of(2L), searchIds("step", 0, 10));
+        Assertions.assertEquals(List.of(1L), searchIds("drill", 0, 10));
+    }
+
+    @Test
+    public void searchRankedTest() {
+        Assertions.assertEquals(List.of(1L, 4L), rankedIds("drill", 0, 10));
+        Assertions.assertEquals(List.of(4L, 1L), rankedIds("cordless screwdriver", 0, 10));
+        Assertions.assertEquals(List.of(2L, 1L, 4L), rankedIds("drill ladder", 0, 10));
+        Assertions.assertEquals(List.of(1L), rankedIds("drill ladder", 1, 1));
+        Assertions.assertEquals(List.of(1L, 4L), rankedIds("rdl", 0, 10));
+        Assertions.assertEquals(List.of(), rankedIds("kayak", 0, 10));
+    }
+
+    private List<Long> rankedIds(final String text, final int from, final int size) {
+        return searchIndex.searchRanked(text, from, size).orElseThrow().stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList());
+    }
+
+    private List<Long> searchIds(final String text, final int from, final int size) {
+        return searchIndex.search(text, from, size).orElseThrow().stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList());
+    }
+
+    private Item createItem(final Long id, final String name, final String description, final Boolean available) {
+        Item item = new Item();
+        item.setId(id);
+        item.setName(name);
+        item.setDescription(description);
+        item.setAvailable(available);
+        item.setOwner(owner);
+        return item;
+    }
+}
@@ -75,7 +75,8 @@ public class ItemServiceIntegrationTest {
         userService.create(user);
         ItemDto actualItem = itemService.create(expectedItem, user.getId());
 
-        Assertions.assertEquals(expectedItem.getId(), actualItem.getId());
+        // Client ID is ignored, item gets ID from sequence
+        Assertions.assertNotNull(actualItem.getId());
         Assertions.assertEquals(expectedItem.getName(), actualItem.getName());
         Assertions.assertEquals(expectedItem.getDescription(), actualItem.getDescription());
         Assertions.assertEquals(expectedItem.getAvailable(), actualItem.getAvailable());
@@ -100,7 +101,7 @@ public class ItemServiceIntegrationTest {
         expectedItem.setAvailable(items.get(0).getAvailable());
         expectedItem.setOwnerId(user.getId());
 
-        itemService.create(items.get(0), user.getId());
+        expectedItem.setId(itemService.create(items.get(0), user.getId()).getId());
 
         ItemDto actualItem = itemService.update(expectedItem.getId(), expectedItem, user.getId());
         Assertions.assertEquals(expectedItem.getId(), actualItem.getId());
@@ -121,7 +122,7 @@ public class ItemServiceIntegrationTest {
         expectedItem.setAvailable(items.get(0).getAvailable());
         expectedItem.setOwnerId(user.getId());
 
-        itemService.create(items.get(0), user.getId());
+        expectedItem.setId(itemService.create(items.get(0), user.getId()).getId());
 
         Assertions.assertThrows(
                 ForbiddenException.class, () -> itemService.update(expectedItem.getId(), expectedItem, 3L)
@@ -133,10 +134,10 @@ public class ItemServiceIntegrationTest {
         ItemDto expectedItem = items.get(0);
         UserDto user = users.get(0);
         userService.create(user);
-        itemService.create(expectedItem, user.getId());
+        ItemDto createdItem = itemService.create(expectedItem, user.getId());
 
-        ItemDto actualItem = itemService.get(expectedItem.getId(), user.getId());
-        Assertions.assertEquals(expectedItem.getId(), actualItem.getId());
+        ItemDto actualItem = itemService.get(createdItem.getId(), user.getId());
+        Assertions.assertEquals(createdItem.getId(), actualItem.getId());
         Assertions.assertEquals(expectedItem.getName(), actualItem.getName());
         Assertions.assertEquals(expectedItem.getDescription(), actualItem.getDescription());
         Assertions.assertEquals(expectedItem.getAvailable(), actualItem.getAvailable());
@@ -144,7 +145,7 @@ public class ItemServiceIntegrationTest {
 
     @Test
     public void getByWrongIdTest() {
-        Assertions.assertThrows(DataNotFoundException.class, () -> itemService.get(2L, 1L));
+        Assertions.assertThrows(DataNotFoundException.class, () -> itemService.get(Long.MAX_VALUE, 1L));
     }
 
     @Test
@@ -154,7 +155,8 @@ public class ItemServiceIntegrationTest {
         userService.create(user);
         ItemDto actualItem = itemService.create(expectedItem, user.getId());
 
-        Assertions.assertEquals(expectedItem.getId(), actualItem.getId());
+        // Client ID is ignored, item gets ID from sequence
+        Assertions.assertNotNull(actualItem.getId());
         Assertions.assertEquals(expectedItem.getName(), actualItem.getName());
         Assertions.assertEquals(expectedItem.getDescription(), actualItem.getDescription());
         Assertions.assertEquals(expectedItem.getAvailable(), actualItem.getAvailable());
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.item;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -7,22 +8,46 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.booking.BookingMapper;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingTimeline;
+import ru.practicum.shareit.booking.dto.BookingInterval;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.exception.DataNotFoundException;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.IntervalDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemBatchResultDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemSummary;
+import ru.practicum.shareit.messages.ExceptionMessages;
 import ru.practicum.shareit.request.RequestRepository;
+import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserRenamedEvent;
 import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.util.SeekCursor;
 
+import javax.persistence.EntityManager;
+import javax.validation.Validation;
+import javax.validation.Validator;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 @ExtendWith(MockitoExtension.class)
 public class ItemServiceTest {
@@ -36,6 +61,26 @@ public class ItemServiceTest {
     private CommentRepository commentRepository;
     @Mock
     private BookingRepository bookingRepository;
+    @Mock
+    private ItemSearchIndex searchIndex;
+    @Mock
+    private ItemSuggestIndex suggestIndex;
+    @Mock
+    private BookingTimeline bookingTimeline;
+    @Spy
+    private ItemSearchProperties searchProperties = new ItemSearchProperties();
+    @Spy
+    private ItemDtoCache itemDtoCache = new ItemDtoCache(new ItemCacheProperties(), new SimpleMeterRegistry());
+    @Spy
+    private ItemSearchCache searchCache = new ItemSearchCache(new ItemSearchProperties(), new SimpleMeterRegistry());
+    @Mock
+    private ItemSummaryRepository summaryRepository;
+    @Mock
+    private ItemSummaryUpdater summaryUpdater;
+    @Mock
+    private EntityManager entityManager;
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
     @InjectMocks
     private ItemServiceImpl service;
 
@@ -69,6 +114,7 @@ public class ItemServiceTest {
         item.setDescription("Item description 1");
         item.setAvailable(true);
         item.setOwner(user1);
+        item.setCommentCount(1);
 
         booking.setId(1L);
         booking.setItem(item);
@@ -90,6 +136,52 @@ public class ItemServiceTest {
         Assertions.assertEquals(itemDto.getId(), savedItemDto.getId());
         Assertions.assertEquals(itemDto.getName(), savedItemDto.getName());
         Assertions.assertEquals(itemDto.getDescription(), savedItemDto.getDescription());
+        // Client ID is ignored, so create never overwrites existing item
+        Mockito.verify(itemRepository).save(Mockito.argThat(saved -> saved.getId() == null));
+        Mockito.verify(summaryUpdater).create(item);
+    }
+
+    @Test
+    public void createAllTest() {
+        ItemRequest request = new ItemRequest();
+        request.setId(5L);
+        Mockito.when(userRepository.findById(users.get(0).getId())).thenReturn(Optional.of(users.get(0)));
+        Mockito.when(requestRepository.findAllById(Set.of(5L, 6L))).thenReturn(List.of(request));
+        Mockito.doAnswer(invocation -> {
+            List<Item> items = invocation.getArgument(0);
+            for (int i = 0; i < items.size(); i++) {
+                items.get(i).setId(10L + i);
+            }
+            return null;
+        }).when(itemRepository).insertAll(Mockito.anyList());
+
+        ItemDto valid = ItemMapper.toItemDto(item);
+        valid.setRequestId(5L);
+        ItemDto blank = new ItemDto();
+        blank.setName(" ");
+        blank.setDescription("Description");
+        ItemDto missingRequest = ItemMapper.toItemDto(item);
+        missingRequest.setRequestId(6L);
+        List<ItemBatchResultDto> results = service.createAll(
+                Arrays.asList(valid, blank, null, missingRequest, ItemMapper.toItemDto(item)), users.get(0).getId());
+
+        Assertions.assertEquals(5, results.size());
+        Assertions.assertEquals(10L, results.get(0).getItem().getId());
+        Assertions.assertEquals(5L, results.get(0).getItem().getRequestId());
+        Assertions.assertEquals("available: must not be null; name: must not be blank", results.get(1).getError());
+        Assertions.assertEquals(ExceptionMessages.INVALID_DATA, results.get(2).getError());
+        Assertions.assertEquals(String.format(ExceptionMessages.REQUEST_NOT_FOUND, 6L), results.get(3).getError());
+        Assertions.assertNull(results.get(3).getItem());
+        Assertions.assertEquals(11L, results.get(4).getItem().getId());
+        Assertions.assertEquals(4, results.get(4).getIndex());
+        Mockito.verify(itemRepository, Mockito.never()).save(Mockito.any(Item.class));
+        Mockito.verify(searchIndex, Mockito.times(2)).index(Mockito.any(Item.class));
+    }
+
+    @Test
+    public void createAllWithNoExistUserTest() {
+        Assertions.assertThrows(DataNotFoundException.class, () -> service.createAll(List.of(), 3L));
+        Mockito.verify(itemRepository, Mockito.never()).insertAll(Mockito.anyList());
     }
 
     @Test
@@ -122,7 +214,7 @@ public class ItemServiceTest {
                 .when(commentRepository
                         .findAllByItemIdInOrderById(Mockito.any(), Mockito.any(Sort.class)))
                 .thenReturn(List.of(comment));
-        Mockito.when(bookingRepository.findAllByItemIdIn(Mockito.any()))
+        Mockito.when(bookingRepository.findLastAndNextByItemIdIn(Mockito.any(), Mockito.any(LocalDateTime.class)))
                 .thenReturn(List.of(booking));
 
         ItemDto itemDto = service.get(item.getId(), users.get(0).getId());
@@ -136,15 +228,24 @@ public class ItemServiceTest {
 
     @Test
     public void getBuyOwnerTest() {
+        ItemSummary summary = new ItemSummary();
+        summary.setItemId(item.getId());
+        summary.setOwnerId(item.getOwner().getId());
+        summary.setName(item.getName());
+        summary.setDescription(item.getDescription());
+        summary.setAvailable(item.getAvailable());
+        summary.setCommentCount(item.getCommentCount());
+        summary.setLastBookingId(booking.getId());
+        summary.setLastBookerId(booking.getBooker().getId());
+        summary.setLastBookingStart(booking.getStart());
+        summary.setLastBookingEnd(booking.getEnd());
         Mockito
-                .when(itemRepository.findByOwnerId(Mockito.anyLong(), Mockito.any(Pageable.class)))
-                        .thenReturn(List.of(item));
+                .when(summaryRepository.findByOwnerId(Mockito.anyLong(), Mockito.any(Pageable.class)))
+                .thenReturn(List.of(summary));
         Mockito
                 .when(commentRepository
                         .findAllByItemIdInOrderById(Mockito.any(), Mockito.any(Sort.class)))
                 .thenReturn(List.of(comment));
-        Mockito.when(bookingRepository.findAllByItemIdIn(Mockito.any()))
-                .thenReturn(List.of(booking));
 
         List<ItemDto> itemDtoList = service.getByOwner(users.get(0).getId(), 0, 1);
         ItemDto itemDto = itemDtoList.get(0);
@@ -154,6 +255,39 @@ public class ItemServiceTest {
         Assertions.assertEquals(expectedIteDto.getId(), itemDto.getId());
         Assertions.assertEquals(booking.getId(), itemDto.getLastBooking().getId());
         Assertions.assertEquals(comment.getId(), itemDto.getComments().get(0).getId());
+        Assertions.assertNull(itemDto.getNextBooking());
+        // Summaries whose next booking has started get bookings found again in memory
+        Mockito.verify(summaryUpdater).setExpiredBookings(List.of(summary));
+        Mockito.verifyNoInteractions(itemRepository, bookingRepository, bookingTimeline);
+    }
+
+    @Test
+    public void getItemFromBookingTimelineTest() {
+        Mockito.when(itemRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(item));
+        Mockito.when(bookingTimeline.isWarm()).thenReturn(true);
+        Mockito.when(bookingTimeline.findLast(Mockito.eq(item.getId()), Mockito.any(LocalDateTime.class)))
+                .thenReturn(BookingMapper.toBriefBookingDto(booking));
+
+        ItemDto itemDto = service.get(item.getId(), users.get(0).getId());
+
+        Assertions.assertEquals(booking.getId(), itemDto.getLastBooking().getId());
+        Assertions.assertNull(itemDto.getNextBooking());
+        Mockito.verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    public void getCachedItemTest() {
+        Mockito.when(itemRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(item));
+        Long otherUserId = users.get(1).getId();
+
+        service.get(item.getId(), otherUserId);
+        ItemDto itemDto = service.get(item.getId(), otherUserId);
+        Assertions.assertEquals(item.getId(), itemDto.getId());
+        Mockito.verify(itemRepository, Mockito.times(1)).findById(item.getId());
+
+        service.update(item.getId(), new ItemDto(), item.getOwner().getId());
+        service.get(item.getId(), otherUserId);
+        Mockito.verify(itemRepository, Mockito.times(3)).findById(item.getId());
     }
 
     @Test
@@ -173,4 +307,277 @@ public class ItemServiceTest {
         Assertions.assertEquals(expectedIteDto.getDescription(), itemDto.getDescription());
 
     }
+
+    @Test
+    public void searchCachedTest() {
+        Mockito
+                .when(itemRepository
+                        .findNameOrDescriptionContainingText(Mockito.anyString(), Mockito.any(Pageable.class)))
+                .thenReturn(List.of(item));
+        Mockito.when(itemRepository.findByIdIn(List.of(item.getId()))).thenReturn(List.of(ItemMapper.toItemDto(item)));
+
+        // Repository gets trimmed text, normalized text only keys cached results
+        List<ItemDto> itemDtoList = service.search(users.get(0).getId(), "  ITEM ", 0, 1);
+        Assertions.assertEquals(itemDtoList, service.search(users.get(0).getId(), "item", 0, 1));
+        Mockito.verify(itemRepository, Mockito.times(1))
+                .findNameOrDescriptionContainingText(Mockito.anyString(), Mockito.any(Pageable.class));
+        Mockito.verify(itemRepository)
+                .findNameOrDescriptionContainingText(Mockito.eq("ITEM"), Mockito.any(Pageable.class));
+
+        Mockito.when(itemRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(item));
+        ItemDto itemDto = new ItemDto();
+        itemDto.setAvailable(false);
+        service.update(item.getId(), itemDto, item.getOwner().getId());
+        service.search(users.get(0).getId(), "item", 0, 1);
+        Mockito.verify(itemRepository)
+                .findNameOrDescriptionContainingText(Mockito.eq("item"), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    public void searchCachedByIndexTest() {
+        ItemDto indexedItemDto = ItemMapper.toItemDto(item);
+        Mockito
+                .when(searchIndex.search(Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt()))
+                .thenReturn(Optional.of(List.of(indexedItemDto)));
+        Mockito.when(searchIndex.get(List.of(item.getId()))).thenReturn(Optional.of(List.of(indexedItemDto)));
+
+        service.search(users.get(0).getId(), "Item", 0, 1);
+        List<ItemDto> itemDtoList = service.search(users.get(0).getId(), "Item", 0, 1);
+
+        Assertions.assertEquals(List.of(indexedItemDto), itemDtoList);
+        Mockito.verify(searchIndex, Mockito.times(1)).search(Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt());
+        Mockito.verify(itemRepository, Mockito.never()).findByIdIn(Mockito.anyList());
+    }
+
+    @Test
+    public void streamByOwnerTest() {
+        List<ItemDto> ownerItems = LongStream.rangeClosed(1, 150)
+                .mapToObj(id -> new ItemDto(id, "Item " + id, "Item description " + id, true, 1L, null))
+                .collect(Collectors.toList());
+        Mockito.when(itemRepository.streamByOwnerId(1L)).thenReturn(ownerItems.stream());
+
+        List<ItemDto> streamedItems = new ArrayList<>();
+        service.streamByOwner(1L, streamedItems::add);
+
+        Assertions.assertEquals(ownerItems, streamedItems);
+        // Comments are loaded once per chunk, persistence context is cleared after each full chunk
+        Mockito.verify(commentRepository, Mockito.times(2))
+                .findAllByItemIdInOrderById(Mockito.anyList(), Mockito.any(Sort.class));
+        Mockito.verify(entityManager, Mockito.times(1)).clear();
+    }
+
+    @Test
+    public void streamSearchTest() {
+        Mockito.when(itemRepository.streamNameOrDescriptionContainingText("Item")).thenReturn(Stream.of(item));
+
+        List<ItemDto> streamedItems = new ArrayList<>();
+        service.streamSearch(" Item ", streamedItems::add);
+        service.streamSearch(" ", streamedItems::add);
+
+        Assertions.assertEquals(List.of(ItemMapper.toItemDto(item)), streamedItems);
+        Mockito.verify(entityManager, Mockito.never()).clear();
+    }
+
+    @Test
+    public void searchByIndexTest() {
+        ItemDto indexedItemDto = ItemMapper.toItemDto(item);
+        Mockito
+                .when(searchIndex.search(Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt()))
+                .thenReturn(Optional.of(List.of(indexedItemDto)));
+
+        List<ItemDto> itemDtoList = service.search(users.get(0).getId(), "Item", 0, 1);
+
+        Assertions.assertEquals(List.of(indexedItemDto), itemDtoList);
+        Mockito.verify(itemRepository, Mockito.never())
+                .findNameOrDescriptionContainingText(Mockito.anyString(), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    public void searchByTrigramTest() {
+        searchProperties.setMode(ItemSearchProperties.Mode.TRIGRAM);
+        Mockito
+                .when(itemRepository
+                        .findNameOrDescriptionContainingTextByTrigram(Mockito.anyString(), Mockito.any(Pageable.class)))
+                .thenReturn(List.of(item));
+
+        List<ItemDto> itemDtoList = service.search(users.get(0).getId(), "Item", 0, 1);
+
+        Assertions.assertEquals(List.of(ItemMapper.toItemDto(item)), itemDtoList);
+        Mockito.verify(itemRepository, Mockito.never())
+                .findNameOrDescriptionContainingText(Mockito.anyString(), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    public void searchRankedTest() {
+        ItemDto indexedItemDto = ItemMapper.toItemDto(item);
+        Mockito
+                .when(searchIndex.searchRanked(Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt()))
+                .thenReturn(Optional.of(List.of(indexedItemDto)));
+
+        List<ItemDto> itemDtoList = service.search(users.get(0).getId(), "Item", 0, 1, true);
+
+        Assertions.assertEquals(List.of(indexedItemDto), itemDtoList);
+        Mockito.verify(searchIndex, Mockito.never()).search(Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt());
+    }
+
+    @Test
+    public void getItemWithManyCommentsTest() {
+        item.setCommentCount(25);
+        Comment latestComment = new Comment();
+        latestComment.setId(25L);
+        latestComment.setText("Comment 25");
+        latestComment.setAuthor(users.get(1));
+        latestComment.setItem(item);
+        Mockito.when(itemRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(item));
+        Mockito
+                .when(commentRepository.findLatestIdsByItemIdIn(List.of(item.getId()), 10))
+                .thenReturn(List.of(latestComment.getId(), comment.getId()));
+        Mockito
+                .when(commentRepository.findAllByIdIn(Mockito.anyList(), Mockito.any(Sort.class)))
+                .thenReturn(List.of(comment, latestComment));
+
+        ItemDto itemDto = service.get(item.getId(), users.get(1).getId());
+
+        Assertions.assertEquals(25, itemDto.getCommentCount());
+        Assertions.assertEquals(List.of(comment.getId(), latestComment.getId()),
+                itemDto.getComments().stream().map(CommentDto::getId).collect(Collectors.toList()));
+        Mockito.verify(commentRepository, Mockito.never())
+                .findAllByItemIdInOrderById(Mockito.anyList(), Mockito.any(Sort.class));
+    }
+
+    @Test
+    public void getItemAfterCommentAuthorRenamedTest() {
+        Mockito.when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+        Mockito
+                .when(commentRepository.findAllByItemIdInOrderById(Mockito.anyList(), Mockito.any(Sort.class)))
+                .thenReturn(List.of(comment));
+        Mockito.when(commentRepository.findItemIdsByAuthorId(users.get(1).getId())).thenReturn(List.of(item.getId()));
+        Assertions.assertEquals("User 2", service.get(item.getId(), users.get(1).getId())
+                .getComments().get(0).getAuthorName());
+
+        users.get(1).setName("Renamed user 2");
+        service.onUserRenamed(new UserRenamedEvent(users.get(1).getId()));
+
+        Assertions.assertEquals("Renamed user 2", service.get(item.getId(), users.get(1).getId())
+                .getComments().get(0).getAuthorName());
+        Mockito.verify(itemRepository, Mockito.times(2)).findById(item.getId());
+    }
+
+    @Test
+    public void getItemWithoutCommentsTest() {
+        item.setCommentCount(0);
+        Mockito.when(itemRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(item));
+
+        ItemDto itemDto = service.get(item.getId(), users.get(1).getId());
+
+        Assertions.assertEquals(0, itemDto.getCommentCount());
+        Assertions.assertEquals(List.of(), itemDto.getComments());
+        Mockito.verifyNoInteractions(commentRepository);
+    }
+
+    @Test
+    public void getCommentsTest() {
+        Mockito.when(itemRepository.existsById(item.getId())).thenReturn(true);
+        Mockito
+                .when(commentRepository.findByItemIdOrderByIdDesc(item.getId(), PageRequest.of(0, 1)))
+                .thenReturn(List.of(comment));
+        Mockito
+                .when(commentRepository.findByItemIdAndIdLessThanOrderByIdDesc(item.getId(), comment.getId(),
+                        PageRequest.of(0, 1)))
+                .thenReturn(List.of());
+
+        List<CommentDto> firstPage = service.getComments(item.getId(), null, 1);
+        List<CommentDto> secondPage = service.getComments(item.getId(), SeekCursor.of(comment.getId()), 1);
+
+        Assertions.assertEquals(comment.getId(), firstPage.get(0).getId());
+        Assertions.assertEquals(users.get(1).getName(), firstPage.get(0).getAuthorName());
+        Assertions.assertTrue(secondPage.isEmpty());
+    }
+
+    @Test
+    public void getCommentsOfWrongItemTest() {
+        Mockito.when(itemRepository.existsById(Mockito.anyLong())).thenReturn(false);
+
+        Assertions.assertThrows(DataNotFoundException.class, () -> service.getComments(99L, null, 10));
+    }
+
+    @Test
+    public void getAvailabilityTest() {
+        LocalDateTime from = LocalDateTime.of(2023, 5, 1, 0, 0);
+        LocalDateTime to = from.plusDays(10);
+        Mockito.when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+        Mockito
+                .when(bookingRepository.findIntervalsByItemId(Mockito.eq(item.getId()), Mockito.eq(from),
+                        Mockito.eq(to), Mockito.anyInt()))
+                .thenReturn(List.of(
+                        interval(from.minusDays(2), from.plusDays(1)),
+                        interval(from.plusDays(1), from.plusDays(2)),
+                        interval(from.plusDays(4), from.plusDays(5)),
+                        interval(from.plusDays(9), from.plusDays(12))));
+
+        ItemAvailabilityDto availability = service.getAvailability(item.getId(), from, to);
+
+        // Adjacent bookings are merged and bookings crossing period bounds are clipped
+        Assertions.assertEquals(List.of(
+                new IntervalDto(from, from.plusDays(2)),
+                new IntervalDto(from.plusDays(4), from.plusDays(5)),
+                new IntervalDto(from.plusDays(9), to)), availability.getBusy());
+        Assertions.assertEquals(List.of(
+                new IntervalDto(from.plusDays(2), from.plusDays(4)),
+                new IntervalDto(from.plusDays(5), from.plusDays(9))), availability.getFree());
+        Assertions.assertEquals(to, availability.getTo());
+    }
+
+    @Test
+    public void getAvailabilityOverLimitTest() {
+        LocalDateTime from = LocalDateTime.of(2023, 5, 1, 0, 0);
+        LocalDateTime to = from.plusYears(10);
+        Mockito.when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+        Mockito
+                .when(bookingRepository.findIntervalsByItemId(Mockito.eq(item.getId()), Mockito.eq(from),
+                        Mockito.eq(to), Mockito.anyInt()))
+                .thenAnswer(invocation -> LongStream.range(0, invocation.<Integer>getArgument(3))
+                        .mapToObj(day -> interval(from.plusDays(day), from.plusDays(day).plusHours(1)))
+                        .collect(Collectors.toList()));
+
+        ItemAvailabilityDto availability = service.getAvailability(item.getId(), from, to);
+
+        // Period ends when the first booking which is not returned starts
+        int bookings = availability.getBusy().size();
+        Assertions.assertEquals(from.plusDays(bookings), availability.getTo());
+        Assertions.assertEquals(bookings, availability.getFree().size());
+        Assertions.assertTrue(bookings < 1000);
+    }
+
+    @Test
+    public void getAvailabilityOfWrongPeriodTest() {
+        LocalDateTime from = LocalDateTime.of(2023, 5, 1, 0, 0);
+
+        Assertions.assertThrows(BadRequestException.class, () -> service.getAvailability(item.getId(), from, from));
+        Mockito.verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    public void getAvailabilityOfWrongItemTest() {
+        Mockito.when(itemRepository.findById(Mockito.anyLong())).thenReturn(Optional.empty());
+
+        LocalDateTime from = LocalDateTime.of(2023, 5, 1, 0, 0);
+        Assertions.assertThrows(DataNotFoundException.class,
+                () -> service.getAvailability(99L, from, from.plusDays(1)));
+        Mockito.verifyNoInteractions(bookingRepository);
+    }
+
+    private static BookingInterval interval(final LocalDateTime start, final LocalDateTime end) {
+        return new BookingInterval() {
+            @Override
+            public LocalDateTime getStart() {
+                return start;
+            }
+
+            @Override
+            public LocalDateTime getEnd() {
+                return end;
+            }
+        };
+    }
 }
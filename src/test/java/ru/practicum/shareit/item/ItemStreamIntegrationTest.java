@@ -0,0 +1,50 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@SpringBootTest(properties = "spring.datasource.url = jdbc:h2:mem:stream")
+@Sql("classpath:schema.sql")
+public class ItemStreamIntegrationTest {
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private UserService userService;
+
+    @Test
+    public void streamTest() {
+        UserDto owner = new UserDto();
+        owner.setName("User 1");
+        owner.setEmail("user1@yandex.ru");
+        owner = userService.create(owner);
+        List<Long> itemIds = new ArrayList<>();
+        for (int i = 1; i <= 250; i++) {
+            ItemDto itemDto = new ItemDto();
+            itemDto.setName("Item " + i);
+            itemDto.setDescription("Item " + i + " description");
+            // Every tenth item is not available and is not found
+            itemDto.setAvailable(i % 10 != 0);
+            itemIds.add(itemService.create(itemDto, owner.getId()).getId());
+        }
+
+        List<ItemDto> ownerItems = new ArrayList<>();
+        itemService.streamByOwner(owner.getId(), ownerItems::add);
+        Assertions.assertEquals(itemIds, ownerItems.stream().map(ItemDto::getId).collect(Collectors.toList()));
+
+        List<ItemDto> foundItems = new ArrayList<>();
+        itemService.streamSearch(" ITEM  ", foundItems::add);
+        Assertions.assertEquals(225, foundItems.size());
+        Assertions.assertTrue(foundItems.stream().allMatch(ItemDto::getAvailable));
+        Assertions.assertEquals(foundItems.stream().map(ItemDto::getId).sorted().collect(Collectors.toList()),
+                foundItems.stream().map(ItemDto::getId).collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,214 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.dto.ItemBookingCount;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserDeletedEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemSuggestIndexTest {
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private BookingRepository bookingRepository;
+    @Spy
+    private ItemSearchProperties searchProperties = new ItemSearchProperties();
+    @InjectMocks
+    private ItemSuggestIndex suggestIndex;
+
+    private final List<Item> items = new ArrayList<>();
+    private final User owner = new User();
+
+    @BeforeEach
+    public void beforeEach() {
+        owner.setId(1L);
+        owner.setName("User 1");
+        owner.setEmail("user1@yandex.ru");
+
+        items.clear();
+        items.add(createItem(1L, "Drill", true));
+        items.add(createItem(2L, "Drilling machine", true));
+        items.add(createItem(3L, "Hammer drill", false));
+        items.add(createItem(4L, "Dress", true));
+        items.add(createItem(5L, "Cordless drill", true));
+
+        Mockito
+                .when(itemRepository.findAllByIdGreaterThan(Mockito.anyLong(), Mockito.any(Pageable.class)))
+                .thenReturn(items)
+                .thenReturn(List.of());
+        Mockito
+                .when(bookingRepository.countByItemIdIn(Mockito.anyList()))
+                .thenReturn(List.of(bookingCount(2L, 3L), bookingCount(5L, 1L)));
+        suggestIndex.rebuild();
+    }
+
+    @Test
+    public void suggestBeforeBuildTest() {
+        ItemSuggestIndex coldIndex = new ItemSuggestIndex(itemRepository, bookingRepository, searchProperties);
+
+        Assertions.assertFalse(coldIndex.isWarm());
+        Assertions.assertEquals(List.of(), coldIndex.suggest("dr"));
+    }
+
+    @Test
+    public void suggestMostBookedFirstTest() {
+        Assertions.assertTrue(suggestIndex.isWarm());
+        Assertions.assertEquals(List.of(2L, 5L, 1L, 4L), suggestIds("D"));
+        Assertions.assertEquals(List.of(2L, 5L, 1L), suggestIds("dril"));
+        Assertions.assertEquals(List.of(2L, 5L, 1L), suggestIds("drill"));
+        Assertions.assertEquals(List.of(2L), suggestIds("drilli"));
+        Assertions.assertEquals(List.of(4L), suggestIds("dre"));
+        Assertions.assertEquals(List.of(2L), suggestIds("mach"));
+        Assertions.assertEquals(List.of(), suggestIds("drills"));
+        Assertions.assertEquals(List.of(), suggestIds("kayak"));
+    }
+
+    @Test
+    public void suggestLastWordTest() {
+        Assertions.assertEquals(List.of(2L, 5L, 1L), suggestIds("cordless dri"));
+        Assertions.assertEquals(List.of(), suggestIds("  -- "));
+        Assertions.assertEquals(List.of(), suggestIds(null));
+    }
+
+    @Test
+    public void suggestionsLimitTest() {
+        ItemSearchProperties limitedProperties = new ItemSearchProperties();
+        limitedProperties.setSuggestions(2);
+        ItemSuggestIndex limitedIndex = new ItemSuggestIndex(itemRepository, bookingRepository, limitedProperties);
+        Mockito
+                .when(itemRepository.findAllByIdGreaterThan(Mockito.anyLong(), Mockito.any(Pageable.class)))
+                .thenReturn(items)
+                .thenReturn(List.of());
+        limitedIndex.rebuild();
+
+        Assertions.assertEquals(List.of(2L, 5L), ids(limitedIndex.suggest("d")));
+
+        limitedIndex.remove(2L);
+        Assertions.assertEquals(List.of(5L, 1L), ids(limitedIndex.suggest("d")));
+    }
+
+    @Test
+    public void addBookingTest() {
+        suggestIndex.addBooking(1L);
+        Assertions.assertEquals(List.of(2L, 1L, 5L), suggestIds("drill"));
+
+        suggestIndex.addBooking(4L);
+        suggestIndex.addBooking(4L);
+        suggestIndex.addBooking(4L);
+        suggestIndex.addBooking(4L);
+        Assertions.assertEquals(List.of(4L, 2L, 1L, 5L), suggestIds("d"));
+    }
+
+    @Test
+    public void addBookingOfItemOutsideTrieTest() {
+        suggestIndex.addBooking(6L);
+        suggestIndex.addBooking(6L);
+        suggestIndex.index(createItem(6L, "Drum", true));
+
+        Assertions.assertEquals(List.of(2L, 5L, 1L, 4L, 6L), suggestIds("d"));
+    }
+
+    @Test
+    public void rebuildKeepsItemsChangedWhileBuildingTest() {
+        Item unavailable = createItem(2L, "Drilling machine", false);
+        unavailable.setVersion(1);
+        Mockito
+                .when(itemRepository.findAllByIdGreaterThan(Mockito.anyLong(), Mockito.any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    // Changes are committed after rebuild has read the items
+                    suggestIndex.index(unavailable);
+                    suggestIndex.remove(4L);
+                    return items;
+                })
+                .thenReturn(List.of());
+
+        suggestIndex.rebuild();
+
+        Assertions.assertTrue(suggestIndex.isWarm());
+        Assertions.assertEquals(List.of(5L, 1L), suggestIds("d"));
+    }
+
+    @Test
+    public void indexAndRemoveTest() {
+        Item hammerDrill = createItem(3L, "Hammer drill", true);
+        suggestIndex.index(hammerDrill);
+        Assertions.assertEquals(List.of(2L, 5L, 1L, 3L), suggestIds("drill"));
+        Assertions.assertEquals(List.of(3L), suggestIds("ham"));
+
+        hammerDrill.setName("Hammer");
+        suggestIndex.index(hammerDrill);
+        Assertions.assertEquals(List.of(2L, 5L, 1L), suggestIds("drill"));
+        Assertions.assertEquals(List.of(3L), suggestIds("ham"));
+
+        hammerDrill.setAvailable(false);
+        suggestIndex.index(hammerDrill);
+        Assertions.assertEquals(List.of(), suggestIds("ham"));
+
+        suggestIndex.remove(2L);
+        Assertions.assertEquals(List.of(5L, 1L), suggestIds("drill"));
+        Assertions.assertEquals(List.of(), suggestIds("mach"));
+
+        suggestIndex.onUserDeleted(new UserDeletedEvent(owner.getId()));
+        Assertions.assertEquals(List.of(), suggestIds("d"));
+    }
+
+    @Test
+    public void suggestItemDtoTest() {
+        ItemDto itemDto = suggestIndex.suggest("dres").get(0);
+
+        Assertions.assertEquals(4L, itemDto.getId());
+        Assertions.assertEquals("Dress", itemDto.getName());
+        Assertions.assertEquals("Dress for rent", itemDto.getDescription());
+        Assertions.assertTrue(itemDto.getAvailable());
+        Assertions.assertEquals(owner.getId(), itemDto.getOwnerId());
+    }
+
+    private List<Long> suggestIds(final String prefix) {
+        return ids(suggestIndex.suggest(prefix));
+    }
+
+    private static List<Long> ids(final List<ItemDto> itemDtos) {
+        return itemDtos.stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList());
+    }
+
+    private Item createItem(final Long id, final String name, final Boolean available) {
+        Item item = new Item();
+        item.setId(id);
+        item.setName(name);
+        item.setDescription(name + " for rent");
+        item.setAvailable(available);
+        item.setOwner(owner);
+        return item;
+    }
+
+    private static ItemBookingCount bookingCount(final Long itemId, final Long bookings) {
+        return new ItemBookingCount() {
+            @Override
+            public Long getItemId() {
+                return itemId;
+            }
+
+            @Override
+            public Long getBookings() {
+                return bookings;
+            }
+        };
+    }
+}
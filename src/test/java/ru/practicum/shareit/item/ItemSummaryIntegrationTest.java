@@ -0,0 +1,127 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import ru.practicum.shareit.TestFixtures;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemSummary;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@SpringBootTest(properties = "spring.datasource.url = jdbc:h2:mem:summary")
+@Sql("classpath:schema.sql")
+public class ItemSummaryIntegrationTest {
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private ItemSummaryRepository summaryRepository;
+    @Autowired
+    private ItemSummaryEndpoint summaryEndpoint;
+    @Autowired
+    private ItemSummaryUpdater summaryUpdater;
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Test
+    public void summaryTest() {
+        UserDto owner = userService.create(TestFixtures.user("owner@yandex.ru"));
+        UserDto booker = userService.create(TestFixtures.user("booker@yandex.ru"));
+        Long itemId = itemService.create(TestFixtures.drill(), owner.getId()).getId();
+
+        LocalDateTime now = LocalDateTime.now();
+        BookingDto lastBooking = createApprovedBooking(itemId, booker.getId(), owner.getId(),
+                now.minusDays(3), now.minusDays(2));
+        BookingDto nextBooking = createApprovedBooking(itemId, booker.getId(), owner.getId(),
+                now.plusDays(2), now.plusDays(3));
+        createApprovedBooking(itemId, booker.getId(), owner.getId(), now.plusDays(5), now.plusDays(6));
+        // Waiting bookings are not summarized
+        createBooking(itemId, booker.getId(), now.plusDays(1), now.plusDays(1).plusHours(1));
+        CommentDto commentDto = new CommentDto();
+        commentDto.setText("Good drill");
+        itemService.createComment(itemId, booker.getId(), commentDto);
+        ItemDto update = new ItemDto();
+        update.setName("Hammer drill");
+        itemService.update(itemId, update, owner.getId());
+
+        ItemDto ownerItem = itemService.getByOwner(owner.getId(), 0, 10).get(0);
+        Assertions.assertEquals("Hammer drill", ownerItem.getName());
+        Assertions.assertEquals(1, ownerItem.getCommentCount());
+        Assertions.assertEquals(1, ownerItem.getComments().size());
+        Assertions.assertEquals(lastBooking.getId(), ownerItem.getLastBooking().getId());
+        Assertions.assertEquals(booker.getId(), ownerItem.getLastBooking().getBookerId());
+        Assertions.assertEquals(nextBooking.getId(), ownerItem.getNextBooking().getId());
+
+        // Summary written when next booking was in future expires once it starts, read finds its bookings
+        // in memory without writing, and job advances stored summary
+        ItemSummary summary = summaryRepository.findById(itemId).orElseThrow();
+        summary.setNextBookingStart(now.minusHours(1));
+        summary.setLastBookingId(null);
+        summaryRepository.save(summary);
+        Assertions.assertEquals(ownerItem, itemService.getByOwner(owner.getId(), 0, 10).get(0));
+        Assertions.assertNull(summaryRepository.findById(itemId).orElseThrow().getLastBookingId());
+        Assertions.assertEquals(1L, summaryUpdater.advanceExpired());
+        Assertions.assertEquals(nextBooking.getStart(),
+                summaryRepository.findById(itemId).orElseThrow().getNextBookingStart());
+        Assertions.assertEquals(0L, summaryUpdater.advanceExpired());
+
+        // Rebuild reconstructs summaries from items, comments and bookings
+        summaryRepository.deleteAll();
+        Assertions.assertEquals(List.of(), itemService.getByOwner(owner.getId(), 0, 10));
+        Assertions.assertEquals(Map.of("items", 1L), summaryEndpoint.rebuild());
+        Assertions.assertEquals(ownerItem, itemService.getByOwner(owner.getId(), 0, 10).get(0));
+
+        // Comments and bookings of deleted booker are deleted by cascade, so they leave summaries of booked items
+        userService.delete(booker.getId());
+        ownerItem = itemService.getByOwner(owner.getId(), 0, 10).get(0);
+        Assertions.assertEquals(0, ownerItem.getCommentCount());
+        Assertions.assertNull(ownerItem.getComments());
+        Assertions.assertNull(ownerItem.getLastBooking());
+        Assertions.assertNull(ownerItem.getNextBooking());
+        Assertions.assertEquals(0, itemService.get(itemId, owner.getId()).getCommentCount());
+
+        itemService.delete(itemId);
+        Assertions.assertEquals(0, summaryRepository.count());
+    }
+
+    @Test
+    public void rebuildUpdatesStoredSummariesTest() {
+        UserDto owner = userService.create(TestFixtures.user("rebuild-owner@yandex.ru"));
+        Long itemId = itemService.create(TestFixtures.drill(), owner.getId()).getId();
+        // Item changed bypassing services leaves its summary stale until rebuild
+        Item item = itemRepository.findById(itemId).orElseThrow();
+        item.setName("Hammer drill");
+        item.setCommentCount(2);
+        itemRepository.save(item);
+
+        Assertions.assertEquals(Map.of("items", 1L), summaryEndpoint.rebuild());
+        ItemSummary summary = summaryRepository.findById(itemId).orElseThrow();
+        Assertions.assertEquals("Hammer drill", summary.getName());
+        Assertions.assertEquals(2, summary.getCommentCount());
+        Assertions.assertEquals(owner.getId(), summary.getOwnerId());
+    }
+
+    private BookingDto createApprovedBooking(final Long itemId, final Long bookerId, final Long ownerId,
+                                             final LocalDateTime start, final LocalDateTime end) {
+        BookingDto booking = createBooking(itemId, bookerId, start, end);
+        return bookingService.approve(booking.getId(), ownerId, true);
+    }
+
+    private BookingDto createBooking(final Long itemId, final Long bookerId,
+                                     final LocalDateTime start, final LocalDateTime end) {
+        return bookingService.create(TestFixtures.booking(itemId, start, end), bookerId);
+    }
+}
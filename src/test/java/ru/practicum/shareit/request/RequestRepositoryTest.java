@@ -12,6 +12,7 @@ import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -39,13 +40,13 @@ public class RequestRepositoryTest {
 
         ItemRequest request1 = new ItemRequest();
         request1.setDescription("Request 1 description");
-        request1.setCreated(LocalDateTime.now());
+        request1.setCreated(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
         request1.setRequester(user1);
         requests.add(requestRepository.save(request1));
 
         ItemRequest request2 = new ItemRequest();
         request2.setDescription("Request 2 description");
-        request2.setCreated(LocalDateTime.now());
+        request2.setCreated(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
         request2.setRequester(user2);
         requests.add(requestRepository.save(request2));
     }
@@ -62,9 +63,9 @@ public class RequestRepositoryTest {
     public void findAllByRequesterIdTest() {
         Pageable pageable = PageRequest.of(0 / 1, 1);
 
-        Assertions.assertEquals(List.of(requests.get(0)),
+        Assertions.assertEquals(List.of(RequestMapper.toItemRequestDto(requests.get(0))),
                 requestRepository.findAllByRequesterId(users.get(0).getId(), pageable));
-        Assertions.assertEquals(List.of(requests.get(1)),
+        Assertions.assertEquals(List.of(RequestMapper.toItemRequestDto(requests.get(1))),
                 requestRepository.findAllByRequesterId(users.get(1).getId(), pageable));
     }
 
@@ -72,9 +73,27 @@ public class RequestRepositoryTest {
     public void findAllByRequesterIdNotTest() {
         Pageable pageable = PageRequest.of(0 / 1, 1);
 
-        Assertions.assertEquals(List.of(requests.get(0)),
+        Assertions.assertEquals(List.of(RequestMapper.toItemRequestDto(requests.get(0))),
                 requestRepository.findAllByRequesterIdNot(users.get(1).getId(), pageable));
-        Assertions.assertEquals(List.of(requests.get(1)),
+        Assertions.assertEquals(List.of(RequestMapper.toItemRequestDto(requests.get(1))),
                 requestRepository.findAllByRequesterIdNot(users.get(0).getId(), pageable));
     }
+
+    @Test
+    public void findAllByRequesterIdNotAfterCursorTest() {
+        Pageable pageable = PageRequest.of(0, 1, RequestRepository.SORT_CREATE_DATE_ID_ASC);
+        ItemRequest request = requests.get(0);
+        Long requesterId = users.get(1).getId();
+        // Keep creation date within database timestamp precision
+        LocalDateTime created = request.getCreated().truncatedTo(ChronoUnit.MICROS);
+        request.setCreated(created);
+        requestRepository.saveAndFlush(request);
+
+        Assertions.assertEquals(List.of(RequestMapper.toItemRequestDto(request)),
+                requestRepository.findAllByRequesterIdNotAfterCursor(requesterId, created,
+                        request.getId() - 1, pageable));
+        Assertions.assertEquals(List.of(),
+                requestRepository.findAllByRequesterIdNotAfterCursor(requesterId, created,
+                        request.getId(), pageable));
+    }
 }
@@ -94,7 +94,7 @@ public class RequestServiceTest {
         ItemRequestDto expectedRequest = requests.get(0);
         Mockito
                 .when(requestRepository.findAllByRequesterId(Mockito.anyLong(), Mockito.any(Pageable.class)))
-                    .thenReturn(List.of(RequestMapper.toItemRequest(expectedRequest)));
+                    .thenReturn(List.of(expectedRequest));
         Mockito
                 .when(itemRepository.findByRequestIdIn(Mockito.anyList()))
                 .thenReturn(List.of());
@@ -115,7 +115,7 @@ public class RequestServiceTest {
         ItemRequestDto expectedRequest = requests.get(0);
         Mockito
                 .when(requestRepository.findAllByRequesterIdNot(Mockito.anyLong(), Mockito.any(Pageable.class)))
-                .thenReturn(List.of(RequestMapper.toItemRequest(expectedRequest)));
+                .thenReturn(List.of(expectedRequest));
         Mockito
                 .when(itemRepository.findByRequestIdIn(Mockito.anyList()))
                 .thenReturn(List.of());
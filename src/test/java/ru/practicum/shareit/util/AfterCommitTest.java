@@ -0,0 +1,41 @@
+package ru.practicum.shareit.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AfterCommitTest {
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @AfterEach
+    public void afterEach() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void runWithoutTransactionTest() {
+        AfterCommit.run(runs::incrementAndGet);
+        Assertions.assertEquals(1, runs.get());
+
+        AfterCommit.runNowAndAfterCommit(runs::incrementAndGet);
+        Assertions.assertEquals(2, runs.get());
+    }
+
+    @Test
+    public void runAfterCommitTest() {
+        TransactionSynchronizationManager.initSynchronization();
+        AfterCommit.run(runs::incrementAndGet);
+        Assertions.assertEquals(0, runs.get());
+
+        AfterCommit.runNowAndAfterCommit(runs::incrementAndGet);
+        Assertions.assertEquals(1, runs.get());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        Assertions.assertEquals(3, runs.get());
+    }
+}
@@ -0,0 +1,3 @@
+-- H2 has no exclusion constraints, overlapping waiting and approved bookings are rejected by trigger instead
+CREATE TRIGGER IF NOT EXISTS tr_bookings_overlap BEFORE INSERT, UPDATE ON bookings
+    FOR EACH ROW CALL 'ru.practicum.shareit.booking.BookingOverlapTrigger';